@@ -0,0 +1,65 @@
+package com.gtan.agent;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 反射调用统计 Java Agent：
+ * 启动时注册 {@link ReflectionTransformer}，在应用类加载时织入反射调用点，JVM 退出时输出 {@link ReflectionProfiler#report()}
+ *
+ * <p>参数为逗号分隔的列表：包名前缀（默认 com.gtan）以及可选的 report=文件路径（默认输出到标准输出），例如
+ * <pre>
+ * -javaagent:reflect-demo-1.0-SNAPSHOT-agent.jar=com.gtan,report=target/reflection-profile.txt
+ * </pre>
+ * Maven 中可以通过 {@code mvn test -Preflection-profiler} 以该 Agent 运行测试
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class ReflectionAgent {
+
+    private ReflectionAgent() {
+    }
+
+    /**
+     * 以 -javaagent 方式启动时调用
+     *
+     * @param arguments       Agent 参数
+     * @param instrumentation 字节码织入接口
+     */
+    public static void premain(String arguments, Instrumentation instrumentation) {
+        List<String> prefixes = new ArrayList<>();
+        Path report = null;
+        for (String argument : arguments == null ? new String[0] : arguments.split(",")) {
+            if (argument.startsWith("report=")) {
+                report = Path.of(argument.substring("report=".length()));
+            } else if (!argument.isBlank()) {
+                prefixes.add(argument.trim().replace('.', '/'));
+            }
+        }
+        if (prefixes.isEmpty()) {
+            prefixes.add("com/gtan/");
+        }
+        instrumentation.addTransformer(new ReflectionTransformer(prefixes));
+        Path output = report;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            String text = ReflectionProfiler.report();
+            if (output == null) {
+                System.out.print(text);
+                return;
+            }
+            try {
+                Files.writeString(output, text, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("reflection profiler: cannot write " + output + ": " + e);
+                System.out.print(text);
+            }
+        }, "reflection-profiler-report"));
+    }
+}
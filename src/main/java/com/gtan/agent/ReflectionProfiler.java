@@ -0,0 +1,182 @@
+package com.gtan.agent;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 反射调用统计：
+ * 由 {@link ReflectionTransformer} 织入的桥接方法在每次反射调用前后调用 {@link #enter} 和 {@link #exit}，
+ * 按调用点和目标成员（Method、Field、Constructor 或 Class）累计调用次数和耗时
+ * 1. 调用点在类转换时注册，运行时只按整数下标访问，不需要遍历调用栈
+ * 2. 计数器使用 LongAdder，多线程同时调用同一个调用点时分散到不同的单元，避免 CAS 竞争
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class ReflectionProfiler {
+
+    private static final Object LOCK = new Object();
+
+    /**
+     * 按调用点下标保存的统计，注册时复制扩容，读取时不加锁
+     */
+    private static volatile Site[] sites = new Site[0];
+
+    private ReflectionProfiler() {
+    }
+
+    /**
+     * 注册调用点，由 {@link ReflectionTransformer} 在类转换时调用
+     *
+     * @param location 调用点位置，格式与异常栈相同，例如 com.gtan.ioc.ReflectTest.test3(ReflectTest.java:87)
+     * @param kind     反射操作，例如 Method.invoke
+     * @return 调用点下标
+     */
+    public static int register(String location, String kind) {
+        synchronized (LOCK) {
+            Site[] current = sites;
+            Site[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new Site(location, kind);
+            sites = next;
+            return current.length;
+        }
+    }
+
+    /**
+     * 反射调用开始：累加调用次数
+     *
+     * @param site   调用点下标
+     * @param target 反射调用的接收者，即目标成员；为 null 时调用本身会抛出 NullPointerException，不计数
+     * @return 开始时间，传给 {@link #exit}
+     */
+    public static long enter(int site, Object target) {
+        if (target != null) {
+            sites[site].stats(target).calls.increment();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * 反射调用正常返回：累加耗时，抛出异常的调用只计次数
+     *
+     * @param site   调用点下标
+     * @param target 目标成员
+     * @param start  {@link #enter} 返回的开始时间
+     */
+    public static void exit(int site, Object target, long start) {
+        if (target != null) {
+            sites[site].stats(target).nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return 按累计耗时从高到低排序的统计快照
+     */
+    public static List<Entry> entries() {
+        // 同一行中的多个调用点（如 field.get(before) 和 field.get(after)）合并为一条
+        Map<List<String>, Entry> merged = new HashMap<>();
+        for (Site site : sites) {
+            for (Map.Entry<Object, Stats> entry : site.targets.entrySet()) {
+                Entry current = new Entry(site.location, site.kind, describe(entry.getKey()),
+                        entry.getValue().calls.sum(), entry.getValue().nanos.sum());
+                merged.merge(List.of(current.location(), current.kind(), current.target()), current,
+                        (left, right) -> new Entry(left.location(), left.kind(), left.target(),
+                                left.calls() + right.calls(), left.nanos() + right.nanos()));
+            }
+        }
+        List<Entry> entries = new ArrayList<>(merged.values());
+        entries.sort(Comparator.comparingLong(Entry::nanos).reversed().thenComparing(Entry::location));
+        return entries;
+    }
+
+    /**
+     * 生成文本报告，每行一个调用点和目标成员
+     *
+     * @return 报告
+     */
+    public static String report() {
+        List<Entry> entries = entries();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("reflection profile: %d call sites, %d entries%n", sites.length, entries.size()));
+        report.append(String.format("%10s %12s %10s  %-24s %s%n", "calls", "total µs", "avg ns", "operation", "site -> target"));
+        for (Entry entry : entries) {
+            report.append(String.format("%10d %12.1f %10d  %-24s %s -> %s%n", entry.calls(), entry.nanos() / 1_000.0,
+                    entry.calls() == 0 ? 0 : entry.nanos() / entry.calls(), entry.kind(), entry.location(),
+                    entry.target()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * 清空所有计数，已注册的调用点保留
+     */
+    public static void reset() {
+        for (Site site : sites) {
+            site.targets.clear();
+        }
+    }
+
+    private static String describe(Object target) {
+        if (target instanceof Class<?> clazz) {
+            return clazz.getName();
+        } else if (target instanceof Constructor<?> constructor) {
+            return constructor.getDeclaringClass().getName() + ".<init>";
+        } else if (target instanceof Field field) {
+            return field.getDeclaringClass().getName() + "." + field.getName();
+        } else if (target instanceof Member member) {
+            return member.getDeclaringClass().getName() + "." + member.getName();
+        }
+        return String.valueOf(target);
+    }
+
+    /**
+     * 统计条目
+     *
+     * @param location 调用点位置
+     * @param kind     反射操作
+     * @param target   目标成员
+     * @param calls    调用次数
+     * @param nanos    正常返回的调用累计耗时（纳秒）
+     */
+    public record Entry(String location, String kind, String target, long calls, long nanos) {
+    }
+
+    /**
+     * 单个调用点：同一个调用点可能访问不同的成员，按成员分别统计
+     */
+    private static final class Site {
+
+        private final String location;
+
+        private final String kind;
+
+        private final Map<Object, Stats> targets = new ConcurrentHashMap<>();
+
+        Site(String location, String kind) {
+            this.location = location;
+            this.kind = kind;
+        }
+
+        Stats stats(Object target) {
+            Stats stats = targets.get(target);
+            return stats != null ? stats : targets.computeIfAbsent(target, key -> new Stats());
+        }
+    }
+
+    private static final class Stats {
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,310 @@
+package com.gtan.agent;
+
+import com.gtan.bytecode.ClassFile;
+import com.gtan.bytecode.ConstantPoolBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.nio.ByteBuffer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 反射调用点织入：
+ * 在应用类中查找调用 Method.invoke、Field.get/set、Constructor.newInstance、Class.getDeclaredMethods/getDeclaredFields
+ * 和 setAccessible 的 invokevirtual 指令，为每个调用点生成一个私有静态桥接方法，并把原指令改为 invokestatic 调用桥接方法
+ * 1. 桥接方法与原调用的参数完全一致（接收者变为第一个参数），原指令只替换操作码和常量池下标，长度不变，
+ * 跳转偏移量和 StackMapTable 都无需调整
+ * 2. 桥接方法位于调用方所在的类中，由它执行原来的反射调用，调用方敏感（@CallerSensitive）的访问检查结果不变
+ * 3. 桥接方法内没有分支，不需要 StackMapTable；调用点下标以常量写入，运行时不需要遍历调用栈
+ * 4. 新增的常量追加在常量池末尾，已有常量的下标保持不变
+ *
+ * <p>JDK 中的反射入口由启动类加载器加载，不能直接修改，因此统计的是应用代码中的调用点，
+ * 对同一个反射入口的全部调用都经过这些调用点
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class ReflectionTransformer implements ClassFileTransformer {
+
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int LDC_W = 0x13;
+    private static final int LLOAD = 0x16;
+    private static final int LSTORE = 0x37;
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ACC_PRIVATE_STATIC_SYNTHETIC = 0x0002 | ClassFile.ACC_STATIC | 0x1000;
+
+    private static final String PROFILER = "com/gtan/agent/ReflectionProfiler";
+
+    /**
+     * 需要统计的反射入口
+     */
+    private static final List<Target> TARGETS = List.of(
+            new Target("Method.invoke", "java/lang/reflect/Method", "invoke",
+                    "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;"),
+            new Target("Field.get", "java/lang/reflect/Field", "get", "(Ljava/lang/Object;)Ljava/lang/Object;"),
+            new Target("Field.set", "java/lang/reflect/Field", "set", "(Ljava/lang/Object;Ljava/lang/Object;)V"),
+            new Target("Constructor.newInstance", "java/lang/reflect/Constructor", "newInstance",
+                    "([Ljava/lang/Object;)Ljava/lang/Object;"),
+            new Target("Class.getDeclaredMethods", "java/lang/Class", "getDeclaredMethods",
+                    "()[Ljava/lang/reflect/Method;"),
+            new Target("Class.getDeclaredFields", "java/lang/Class", "getDeclaredFields",
+                    "()[Ljava/lang/reflect/Field;"),
+            new Target("setAccessible", "java/lang/reflect/Method", "setAccessible", "(Z)V"),
+            new Target("setAccessible", "java/lang/reflect/Field", "setAccessible", "(Z)V"),
+            new Target("setAccessible", "java/lang/reflect/Constructor", "setAccessible", "(Z)V"),
+            new Target("setAccessible", "java/lang/reflect/AccessibleObject", "setAccessible", "(Z)V"));
+
+    /**
+     * 需要织入的类名前缀（内部类名格式，如 com/gtan/）
+     */
+    private final List<String> prefixes;
+
+    /**
+     * @param prefixes 需要织入的类名前缀，内部类名格式，如 com/gtan/
+     */
+    public ReflectionTransformer(List<String> prefixes) {
+        this.prefixes = List.copyOf(prefixes);
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (className == null || className.startsWith("com/gtan/agent/")
+                || prefixes.stream().noneMatch(className::startsWith)) {
+            return null;
+        }
+        try {
+            return instrument(classfileBuffer);
+        } catch (RuntimeException e) {
+            // 织入失败时保持原样加载，不影响应用运行
+            System.err.println("reflection profiler: skip " + className + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 织入单个类
+     *
+     * @param bytes class 文件内容
+     * @return 织入后的 class 文件，类中没有需要统计的调用点时返回 null
+     */
+    public byte[] instrument(byte[] bytes) {
+        ClassFile classFile = ClassFile.read(ByteBuffer.wrap(bytes));
+        if ((classFile.accessFlags() & ClassFile.ACC_INTERFACE) != 0) {
+            return null;
+        }
+        Target[] targets = new Target[classFile.constantCount()];
+        boolean candidate = false;
+        for (int i = 1; i < targets.length; i++) {
+            if (classFile.tag(i) == ClassFile.CONSTANT_METHODREF) {
+                targets[i] = match(classFile, i);
+                candidate |= targets[i] != null;
+            }
+        }
+        if (!candidate) {
+            return null;
+        }
+        String className = classFile.thisClass().replace('/', '.');
+        String sourceFile = sourceFile(classFile);
+        List<Site> sites = new ArrayList<>();
+        for (ClassFile.Member method : classFile.methods()) {
+            ClassFile.Attribute code = classFile.findAttribute(method.attributes(), ClassFile.Names.CODE);
+            if (code == null) {
+                continue;
+            }
+            int start = code.offset() + 8;
+            int end = start + classFile.u4(code.offset() + 4);
+            for (int pc = start; pc < end; pc += classFile.instructionLength(start, pc)) {
+                if (classFile.u1(pc) == INVOKEVIRTUAL && targets[classFile.u2(pc + 1)] != null) {
+                    Target target = targets[classFile.u2(pc + 1)];
+                    String location = className + "." + classFile.utf8(method.nameIndex())
+                            + "(" + sourceFile + ":" + classFile.lineNumber(code, pc - start) + ")";
+                    sites.add(new Site(pc, classFile.u2(pc + 1), target,
+                            ReflectionProfiler.register(location, target.kind())));
+                }
+            }
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        try {
+            return rewrite(classFile, bytes, sites);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Target match(ClassFile classFile, int index) {
+        int offset = classFile.constantOffset(index);
+        String owner = classFile.className(classFile.u2(offset + 1));
+        int nameAndType = classFile.constantOffset(classFile.u2(offset + 3));
+        String name = classFile.utf8(classFile.u2(nameAndType + 1));
+        String descriptor = classFile.utf8(classFile.u2(nameAndType + 3));
+        for (Target target : TARGETS) {
+            if (target.owner().equals(owner) && target.name().equals(name) && target.descriptor().equals(descriptor)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private static String sourceFile(ClassFile classFile) {
+        ClassFile.Attribute attribute = classFile.findAttribute(classFile.attributes(), ClassFile.Names.SOURCE_FILE);
+        return attribute == null ? "Unknown Source" : classFile.utf8(classFile.u2(attribute.offset()));
+    }
+
+    /**
+     * 生成新的 class 文件：追加常量、替换调用点指令、追加桥接方法
+     */
+    private static byte[] rewrite(ClassFile classFile, byte[] bytes, List<Site> sites) throws IOException {
+        ConstantPoolBuilder pool = new ConstantPoolBuilder(classFile.constantCount());
+        int profiler = pool.classRef(PROFILER);
+        int enter = pool.methodRef(profiler, "enter", "(ILjava/lang/Object;)J");
+        int exit = pool.methodRef(profiler, "exit", "(ILjava/lang/Object;J)V");
+        int codeName = pool.utf8("Code");
+        int thisClass = classFile.u2(classFile.constantPoolEnd() + 2);
+
+        ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        DataOutputStream methodOut = new DataOutputStream(methods);
+        int methodsOffset = classFile.methodsOffset();
+        int attributesOffset = classFile.attributesOffset();
+        byte[] methodTable = new byte[attributesOffset - methodsOffset - 2];
+        System.arraycopy(bytes, methodsOffset + 2, methodTable, 0, methodTable.length);
+        for (int i = 0; i < sites.size(); i++) {
+            Site site = sites.get(i);
+            String name = "$profile$" + i;
+            String descriptor = "(L" + site.target().owner() + ";" + site.target().descriptor().substring(1);
+            int nameIndex = pool.utf8(name);
+            int descriptorIndex = pool.utf8(descriptor);
+            int bridge = pool.methodRef(thisClass, pool.nameAndType(nameIndex, descriptorIndex));
+            // 原地替换调用点：invokevirtual 目标方法 -> invokestatic 桥接方法
+            int position = site.pc() - methodsOffset - 2;
+            methodTable[position] = (byte) INVOKESTATIC;
+            methodTable[position + 1] = (byte) (bridge >>> 8);
+            methodTable[position + 2] = (byte) bridge;
+            writeBridge(methodOut, nameIndex, descriptorIndex, descriptor, site, pool.integer(site.id()), enter, exit,
+                    codeName);
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.length + methods.size() + pool.size() + 16);
+        DataOutputStream out = new DataOutputStream(result);
+        out.write(bytes, 0, 8);
+        out.writeShort(pool.count());
+        out.write(bytes, 10, classFile.constantPoolEnd() - 10);
+        pool.writeTo(out);
+        out.write(bytes, classFile.constantPoolEnd(), methodsOffset - classFile.constantPoolEnd());
+        out.writeShort(classFile.methods().size() + sites.size());
+        out.write(methodTable);
+        methods.writeTo(out);
+        out.write(bytes, attributesOffset, classFile.length() - attributesOffset);
+        return result.toByteArray();
+    }
+
+    /**
+     * 写出桥接方法：
+     * <pre>
+     * static R $profile$i(Owner target, A... args) {
+     *     long start = ReflectionProfiler.enter(site, target);
+     *     R result = target.name(args);
+     *     ReflectionProfiler.exit(site, target, start);
+     *     return result;
+     * }
+     * </pre>
+     */
+    private static void writeBridge(DataOutputStream out, int nameIndex, int descriptorIndex, String descriptor,
+                                    Site site, int siteConstant, int enter, int exit, int codeName)
+            throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        DataOutputStream codeOut = new DataOutputStream(code);
+        int slots = 1;
+        codeOut.writeByte(LDC_W);
+        codeOut.writeShort(siteConstant);
+        codeOut.writeByte(ALOAD_0);
+        codeOut.writeByte(INVOKESTATIC);
+        codeOut.writeShort(enter);
+        List<Character> parameters = parameterTypes(site.target().descriptor());
+        int startSlot = 1 + parameters.size();
+        codeOut.writeByte(LSTORE);
+        codeOut.writeByte(startSlot);
+        codeOut.writeByte(ALOAD_0);
+        for (char type : parameters) {
+            // 目标方法的参数只有引用类型和 boolean
+            codeOut.writeByte(type == 'L' ? 0x19 : 0x15);
+            codeOut.writeByte(slots++);
+        }
+        codeOut.writeByte(INVOKEVIRTUAL);
+        codeOut.writeShort(site.constant());
+        codeOut.writeByte(LDC_W);
+        codeOut.writeShort(siteConstant);
+        codeOut.writeByte(ALOAD_0);
+        codeOut.writeByte(LLOAD);
+        codeOut.writeByte(startSlot);
+        codeOut.writeByte(INVOKESTATIC);
+        codeOut.writeShort(exit);
+        codeOut.writeByte(descriptor.endsWith(")V") ? 0xB1 : 0xB0);
+
+        out.writeShort(ACC_PRIVATE_STATIC_SYNTHETIC);
+        out.writeShort(nameIndex);
+        out.writeShort(descriptorIndex);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.size());
+        out.writeShort(startSlot + 5);
+        out.writeShort(startSlot + 2);
+        out.writeInt(code.size());
+        code.writeTo(out);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    /**
+     * 解析方法描述符的参数类型，引用类型和数组统一记为 L
+     */
+    private static List<Character> parameterTypes(String descriptor) {
+        List<Character> types = new ArrayList<>();
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            char type = descriptor.charAt(i);
+            if (type == 'L' || type == '[') {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+                types.add('L');
+            } else {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * 反射入口
+     *
+     * @param kind       报告中显示的操作名
+     * @param owner      调用指令中的所属类
+     * @param name       方法名
+     * @param descriptor 方法描述符
+     */
+    private record Target(String kind, String owner, String name, String descriptor) {
+    }
+
+    /**
+     * 调用点
+     *
+     * @param pc       invokevirtual 指令在 class 文件中的偏移量
+     * @param constant 原 Methodref 常量下标
+     * @param target   反射入口
+     * @param id       {@link ReflectionProfiler} 中的调用点下标
+     */
+    private record Site(int pc, int constant, Target target, int id) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.gtan.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在 Bean 的非 void 实例方法上：容器创建的 Bean 中，该方法的返回值按（接收者, 参数列表）缓存，
+ * 相同参数的重复调用直接返回缓存的结果；参数按 equals 比较，抛出异常的调用不缓存
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+    /**
+     * @return 该方法最多缓存的结果数
+     */
+    int maxSize() default 1024;
+
+    /**
+     * @return 结果的存活时间（毫秒），0 表示永不过期
+     */
+    long ttlMillis() default 0;
+
+    /**
+     * @return 超过 maxSize 时的淘汰策略
+     */
+    Eviction eviction() default Eviction.LRU;
+
+    /**
+     * 淘汰策略
+     */
+    enum Eviction {
+
+        /**
+         * 淘汰最久未使用的结果
+         */
+        LRU,
+
+        /**
+         * 淘汰使用次数最少的结果
+         */
+        LFU
+    }
+}
@@ -0,0 +1,18 @@
+package com.gtan.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 与 @Bean 一起标注在方法上：Bean 在每个 RequestScope 中只创建一次，作用域关闭时释放
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestScoped {
+}
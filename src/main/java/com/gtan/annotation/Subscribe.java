@@ -0,0 +1,24 @@
+package com.gtan.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在只有一个参数的实例方法上：容器创建 Bean 时将其注册到 EventBus，
+ * 发布的事件是参数类型（或其子类型）的实例时调用该方法
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Subscribe {
+
+    /**
+     * @return 为 true 时不在发布线程上调用，事件进入该订阅者的队列，由虚拟线程按批投递
+     */
+    boolean async() default false;
+}
@@ -0,0 +1,591 @@
+package com.gtan.bytecode;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 轻量级 class 文件视图：
+ * 直接在 ByteBuffer 上解析 class 文件结构，不加载、不初始化对应的类
+ * 1. 构造时只记录常量池各项的偏移量，字符串按需解码
+ * 2. 字段、方法和属性表在首次访问时解析，只保存偏移量
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class ClassFile {
+
+    public static final int CONSTANT_UTF8 = 1;
+    public static final int CONSTANT_INTEGER = 3;
+    public static final int CONSTANT_FLOAT = 4;
+    public static final int CONSTANT_LONG = 5;
+    public static final int CONSTANT_DOUBLE = 6;
+    public static final int CONSTANT_CLASS = 7;
+    public static final int CONSTANT_STRING = 8;
+    public static final int CONSTANT_FIELDREF = 9;
+    public static final int CONSTANT_METHODREF = 10;
+    public static final int CONSTANT_INTERFACE_METHODREF = 11;
+    public static final int CONSTANT_NAME_AND_TYPE = 12;
+    public static final int CONSTANT_METHOD_HANDLE = 15;
+    public static final int CONSTANT_METHOD_TYPE = 16;
+    public static final int CONSTANT_DYNAMIC = 17;
+    public static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    public static final int CONSTANT_MODULE = 19;
+    public static final int CONSTANT_PACKAGE = 20;
+
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_INTERFACE = 0x0200;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int IINC = 0x84;
+    private static final int TABLESWITCH = 0xAA;
+    private static final int LOOKUPSWITCH = 0xAB;
+    private static final int WIDE = 0xC4;
+
+    /**
+     * 定长指令的长度（含操作码），下标为操作码；0 表示变长指令或未定义的操作码
+     */
+    private static final int[] INSTRUCTION_LENGTHS = new int[0xCA];
+
+    static {
+        Arrays.fill(INSTRUCTION_LENGTHS, 1);
+        INSTRUCTION_LENGTHS[0x10] = 2;
+        INSTRUCTION_LENGTHS[0x11] = 3;
+        INSTRUCTION_LENGTHS[0x12] = 2;
+        INSTRUCTION_LENGTHS[0x13] = 3;
+        INSTRUCTION_LENGTHS[0x14] = 3;
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x15, 0x1A, 2);
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x36, 0x3B, 2);
+        INSTRUCTION_LENGTHS[IINC] = 3;
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x99, 0xA9, 3);
+        INSTRUCTION_LENGTHS[0xA9] = 2;
+        INSTRUCTION_LENGTHS[TABLESWITCH] = 0;
+        INSTRUCTION_LENGTHS[LOOKUPSWITCH] = 0;
+        Arrays.fill(INSTRUCTION_LENGTHS, 0xB2, 0xB9, 3);
+        INSTRUCTION_LENGTHS[0xB9] = 5;
+        INSTRUCTION_LENGTHS[0xBA] = 5;
+        INSTRUCTION_LENGTHS[0xBB] = 3;
+        INSTRUCTION_LENGTHS[0xBC] = 2;
+        INSTRUCTION_LENGTHS[0xBD] = 3;
+        INSTRUCTION_LENGTHS[0xC0] = 3;
+        INSTRUCTION_LENGTHS[0xC1] = 3;
+        INSTRUCTION_LENGTHS[WIDE] = 0;
+        INSTRUCTION_LENGTHS[0xC5] = 4;
+        INSTRUCTION_LENGTHS[0xC6] = 3;
+        INSTRUCTION_LENGTHS[0xC7] = 3;
+        INSTRUCTION_LENGTHS[0xC8] = 5;
+        INSTRUCTION_LENGTHS[0xC9] = 5;
+    }
+
+    private final ByteBuffer buffer;
+
+    /**
+     * 常量池第 i 项的 tag 所在偏移量，long/double 占用的第二个槽位为 0
+     */
+    private final int[] constantOffsets;
+
+    /**
+     * 常量池之后 access_flags 的偏移量
+     */
+    private final int headerOffset;
+
+    private List<Member> fields;
+
+    private List<Member> methods;
+
+    private List<Attribute> attributes;
+
+    /**
+     * 属性表结束位置，即整个 class 文件的长度
+     */
+    private int end;
+
+    private ClassFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("不是合法的 class 文件");
+        }
+        int count = u2(8);
+        this.constantOffsets = new int[count];
+        int position = 10;
+        for (int i = 1; i < count; i++) {
+            constantOffsets[i] = position;
+            int tag = buffer.get(position) & 0xFF;
+            switch (tag) {
+                case CONSTANT_UTF8 -> position += 3 + u2(position + 1);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELDREF, CONSTANT_METHODREF,
+                     CONSTANT_INTERFACE_METHODREF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                     CONSTANT_INVOKE_DYNAMIC -> position += 5;
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    position += 9;
+                    i++;
+                }
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE,
+                     CONSTANT_PACKAGE -> position += 3;
+                case CONSTANT_METHOD_HANDLE -> position += 4;
+                default -> throw new IllegalArgumentException("未知的常量池类型: " + tag);
+            }
+        }
+        this.headerOffset = position;
+    }
+
+    /**
+     * 解析 class 文件，缓冲区的读写位置不会被修改
+     *
+     * @param buffer class 文件内容，偏移量 0 处为魔数
+     * @return class 文件视图
+     * @throws IllegalArgumentException 内容不是合法的 class 文件时抛出
+     */
+    public static ClassFile read(ByteBuffer buffer) {
+        try {
+            return new ClassFile(buffer);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("class 文件被截断", e);
+        }
+    }
+
+    /**
+     * 读取无符号 16 位整数
+     *
+     * @param offset 偏移量
+     * @return 读取的值
+     */
+    public int u2(int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    /**
+     * 读取 32 位整数
+     *
+     * @param offset 偏移量
+     * @return 读取的值
+     */
+    public int u4(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    /**
+     * 读取无符号 8 位整数
+     *
+     * @param offset 偏移量
+     * @return 读取的值
+     */
+    public int u1(int offset) {
+        return buffer.get(offset) & 0xFF;
+    }
+
+    /**
+     * @return 底层缓冲区
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return class 文件主版本号
+     */
+    public int majorVersion() {
+        return u2(6);
+    }
+
+    /**
+     * @return 常量池项数（constant_pool_count）
+     */
+    public int constantCount() {
+        return constantOffsets.length;
+    }
+
+    /**
+     * 获取常量池项的 tag
+     *
+     * @param index 常量池下标
+     * @return tag，long/double 的第二个槽位返回 0
+     */
+    public int tag(int index) {
+        int offset = constantOffsets[index];
+        return offset == 0 ? 0 : u1(offset);
+    }
+
+    /**
+     * 获取常量池项 tag 所在偏移量
+     *
+     * @param index 常量池下标
+     * @return 偏移量
+     */
+    public int constantOffset(int index) {
+        return constantOffsets[index];
+    }
+
+    /**
+     * @return 常量池结束位置，即 access_flags 的偏移量
+     */
+    public int constantPoolEnd() {
+        return headerOffset;
+    }
+
+    /**
+     * 在常量池中查找与给定字节完全相同的 Utf8 项，不解码字符串
+     *
+     * @param value Utf8 字节
+     * @return 常量池下标，不存在时返回 0
+     */
+    public int findUtf8(byte[] value) {
+        for (int i = 1; i < constantOffsets.length; i++) {
+            if (utf8Equals(i, value)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 判断常量池中的 Utf8 项是否等于给定字节
+     *
+     * @param index 常量池下标
+     * @param value Utf8 字节
+     * @return 相同时返回 true
+     */
+    public boolean utf8Equals(int index, byte[] value) {
+        int offset = constantOffsets[index];
+        if (offset == 0 || buffer.get(offset) != CONSTANT_UTF8 || u2(offset + 1) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(offset + 3 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解码常量池中的 Utf8 项（modified UTF-8）
+     *
+     * @param index 常量池下标
+     * @return 字符串
+     */
+    public String utf8(int index) {
+        int offset = constantOffsets[index];
+        if (tag(index) != CONSTANT_UTF8) {
+            throw new IllegalArgumentException("常量池第 " + index + " 项不是 Utf8");
+        }
+        int length = u2(offset + 1);
+        byte[] bytes = new byte[length + 2];
+        buffer.get(offset + 1, bytes, 0, length + 2);
+        boolean ascii = true;
+        for (int i = 2; i < bytes.length && ascii; i++) {
+            ascii = bytes[i] > 0;
+        }
+        if (ascii) {
+            return new String(bytes, 2, length, StandardCharsets.ISO_8859_1);
+        }
+        try {
+            return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 获取 CONSTANT_Class 项引用的内部类名，例如 com/gtan/entity/User
+     *
+     * @param index 常量池下标
+     * @return 内部类名
+     */
+    public String className(int index) {
+        return utf8(u2(constantOffsets[index] + 1));
+    }
+
+    /**
+     * @return 类的访问标志
+     */
+    public int accessFlags() {
+        return u2(headerOffset);
+    }
+
+    /**
+     * @return 当前类的内部类名
+     */
+    public String thisClass() {
+        return className(u2(headerOffset + 2));
+    }
+
+    /**
+     * @return 父类的内部类名，java/lang/Object 返回 null
+     */
+    public String superClass() {
+        int index = u2(headerOffset + 4);
+        return index == 0 ? null : className(index);
+    }
+
+    /**
+     * @return 字段表
+     */
+    public List<Member> fields() {
+        parseMembers();
+        return fields;
+    }
+
+    /**
+     * @return 方法表（包括构造器 &lt;init&gt; 和静态初始化块 &lt;clinit&gt;）
+     */
+    public List<Member> methods() {
+        parseMembers();
+        return methods;
+    }
+
+    /**
+     * @return 类级别的属性表
+     */
+    public List<Attribute> attributes() {
+        parseMembers();
+        return attributes;
+    }
+
+    /**
+     * @return 方法表开始位置，即 methods_count 的偏移量
+     */
+    public int methodsOffset() {
+        List<Member> fieldList = fields();
+        return fieldList.isEmpty() ? fieldsOffset() + 2 : fieldList.get(fieldList.size() - 1).end();
+    }
+
+    /**
+     * @return 类属性表开始位置，即 attributes_count 的偏移量
+     */
+    public int attributesOffset() {
+        List<Member> methodList = methods();
+        return methodList.isEmpty() ? methodsOffset() + 2 : methodList.get(methodList.size() - 1).end();
+    }
+
+    /**
+     * @return class 文件总长度
+     */
+    public int length() {
+        parseMembers();
+        return end;
+    }
+
+    private int fieldsOffset() {
+        return headerOffset + 8 + 2 * u2(headerOffset + 6);
+    }
+
+    private void parseMembers() {
+        if (methods != null) {
+            return;
+        }
+        int[] position = {fieldsOffset()};
+        this.fields = readMembers(position);
+        this.methods = readMembers(position);
+        this.attributes = readAttributes(position);
+        this.end = position[0];
+    }
+
+    private List<Member> readMembers(int[] position) {
+        int count = u2(position[0]);
+        position[0] += 2;
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = position[0];
+            int accessFlags = u2(start);
+            int nameIndex = u2(start + 2);
+            int descriptorIndex = u2(start + 4);
+            position[0] = start + 6;
+            List<Attribute> memberAttributes = readAttributes(position);
+            members.add(new Member(start, position[0], accessFlags, nameIndex, descriptorIndex, memberAttributes));
+        }
+        return Collections.unmodifiableList(members);
+    }
+
+    private List<Attribute> readAttributes(int[] position) {
+        int count = u2(position[0]);
+        position[0] += 2;
+        List<Attribute> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int nameIndex = u2(position[0]);
+            int length = u4(position[0] + 2);
+            result.add(new Attribute(nameIndex, position[0] + 6, length));
+            position[0] += 6 + length;
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 按名称查找属性
+     *
+     * @param attributes 属性表
+     * @param name       属性名的 Utf8 字节，例如 RuntimeVisibleAnnotations
+     * @return 找到的属性，不存在时返回 null
+     */
+    public Attribute findAttribute(List<Attribute> attributes, byte[] name) {
+        for (Attribute attribute : attributes) {
+            if (utf8Equals(attribute.nameIndex(), name)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 计算字节码指令的长度（含操作码和操作数）
+     *
+     * @param codeStart Code 属性中字节码的起始偏移量，tableswitch/lookupswitch 的对齐以此为准
+     * @param pc        指令的偏移量
+     * @return 指令长度
+     * @throws IllegalArgumentException 操作码未定义时抛出
+     */
+    public int instructionLength(int codeStart, int pc) {
+        int opcode = u1(pc);
+        int length = opcode < INSTRUCTION_LENGTHS.length ? INSTRUCTION_LENGTHS[opcode] : 0;
+        if (length != 0) {
+            return length;
+        }
+        int operands = codeStart + ((pc - codeStart + 4) & ~3);
+        return switch (opcode) {
+            case TABLESWITCH -> operands - pc + 12 + 4 * (u4(operands + 8) - u4(operands + 4) + 1);
+            case LOOKUPSWITCH -> operands - pc + 8 + 8 * u4(operands + 4);
+            case WIDE -> u1(pc + 1) == IINC ? 6 : 4;
+            default -> throw new IllegalArgumentException("未知的操作码: " + opcode);
+        };
+    }
+
+    /**
+     * 查找字节码偏移量对应的源代码行号
+     *
+     * @param code Code 属性
+     * @param pc   相对于字节码起始位置的偏移量
+     * @return 行号，没有 LineNumberTable 时返回 -1
+     */
+    public int lineNumber(Attribute code, int pc) {
+        int codeEnd = code.offset() + 8 + u4(code.offset() + 4);
+        int position = codeEnd + 2 + 8 * u2(codeEnd);
+        int line = -1;
+        int count = u2(position);
+        position += 2;
+        for (int i = 0; i < count; i++) {
+            int nameIndex = u2(position);
+            int length = u4(position + 2);
+            if (utf8Equals(nameIndex, Names.LINE_NUMBER_TABLE)) {
+                int best = -1;
+                for (int entry = position + 8, end = entry + 4 * u2(position + 6); entry < end; entry += 4) {
+                    int startPc = u2(entry);
+                    if (startPc <= pc && startPc > best) {
+                        best = startPc;
+                        line = u2(entry + 2);
+                    }
+                }
+            }
+            position += 6 + length;
+        }
+        return line;
+    }
+
+    /**
+     * 读取 RuntimeVisibleAnnotations 属性中全部注解的类型描述符下标
+     *
+     * @param attributes 类、字段或方法的属性表
+     * @return 注解类型描述符（如 Lcom/gtan/annotation/Bean;）在常量池中的下标
+     */
+    public int[] annotationTypes(List<Attribute> attributes) {
+        Attribute attribute = findAttribute(attributes, Names.RUNTIME_VISIBLE_ANNOTATIONS);
+        if (attribute == null) {
+            return new int[0];
+        }
+        int position = attribute.offset();
+        int count = u2(position);
+        position += 2;
+        int[] types = new int[count];
+        for (int i = 0; i < count; i++) {
+            types[i] = u2(position);
+            position = skipAnnotation(position);
+        }
+        return types;
+    }
+
+    private int skipAnnotation(int position) {
+        int pairs = u2(position + 2);
+        position += 4;
+        for (int i = 0; i < pairs; i++) {
+            position = skipElementValue(position + 2);
+        }
+        return position;
+    }
+
+    private int skipElementValue(int position) {
+        char tag = (char) u1(position);
+        return switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> position + 3;
+            case 'e' -> position + 5;
+            case '@' -> skipAnnotation(position + 1);
+            case '[' -> {
+                int count = u2(position + 1);
+                int next = position + 3;
+                for (int i = 0; i < count; i++) {
+                    next = skipElementValue(next);
+                }
+                yield next;
+            }
+            default -> throw new IllegalArgumentException("未知的注解元素类型: " + tag);
+        };
+    }
+
+    /**
+     * 字段或方法
+     *
+     * @param start           在 class 文件中的起始偏移量
+     * @param end             结束偏移量（不含）
+     * @param accessFlags     访问标志
+     * @param nameIndex       名称在常量池中的下标
+     * @param descriptorIndex 描述符在常量池中的下标
+     * @param attributes      属性表
+     */
+    public record Member(int start, int end, int accessFlags, int nameIndex, int descriptorIndex,
+                         List<Attribute> attributes) {
+    }
+
+    /**
+     * 属性
+     *
+     * @param nameIndex 属性名在常量池中的下标
+     * @param offset    属性内容（不含 6 字节头部）的偏移量
+     * @param length    属性内容长度
+     */
+    public record Attribute(int nameIndex, int offset, int length) {
+    }
+
+    /**
+     * 常用属性名的 Utf8 字节
+     */
+    public static final class Names {
+
+        public static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+        public static final byte[] CODE = ascii("Code");
+        public static final byte[] SIGNATURE = ascii("Signature");
+        public static final byte[] BOOTSTRAP_METHODS = ascii("BootstrapMethods");
+        public static final byte[] LINE_NUMBER_TABLE = ascii("LineNumberTable");
+        public static final byte[] SOURCE_FILE = ascii("SourceFile");
+        public static final byte[] CONSTRUCTOR = ascii("<init>");
+
+        private Names() {
+        }
+
+        /**
+         * 将 ASCII 字符串转换为 Utf8 字节
+         *
+         * @param value 只包含 ASCII 字符的字符串
+         * @return 字节数组
+         */
+        public static byte[] ascii(String value) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.gtan.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常量池构建器：
+ * 按需追加常量并返回下标，相同的常量只写入一次；
+ * 既可以从下标 1 开始构建新类的常量池，也可以从已有类的 constant_pool_count 开始追加常量
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class ConstantPoolBuilder {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    /**
+     * 已写入的常量，键为 tag 和内容
+     */
+    private final Map<List<Object>, Integer> indexes = new HashMap<>();
+
+    private int count;
+
+    /**
+     * 创建新类的常量池
+     */
+    public ConstantPoolBuilder() {
+        this(1);
+    }
+
+    /**
+     * @param firstIndex 第一个新常量的下标，追加到已有常量池时为原 constant_pool_count
+     */
+    public ConstantPoolBuilder(int firstIndex) {
+        this.count = firstIndex;
+    }
+
+    /**
+     * @param value 字符串
+     * @return CONSTANT_Utf8 下标
+     */
+    public int utf8(String value) {
+        return add(List.of(ClassFile.CONSTANT_UTF8, value), () -> out.writeUTF(value));
+    }
+
+    /**
+     * @param value 整数
+     * @return CONSTANT_Integer 下标
+     */
+    public int integer(int value) {
+        return add(List.of(ClassFile.CONSTANT_INTEGER, value), () -> out.writeInt(value));
+    }
+
+    /**
+     * @param value 字符串
+     * @return CONSTANT_String 下标
+     */
+    public int string(String value) {
+        int utf8 = utf8(value);
+        return add(List.of(ClassFile.CONSTANT_STRING, utf8), () -> out.writeShort(utf8));
+    }
+
+    /**
+     * @param internalName 内部类名，如 com/gtan/entity/Customer，数组类使用描述符
+     * @return CONSTANT_Class 下标
+     */
+    public int classRef(String internalName) {
+        int name = utf8(internalName);
+        return add(List.of(ClassFile.CONSTANT_CLASS, name), () -> out.writeShort(name));
+    }
+
+    /**
+     * @param name       名称
+     * @param descriptor 描述符
+     * @return CONSTANT_NameAndType 下标
+     */
+    public int nameAndType(String name, String descriptor) {
+        return nameAndType(utf8(name), utf8(descriptor));
+    }
+
+    /**
+     * @param name       名称的 Utf8 下标
+     * @param descriptor 描述符的 Utf8 下标
+     * @return CONSTANT_NameAndType 下标
+     */
+    public int nameAndType(int name, int descriptor) {
+        return add(List.of(ClassFile.CONSTANT_NAME_AND_TYPE, name, descriptor), () -> {
+            out.writeShort(name);
+            out.writeShort(descriptor);
+        });
+    }
+
+    /**
+     * @param owner      所属类的 CONSTANT_Class 下标
+     * @param name       字段名
+     * @param descriptor 字段描述符
+     * @return CONSTANT_Fieldref 下标
+     */
+    public int fieldRef(int owner, String name, String descriptor) {
+        return memberRef(ClassFile.CONSTANT_FIELDREF, owner, nameAndType(name, descriptor));
+    }
+
+    /**
+     * @param owner      所属类的 CONSTANT_Class 下标
+     * @param name       方法名
+     * @param descriptor 方法描述符
+     * @return CONSTANT_Methodref 下标
+     */
+    public int methodRef(int owner, String name, String descriptor) {
+        return memberRef(ClassFile.CONSTANT_METHODREF, owner, nameAndType(name, descriptor));
+    }
+
+    /**
+     * @param owner       所属类的 CONSTANT_Class 下标
+     * @param nameAndType CONSTANT_NameAndType 下标
+     * @return CONSTANT_Methodref 下标
+     */
+    public int methodRef(int owner, int nameAndType) {
+        return memberRef(ClassFile.CONSTANT_METHODREF, owner, nameAndType);
+    }
+
+    private int memberRef(int tag, int owner, int nameAndType) {
+        return add(List.of(tag, owner, nameAndType), () -> {
+            out.writeShort(owner);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * @return constant_pool_count，即下一个常量的下标
+     * @throws IllegalStateException 常量数超出 class 文件上限时抛出
+     */
+    public int count() {
+        if (count > 0xFFFF) {
+            throw new IllegalStateException("常量池超出上限");
+        }
+        return count;
+    }
+
+    /**
+     * @return 已写入常量的字节数
+     */
+    public int size() {
+        return bytes.size();
+    }
+
+    /**
+     * 写出新增的常量（不含 constant_pool_count）
+     *
+     * @param target 输出流
+     * @throws IOException 写入失败时抛出
+     */
+    public void writeTo(DataOutputStream target) throws IOException {
+        bytes.writeTo(target);
+    }
+
+    private int add(List<Object> key, Body body) {
+        Integer index = indexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            out.writeByte((Integer) key.get(0));
+            body.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indexes.put(key, count);
+        return count++;
+    }
+
+    @FunctionalInterface
+    private interface Body {
+
+        void write() throws IOException;
+    }
+}
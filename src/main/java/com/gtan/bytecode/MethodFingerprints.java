@@ -0,0 +1,250 @@
+package com.gtan.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 方法指纹：
+ * 逐条解码方法的字节码，把引用常量池的操作数替换为常量的内容后计算摘要，
+ * 因此同一个方法在两次编译（常量池顺序不同）或两个同构的类中得到相同的指纹，
+ * 而方法体、泛型签名或调用的同类方法发生变化时指纹随之变化
+ * 1. 当前类名统一替换为占位符，比较 ConfigV1、ConfigV2 这类不同名的配置类时不受影响
+ * 2. 调用同类方法（包括 lambda 生成的合成方法）时递归并入被调用方法的指纹
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class MethodFingerprints {
+
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int GETSTATIC = 0xB2;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int INVOKEDYNAMIC = 0xBA;
+    private static final int NEW = 0xBB;
+    private static final int ANEWARRAY = 0xBD;
+    private static final int CHECKCAST = 0xC0;
+    private static final int INSTANCEOF = 0xC1;
+    private static final int MULTIANEWARRAY = 0xC5;
+
+    private final ClassFile classFile;
+
+    private final String thisClass;
+
+    private final String thisDescriptor;
+
+    /**
+     * 方法名 + 描述符到方法的映射
+     */
+    private final Map<String, ClassFile.Member> members = new LinkedHashMap<>();
+
+    private final Map<String, byte[]> digests = new HashMap<>();
+
+    /**
+     * 正在计算的方法，用于截断相互调用的递归
+     */
+    private final Set<String> computing = new HashSet<>();
+
+    private ClassFile.Attribute bootstrapMethods;
+
+    private MethodFingerprints(ClassFile classFile) {
+        this.classFile = classFile;
+        this.thisClass = classFile.thisClass();
+        this.thisDescriptor = "L" + thisClass + ";";
+        for (ClassFile.Member method : classFile.methods()) {
+            members.put(classFile.utf8(method.nameIndex()) + classFile.utf8(method.descriptorIndex()), method);
+        }
+    }
+
+    /**
+     * 计算类中全部方法的指纹
+     *
+     * @param classFile class 文件
+     * @return 方法名 + 描述符（如 customer()Lcom/gtan/entity/Customer;）到十六进制指纹的映射
+     * @throws IllegalArgumentException 字节码中存在无法识别的指令时抛出
+     */
+    public static Map<String, String> of(ClassFile classFile) {
+        MethodFingerprints fingerprints = new MethodFingerprints(classFile);
+        Map<String, String> result = new LinkedHashMap<>();
+        try {
+            for (String key : fingerprints.members.keySet()) {
+                result.put(key, HexFormat.of().formatHex(fingerprints.digest(key)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private byte[] digest(String key) throws IOException {
+        byte[] digest = digests.get(key);
+        if (digest != null) {
+            return digest;
+        }
+        ClassFile.Member method = members.get(key);
+        if (method == null || !computing.add(key)) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(normalize(classFile.utf8(method.descriptorIndex())));
+        ClassFile.Attribute signature = classFile.findAttribute(method.attributes(), ClassFile.Names.SIGNATURE);
+        if (signature != null) {
+            out.writeUTF(normalize(classFile.utf8(classFile.u2(signature.offset()))));
+        }
+        ClassFile.Attribute code = classFile.findAttribute(method.attributes(), ClassFile.Names.CODE);
+        if (code != null) {
+            code(code, out);
+        }
+        digest = sha256(bytes.toByteArray());
+        computing.remove(key);
+        digests.put(key, digest);
+        return digest;
+    }
+
+    /**
+     * 写出规范化的指令序列和异常表：跳转偏移量原样保留，常量池下标替换为常量内容
+     */
+    private void code(ClassFile.Attribute code, DataOutputStream out) throws IOException {
+        int start = code.offset() + 8;
+        int end = start + classFile.u4(code.offset() + 4);
+        int pc = start;
+        while (pc < end) {
+            int opcode = classFile.u1(pc);
+            out.writeByte(opcode);
+            switch (opcode) {
+                case LDC -> {
+                    constant(classFile.u1(pc + 1), out);
+                    pc += 2;
+                }
+                case LDC_W, LDC2_W, NEW, ANEWARRAY, CHECKCAST, INSTANCEOF -> {
+                    constant(classFile.u2(pc + 1), out);
+                    pc += 3;
+                }
+                case INVOKEINTERFACE, INVOKEDYNAMIC -> {
+                    constant(classFile.u2(pc + 1), out);
+                    pc += 5;
+                }
+                case MULTIANEWARRAY -> {
+                    constant(classFile.u2(pc + 1), out);
+                    out.writeByte(classFile.u1(pc + 3));
+                    pc += 4;
+                }
+                default -> {
+                    if (opcode >= GETSTATIC && opcode <= INVOKESTATIC) {
+                        constant(classFile.u2(pc + 1), out);
+                        pc += 3;
+                    } else {
+                        // 其余指令不引用常量池，跳转偏移量和 switch 表原样写出
+                        pc = copy(pc + 1, pc + classFile.instructionLength(start, pc), out);
+                    }
+                }
+            }
+        }
+        int exceptions = classFile.u2(end);
+        for (int i = 0, entry = end + 2; i < exceptions; i++, entry += 8) {
+            copy(entry, entry + 6, out);
+            int catchType = classFile.u2(entry + 6);
+            if (catchType == 0) {
+                out.writeByte(0);
+            } else {
+                constant(catchType, out);
+            }
+        }
+    }
+
+    private int copy(int from, int to, DataOutputStream out) throws IOException {
+        for (int i = from; i < to; i++) {
+            out.writeByte(classFile.u1(i));
+        }
+        return to;
+    }
+
+    /**
+     * 写出常量的 tag 和内容，引用其他常量时递归展开
+     */
+    private void constant(int index, DataOutputStream out) throws IOException {
+        int tag = classFile.tag(index);
+        int offset = classFile.constantOffset(index);
+        out.writeByte(tag);
+        switch (tag) {
+            case ClassFile.CONSTANT_UTF8 -> out.writeUTF(normalize(classFile.utf8(index)));
+            case ClassFile.CONSTANT_INTEGER, ClassFile.CONSTANT_FLOAT -> out.writeInt(classFile.u4(offset + 1));
+            case ClassFile.CONSTANT_LONG, ClassFile.CONSTANT_DOUBLE -> {
+                out.writeInt(classFile.u4(offset + 1));
+                out.writeInt(classFile.u4(offset + 5));
+            }
+            case ClassFile.CONSTANT_CLASS, ClassFile.CONSTANT_STRING, ClassFile.CONSTANT_METHOD_TYPE,
+                 ClassFile.CONSTANT_MODULE, ClassFile.CONSTANT_PACKAGE ->
+                    constant(classFile.u2(offset + 1), out);
+            case ClassFile.CONSTANT_FIELDREF, ClassFile.CONSTANT_METHODREF,
+                 ClassFile.CONSTANT_INTERFACE_METHODREF -> {
+                int nameAndType = classFile.u2(offset + 3);
+                constant(classFile.u2(offset + 1), out);
+                constant(nameAndType, out);
+                if (tag != ClassFile.CONSTANT_FIELDREF && thisClass.equals(classFile.className(classFile.u2(offset + 1)))) {
+                    // 调用同类方法：被调用方法的变化也视为当前方法的变化
+                    int nameAndTypeOffset = classFile.constantOffset(nameAndType);
+                    out.write(digest(classFile.utf8(classFile.u2(nameAndTypeOffset + 1))
+                            + classFile.utf8(classFile.u2(nameAndTypeOffset + 3))));
+                }
+            }
+            case ClassFile.CONSTANT_NAME_AND_TYPE -> {
+                constant(classFile.u2(offset + 1), out);
+                constant(classFile.u2(offset + 3), out);
+            }
+            case ClassFile.CONSTANT_METHOD_HANDLE -> {
+                out.writeByte(classFile.u1(offset + 1));
+                constant(classFile.u2(offset + 2), out);
+            }
+            case ClassFile.CONSTANT_DYNAMIC, ClassFile.CONSTANT_INVOKE_DYNAMIC -> {
+                bootstrapMethod(classFile.u2(offset + 1), out);
+                constant(classFile.u2(offset + 3), out);
+            }
+            default -> throw new IllegalArgumentException("未知的常量池类型: " + tag);
+        }
+    }
+
+    private void bootstrapMethod(int index, DataOutputStream out) throws IOException {
+        if (bootstrapMethods == null) {
+            bootstrapMethods = classFile.findAttribute(classFile.attributes(), ClassFile.Names.BOOTSTRAP_METHODS);
+        }
+        int position = bootstrapMethods.offset() + 2;
+        for (int i = 0; i < index; i++) {
+            position += 4 + 2 * classFile.u2(position + 2);
+        }
+        constant(classFile.u2(position), out);
+        int arguments = classFile.u2(position + 2);
+        for (int i = 0; i < arguments; i++) {
+            constant(classFile.u2(position + 4 + 2 * i), out);
+        }
+    }
+
+    private String normalize(String value) {
+        if (value.equals(thisClass)) {
+            return "";
+        }
+        return value.contains(thisDescriptor) ? value.replace(thisDescriptor, "L;") : value;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
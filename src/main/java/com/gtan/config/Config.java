@@ -21,4 +21,9 @@ public class Config {
         return new Message("Hello World!");
     }
 
+    @Bean
+    public Message message(String content) {
+        return new Message(content);
+    }
+
 }
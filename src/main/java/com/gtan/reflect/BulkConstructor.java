@@ -0,0 +1,199 @@
+package com.gtan.reflect;
+
+import com.gtan.annotation.Autowired;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量构造实体的构造器句柄：导入大量数据时反复调用同一个构造器，并可选地对指定的 String 字段去重
+ * 1. 构造器只解析一次并转换为 (Object[]) -> Object 的 MethodHandle，之后每次构造不再经过 Constructor.newInstance
+ * 2. 指定字段名后，同名的 String 构造参数在调用构造器之前经过 StringDeduplicator，
+ * 实体字段直接引用池中的实例，重复值的原实例不会被任何对象持有
+ * 3. 构造器选择：有 @Autowired 的构造器时使用它，否则使用参数最多的 public 构造器
+ *
+ * <p>用法示例：
+ * <pre>{@code
+ * StringDeduplicator pool = new StringDeduplicator(1 << 16);
+ * BulkConstructor<Address> addresses = BulkConstructor.of(Address.class, pool, "street", "postCode");
+ * Address address = addresses.newInstance(row[0], row[1]);
+ * }</pre>
+ *
+ * <p>字段名按构造参数名匹配，需要用 -parameters 编译实体类，否则参数名不可用
+ *
+ * @param <T> 实体类型
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class BulkConstructor<T> {
+
+    private static final MethodHandle DEDUPLICATE;
+
+    private static final MethodHandle FAIL;
+
+    static {
+        try {
+            DEDUPLICATE = MethodHandles.lookup().findVirtual(StringDeduplicator.class, "deduplicate",
+                    MethodType.methodType(String.class, String.class));
+            FAIL = MethodHandles.lookup().findStatic(BulkConstructor.class, "fail",
+                    MethodType.methodType(Object.class, Exception.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<T> type;
+
+    private final MethodHandle constructor;
+
+    private final int arity;
+
+    private BulkConstructor(Class<T> type, MethodHandle constructor, int arity) {
+        this.type = type;
+        this.constructor = constructor;
+        this.arity = arity;
+    }
+
+    /**
+     * 创建不去重的批量构造器
+     *
+     * @param type 实体类型
+     * @param <T>  实体类型
+     * @return 批量构造器
+     * @throws IllegalAccessException   构造器不可访问时抛出
+     * @throws IllegalArgumentException 类型没有可用的构造器时抛出
+     */
+    public static <T> BulkConstructor<T> of(Class<T> type) throws IllegalAccessException {
+        return of(type, null);
+    }
+
+    /**
+     * 创建批量构造器，指定的 String 字段在调用构造器之前去重
+     *
+     * @param type         实体类型
+     * @param deduplicator 去重池，为 null 时不去重
+     * @param fields       需要去重的字段名，与构造参数名对应
+     * @param <T>          实体类型
+     * @return 批量构造器
+     * @throws IllegalAccessException   构造器不可访问时抛出
+     * @throws IllegalArgumentException 类型没有可用的构造器，或字段名没有对应的 String 构造参数时抛出
+     * @throws IllegalStateException    指定了字段但实体类编译时没有保留参数名时抛出
+     */
+    public static <T> BulkConstructor<T> of(Class<T> type, StringDeduplicator deduplicator, String... fields)
+            throws IllegalAccessException {
+        Constructor<?> selected = select(type);
+        // 只有构造器自身抛出的异常被标记，参数转换和去重过滤器中的异常不经过这里
+        MethodHandle handle = MethodHandles.catchException(MethodHandles.lookup().unreflectConstructor(selected),
+                Exception.class, MethodHandles.dropArguments(FAIL.asType(MethodType.methodType(
+                        selected.getDeclaringClass(), Exception.class)), 1, selected.getParameterTypes()));
+        if (deduplicator != null && fields.length > 0) {
+            Set<String> remaining = new HashSet<>(Arrays.asList(fields));
+            Parameter[] parameters = selected.getParameters();
+            MethodHandle filter = DEDUPLICATE.bindTo(deduplicator);
+            for (int i = 0; i < parameters.length; i++) {
+                Parameter parameter = parameters[i];
+                if (!remaining.remove(parameter.getName())) {
+                    continue;
+                }
+                if (parameter.getType() != String.class) {
+                    throw new IllegalArgumentException(type.getName() + " 的构造参数 " + parameter.getName()
+                            + " 不是 String 类型");
+                }
+                handle = MethodHandles.filterArguments(handle, i, filter);
+            }
+            if (!remaining.isEmpty()) {
+                if (parameters.length > 0 && !parameters[0].isNamePresent()) {
+                    throw new IllegalStateException(type.getName() + " 编译时未保留构造参数名，请使用 -parameters 编译");
+                }
+                throw new IllegalArgumentException(type.getName() + " 的构造器中没有参数 " + remaining);
+            }
+        }
+        int arity = selected.getParameterCount();
+        return new BulkConstructor<>(type, handle.asSpreader(Object[].class, arity)
+                .asType(MethodType.methodType(Object.class, Object[].class)), arity);
+    }
+
+    /**
+     * 构造一个实体
+     *
+     * @param args 构造参数，个数和类型与选中的构造器一致
+     * @return 新实例
+     * @throws IllegalArgumentException  参数个数不一致时抛出
+     * @throws ClassCastException        参数类型与构造参数不一致时原样抛出
+     * @throws InvocationTargetException 构造器抛出异常时抛出，cause 为该异常；构造器抛出的 Error 原样抛出
+     */
+    public T newInstance(Object... args) throws InvocationTargetException {
+        if (args.length != arity) {
+            throw new IllegalArgumentException(type.getName() + " 的构造器需要 " + arity + " 个参数，实际为 " + args.length);
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(args));
+        } catch (ConstructorFailure e) {
+            throw new InvocationTargetException(e.getCause());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // 句柄只会抛出上面两类异常，构造器的受检异常已被 ConstructorFailure 包装
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按行批量构造实体
+     *
+     * @param rows 每行一组构造参数
+     * @return 与 rows 顺序一致的实例列表
+     * @throws InvocationTargetException 任意一行构造失败时抛出
+     */
+    public List<T> newInstances(List<Object[]> rows) throws InvocationTargetException {
+        List<T> instances = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            instances.add(newInstance(row));
+        }
+        return instances;
+    }
+
+    /**
+     * 构造器抛出异常时的处理器，把异常标记为来自构造器本身
+     */
+    private static Object fail(Exception e) {
+        throw new ConstructorFailure(e);
+    }
+
+    private static Constructor<?> select(Class<?> type) {
+        Constructor<?> selected = null;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.isAnnotationPresent(Autowired.class)) {
+                return constructor;
+            }
+            if (selected == null || constructor.getParameterCount() > selected.getParameterCount()) {
+                selected = constructor;
+            }
+        }
+        if (selected == null || Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException(type.getName() + " 没有可用的 public 构造器");
+        }
+        return selected;
+    }
+
+    /**
+     * 构造器自身抛出的异常，不记录堆栈，由 newInstance 转换为 InvocationTargetException
+     */
+    private static final class ConstructorFailure extends RuntimeException {
+
+        ConstructorFailure(Exception cause) {
+            super(null, cause, false, false);
+        }
+    }
+}
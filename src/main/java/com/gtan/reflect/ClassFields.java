@@ -0,0 +1,85 @@
+package com.gtan.reflect;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 字段元数据缓存：
+ * 按类缓存其自身及所有父类声明的实例字段（父类字段在前），
+ * 避免每次都调用 getDeclaredFields() 并逐层遍历继承链
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class ClassFields {
+
+    /**
+     * 可以按引用共享的不可变类型
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, Class.class);
+
+    /**
+     * 每个类只解析一次字段列表，ClassValue 随类卸载自动释放
+     */
+    private static final ClassValue<List<Field>> INSTANCE_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            Class<?> superclass = type.getSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                fields.addAll(INSTANCE_FIELDS.get(superclass));
+            }
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    private ClassFields() {
+    }
+
+    /**
+     * 获取类及其父类声明的全部实例字段，父类字段排在前面，字段均已 setAccessible(true)
+     *
+     * @param type 目标类
+     * @return 不可修改的字段列表
+     */
+    static List<Field> instanceFields(Class<?> type) {
+        return INSTANCE_FIELDS.get(type);
+    }
+
+    /**
+     * 判断类型的实例是否不可变，不可变对象在复制、比较时可以按引用处理
+     *
+     * @param type 目标类型
+     * @return 基本类型、包装类型、String、枚举等返回 true
+     */
+    static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || Enum.class.isAssignableFrom(type) || IMMUTABLE_TYPES.contains(type);
+    }
+
+    /**
+     * 判断类型是否属于 JDK 内部实现，这类对象的私有字段不允许反射访问
+     *
+     * @param type 目标类型
+     * @return 位于 java.* 或 javax.* 包中时返回 true
+     */
+    static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.");
+    }
+}
@@ -0,0 +1,699 @@
+package com.gtan.reflect;
+
+import sun.reflect.ReflectionFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * 基于反射的对象图深度复制工具：
+ * 1. 每个类只生成一次复制计划（CopyPlan），之后复用其中预先解析好的 MethodHandle
+ * 2. 基本类型和 String 等不可变字段直接浅复制，其余引用字段（如 Order.customer、User.message、
+ * User.comments）递归复制
+ * 3. 若静态分析表明对象图是一棵树（不存在共享引用和环），复制时不使用身份映射；
+ * 否则使用 IdentityHashMap 记录已复制对象，保证共享引用和环在副本中保持同样的结构
+ *
+ * <p>集合和 Map 复制为与源对象相同的具体类型：EnumSet、EnumMap 保留元素类型，TreeSet、PriorityQueue、
+ * TreeMap 等保留比较器；List.of、Collections.unmodifiableXxx 等不可修改的集合复制为同样不可修改的集合，
+ * Arrays.asList 复制为固定长度的列表。容量上限、访问顺序等其他构造参数不会保留，
+ * 无法确定如何创建同类型实例的集合（如 synchronizedList、Map 的 keySet 视图）抛出 IllegalStateException
+ *
+ * <p>JDK 中的其他类型无法反射访问私有字段：java.time、Optional、Locale 等值类型按引用共享，
+ * Date、BitSet 等公开 clone() 的类型调用 clone()，StringBuilder 和原子类型按当前值重新创建，
+ * 其余类型（如锁、线程）复制时抛出 IllegalStateException。
+ * 普通类优先使用无参构造器，没有无参构造器时与反序列化相同，不执行该类的任何构造器，直接分配实例后覆盖字段
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class DeepCopier {
+
+    /**
+     * 每个类的复制计划只构建一次
+     */
+    private static final ClassValue<CopyPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected CopyPlan computeValue(Class<?> type) {
+            return createPlan(type);
+        }
+    };
+
+    /**
+     * 可以按引用共享的 JDK 值类型，java.time 包中的类型另外按包名判断
+     */
+    private static final Set<Class<?>> JDK_VALUES = Set.of(
+            Optional.class, OptionalInt.class, OptionalLong.class, OptionalDouble.class,
+            Locale.class, Currency.class, Pattern.class, URI.class);
+
+    /**
+     * 按当前值重新创建的原子类型及其值类型
+     */
+    private static final Map<Class<?>, Class<?>> ATOMIC_VALUES = Map.of(
+            AtomicInteger.class, int.class, AtomicLong.class, long.class, AtomicBoolean.class, boolean.class);
+
+    private static final CopyPlan SHARED = new CopyPlan(true) {
+        @Override
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) {
+            return source;
+        }
+    };
+
+    private DeepCopier() {
+    }
+
+    /**
+     * 深度复制对象图
+     *
+     * @param source 源对象，可以为 null
+     * @param <T>    对象类型
+     * @return 与源对象结构相同、互不共享可变状态的副本
+     * @throws IllegalStateException 无法创建实例或访问字段时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T source) {
+        if (source == null) {
+            return null;
+        }
+        CopyPlan plan = PLANS.get(source.getClass());
+        try {
+            if (plan.treeShaped) {
+                try {
+                    return (T) plan.copy(source, null);
+                } catch (TreeViolation ignored) {
+                    // 运行时遇到了子类实例或可变元素，退回到带身份映射的复制
+                }
+            }
+            return (T) plan.copy(source, new IdentityHashMap<>());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("深度复制失败: " + source.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * 判断以该类为根的对象图是否一定是树形结构，即复制时无需身份映射
+     *
+     * @param type 根对象类型
+     * @return 字段类型中不存在环、也不存在可能互相引用的同类节点时返回 true
+     */
+    static boolean isTreeShaped(Class<?> type) {
+        return PLANS.get(type).treeShaped;
+    }
+
+    /**
+     * 复制单个引用值
+     *
+     * @param value        源值
+     * @param declaredType 字段声明类型，树形复制时用于校验运行时类型
+     * @param copies       身份映射，树形复制时为 null
+     * @return 副本
+     * @throws Throwable 复制失败时抛出
+     */
+    private static Object copyValue(Object value, Class<?> declaredType, IdentityHashMap<Object, Object> copies)
+            throws Throwable {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = value.getClass();
+        CopyPlan plan = PLANS.get(type);
+        if (plan == SHARED) {
+            return value;
+        }
+        if (copies == null) {
+            // 静态分析只针对声明类型，运行时出现子类时其字段可能引入共享引用
+            if (type != declaredType && !(plan instanceof CollectionPlan) && !(plan instanceof MapPlan)) {
+                throw TreeViolation.INSTANCE;
+            }
+            return plan.copy(value, null);
+        }
+        Object copy = copies.get(value);
+        return copy != null ? copy : plan.copy(value, copies);
+    }
+
+    /**
+     * 复制集合、Map 或数组中的元素，树形复制时元素必须是不可变对象
+     */
+    private static Object copyElement(Object element, IdentityHashMap<Object, Object> copies) throws Throwable {
+        if (copies == null) {
+            if (element != null && PLANS.get(element.getClass()) != SHARED) {
+                throw TreeViolation.INSTANCE;
+            }
+            return element;
+        }
+        return copyValue(element, null, copies);
+    }
+
+    private static CopyPlan createPlan(Class<?> type) {
+        if (ClassFields.isImmutable(type)) {
+            return SHARED;
+        }
+        boolean treeShaped = isTree(type);
+        if (type.isArray()) {
+            return new ArrayPlan(type, treeShaped);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return new CollectionPlan(type, treeShaped);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return new MapPlan(type, treeShaped);
+        }
+        if (ClassFields.isJdkType(type)) {
+            return isJdkValue(type) ? SHARED : new JdkPlan(type);
+        }
+        try {
+            return new ObjectPlan(type, treeShaped);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法为 " + type.getName() + " 生成复制计划", e);
+        }
+    }
+
+    private static boolean isTree(Class<?> root) {
+        List<Class<?>> nodes = new ArrayList<>();
+        if (!collectNodes(root, null, nodes)) {
+            return false;
+        }
+        // 任意两个节点类型存在赋值兼容关系时，它们可能指向同一个对象
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                if (nodes.get(i).isAssignableFrom(nodes.get(j)) || nodes.get(j).isAssignableFrom(nodes.get(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean collectNodes(Class<?> type, Type genericType, List<Class<?>> nodes) {
+        if (ClassFields.isImmutable(type)) {
+            return true;
+        }
+        if (nodes.contains(type)) {
+            return false;
+        }
+        if (type.isArray()) {
+            nodes.add(type);
+            return ClassFields.isImmutable(type.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            nodes.add(type);
+            return hasImmutableTypeArguments(genericType);
+        }
+        if (ClassFields.isJdkType(type)) {
+            if (type == Object.class) {
+                return false;
+            }
+            if (!isJdkValue(type)) {
+                nodes.add(type);
+            }
+            return true;
+        }
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return false;
+        }
+        nodes.add(type);
+        for (Field field : ClassFields.instanceFields(type)) {
+            if (!collectNodes(field.getType(), field.getGenericType(), nodes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasImmutableTypeArguments(Type genericType) {
+        if (!(genericType instanceof ParameterizedType parameterizedType)) {
+            return false;
+        }
+        for (Type argument : parameterizedType.getActualTypeArguments()) {
+            if (!(argument instanceof Class<?> argumentClass) || !ClassFields.isImmutable(argumentClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断 JDK 类型的实例是否可以按引用共享
+     */
+    private static boolean isJdkValue(Class<?> type) {
+        return type == Object.class || type.getPackageName().equals("java.time") || JDK_VALUES.contains(type);
+    }
+
+    /**
+     * 判断是否为 List.of、Collections.unmodifiableXxx、emptyXxx、singletonXxx 等返回的不可修改集合
+     */
+    private static boolean isUnmodifiable(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.util.ImmutableCollections$") || name.startsWith("java.util.Collections$Unmodifiable")
+                || name.startsWith("java.util.Collections$Empty") || name.startsWith("java.util.Collections$Singleton");
+    }
+
+    /**
+     * 带比较器的类型（TreeSet、PriorityQueue、TreeMap 等）：以源对象的 comparator() 创建同类型的空实例
+     *
+     * @return 类型为 (Object)Object 的句柄，类型没有公开的 comparator() 方法时返回 null
+     * @throws IllegalStateException 有 comparator() 但没有接受比较器的公开构造器时抛出
+     */
+    private static MethodHandle comparatorConstructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle comparator;
+        try {
+            comparator = lookup.findVirtual(type, "comparator", MethodType.methodType(Comparator.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+        MethodHandle constructor;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class, Comparator.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            try {
+                // PriorityBlockingQueue 只有 (int, Comparator) 构造器，使用其默认初始容量
+                constructor = MethodHandles.insertArguments(lookup.findConstructor(type,
+                        MethodType.methodType(void.class, int.class, Comparator.class)), 0, 11);
+            } catch (NoSuchMethodException | IllegalAccessException ex) {
+                throw new IllegalStateException(type.getName() + " 没有接受比较器的公开构造器，复制会丢失排序", ex);
+            }
+        }
+        return MethodHandles.filterArguments(constructor, 0, comparator)
+                .asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    /**
+     * 查找公共无参构造器，用于创建与源集合同类型的集合
+     */
+    private static MethodHandle publicNoArgConstructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个类的复制计划
+     */
+    private abstract static class CopyPlan {
+
+        /**
+         * 以该类为根的对象图是否一定是树形结构
+         */
+        final boolean treeShaped;
+
+        CopyPlan(boolean treeShaped) {
+            this.treeShaped = treeShaped;
+        }
+
+        /**
+         * 复制对象，身份映射不为 null 时需在复制字段前登记副本，以便处理环
+         */
+        abstract Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable;
+    }
+
+    /**
+     * 普通对象：浅复制字段使用 setter(dst, getter(src)) 组合的句柄，基本类型不会装箱
+     */
+    private static final class ObjectPlan extends CopyPlan {
+
+        private static final MethodType COPIER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private static final MethodHandle NEW_INSTANCE;
+
+        static {
+            try {
+                NEW_INSTANCE = MethodHandles.lookup().findVirtual(Constructor.class, "newInstance",
+                        MethodType.methodType(Object.class, Object[].class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final MethodHandle instantiator;
+
+        private final MethodHandle[] shallowCopiers;
+
+        private final MethodHandle[] deepGetters;
+
+        private final MethodHandle[] deepSetters;
+
+        private final Class<?>[] deepTypes;
+
+        ObjectPlan(Class<?> type, boolean treeShaped) throws IllegalAccessException {
+            super(treeShaped);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            this.instantiator = instantiator(lookup, type);
+            List<MethodHandle> shallow = new ArrayList<>();
+            List<Field> deep = new ArrayList<>();
+            for (Field field : ClassFields.instanceFields(type)) {
+                if (ClassFields.isImmutable(field.getType())) {
+                    MethodHandle copier = MethodHandles.filterArguments(
+                            lookup.unreflectSetter(field), 1, lookup.unreflectGetter(field));
+                    shallow.add(copier.asType(COPIER_TYPE));
+                } else {
+                    deep.add(field);
+                }
+            }
+            this.shallowCopiers = shallow.toArray(new MethodHandle[0]);
+            this.deepGetters = new MethodHandle[deep.size()];
+            this.deepSetters = new MethodHandle[deep.size()];
+            this.deepTypes = new Class<?>[deep.size()];
+            for (int i = 0; i < deep.size(); i++) {
+                Field field = deep.get(i);
+                this.deepGetters[i] = lookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                this.deepSetters[i] = lookup.unreflectSetter(field).asType(COPIER_TYPE);
+                this.deepTypes[i] = field.getType();
+            }
+        }
+
+        /**
+         * 优先使用无参构造器；没有时由 ReflectionFactory 的序列化构造器分配实例，只执行 Object 的构造器，
+         * 不会以伪造的参数触发校验或副作用
+         */
+        private static MethodHandle instantiator(MethodHandles.Lookup lookup, Class<?> type)
+                throws IllegalAccessException {
+            Constructor<?> constructor;
+            try {
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                try {
+                    constructor = ReflectionFactory.getReflectionFactory()
+                            .newConstructorForSerialization(type, Object.class.getConstructor());
+                } catch (NoSuchMethodException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                return MethodHandles.insertArguments(NEW_INSTANCE.bindTo(constructor), 0, (Object) new Object[0]);
+            }
+            return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        }
+
+        @Override
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable {
+            Object target = (Object) instantiator.invokeExact();
+            if (copies != null) {
+                copies.put(source, target);
+            }
+            for (MethodHandle copier : shallowCopiers) {
+                copier.invokeExact(target, source);
+            }
+            for (int i = 0; i < deepGetters.length; i++) {
+                Object value = (Object) deepGetters[i].invokeExact(source);
+                deepSetters[i].invokeExact(target, copyValue(value, deepTypes[i], copies));
+            }
+            return target;
+        }
+    }
+
+    /**
+     * 数组：元素不可变时整体 arraycopy，否则逐个复制
+     */
+    private static final class ArrayPlan extends CopyPlan {
+
+        private final Class<?> componentType;
+
+        private final boolean shallow;
+
+        ArrayPlan(Class<?> type, boolean treeShaped) {
+            super(treeShaped);
+            this.componentType = type.getComponentType();
+            this.shallow = ClassFields.isImmutable(componentType);
+        }
+
+        @Override
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable {
+            int length = Array.getLength(source);
+            Object target = Array.newInstance(componentType, length);
+            if (copies != null) {
+                copies.put(source, target);
+            }
+            if (shallow) {
+                System.arraycopy(source, 0, target, 0, length);
+            } else {
+                Object[] sourceArray = (Object[]) source;
+                Object[] targetArray = (Object[]) target;
+                for (int i = 0; i < length; i++) {
+                    targetArray[i] = copyElement(sourceArray[i], copies);
+                }
+            }
+            return target;
+        }
+    }
+
+    /**
+     * JDK 中的可变值类型：公开 clone() 的类型调用 clone()，StringBuilder、StringBuffer 和原子类型按当前值重新创建
+     */
+    private static final class JdkPlan extends CopyPlan {
+
+        private final MethodHandle copier;
+
+        JdkPlan(Class<?> type) {
+            super(false);
+            this.copier = copier(type).asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        private static MethodHandle copier(Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            try {
+                if (Cloneable.class.isAssignableFrom(type)) {
+                    return lookup.findVirtual(type, "clone", MethodType.methodType(Object.class));
+                }
+                if (type == StringBuilder.class || type == StringBuffer.class) {
+                    return lookup.findConstructor(type, MethodType.methodType(void.class, CharSequence.class));
+                }
+                Class<?> valueType = ATOMIC_VALUES.get(type);
+                if (valueType != null) {
+                    return MethodHandles.filterArguments(
+                            lookup.findConstructor(type, MethodType.methodType(void.class, valueType)), 0,
+                            lookup.findVirtual(type, "get", MethodType.methodType(valueType)));
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException("无法复制 JDK 类型 " + type.getName(), e);
+            }
+            throw new IllegalStateException("不支持复制 JDK 类型 " + type.getName() + "，其状态无法反射访问");
+        }
+
+        @Override
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable {
+            Object target = (Object) copier.invokeExact(source);
+            if (copies != null) {
+                copies.put(source, target);
+            }
+            return target;
+        }
+    }
+
+    /**
+     * 根据源对象创建空的目标集合或 Map
+     */
+    @FunctionalInterface
+    private interface Factory<T> {
+
+        T create(Object source) throws Throwable;
+    }
+
+    /**
+     * 集合：创建与源集合相同的具体类型，不可修改的集合以不可修改的视图包装新集合后返回
+     */
+    private static final class CollectionPlan extends CopyPlan {
+
+        private final Factory<Collection<Object>> factory;
+
+        /**
+         * 不可修改集合的视图包装，可修改集合为 null
+         */
+        private final UnaryOperator<Collection<Object>> view;
+
+        /**
+         * Arrays.asList 的结果长度固定，只能按下标写入
+         */
+        private final boolean fixedSize;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CollectionPlan(Class<?> type, boolean treeShaped) {
+            super(treeShaped);
+            this.fixedSize = type.getName().equals("java.util.Arrays$ArrayList");
+            UnaryOperator<Collection<Object>> view = null;
+            Factory<Collection<Object>> factory;
+            MethodHandle constructor;
+            if (EnumSet.class.isAssignableFrom(type)) {
+                factory = source -> {
+                    EnumSet copy = ((EnumSet) source).clone();
+                    copy.clear();
+                    return copy;
+                };
+            } else if (fixedSize) {
+                factory = source -> Arrays.asList(new Object[((Collection<?>) source).size()]);
+            } else if (isUnmodifiable(type)) {
+                if (NavigableSet.class.isAssignableFrom(type)) {
+                    factory = source -> new TreeSet<>(((SortedSet<Object>) source).comparator());
+                    view = target -> Collections.unmodifiableNavigableSet((NavigableSet<Object>) target);
+                } else if (SortedSet.class.isAssignableFrom(type)) {
+                    factory = source -> new TreeSet<>(((SortedSet<Object>) source).comparator());
+                    view = target -> Collections.unmodifiableSortedSet((SortedSet<Object>) target);
+                } else if (Set.class.isAssignableFrom(type)) {
+                    factory = source -> new LinkedHashSet<>();
+                    view = target -> Collections.unmodifiableSet((Set<Object>) target);
+                } else if (List.class.isAssignableFrom(type)) {
+                    factory = source -> new ArrayList<>(((Collection<?>) source).size());
+                    view = target -> Collections.unmodifiableList((List<Object>) target);
+                } else {
+                    factory = source -> new ArrayList<>(((Collection<?>) source).size());
+                    view = Collections::unmodifiableCollection;
+                }
+            } else if ((constructor = comparatorConstructor(type)) != null) {
+                MethodHandle sorted = constructor;
+                factory = source -> (Collection<Object>) (Object) sorted.invokeExact(source);
+            } else if ((constructor = publicNoArgConstructor(type)) != null) {
+                MethodHandle plain = constructor;
+                factory = source -> (Collection<Object>) (Object) plain.invokeExact();
+            } else {
+                throw new IllegalStateException("不支持复制集合类型 " + type.getName() + "，无法创建同类型的实例");
+            }
+            this.factory = factory;
+            this.view = view;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable {
+            Collection<Object> sourceCollection = (Collection<Object>) source;
+            Collection<Object> target = factory.create(source);
+            // 视图在元素写入后仍反映目标集合的内容，先登记视图以便元素中的环指向最终结果
+            Collection<Object> result = view == null ? target : view.apply(target);
+            if (copies != null) {
+                copies.put(source, result);
+            }
+            if (fixedSize) {
+                List<Object> list = (List<Object>) target;
+                int index = 0;
+                for (Object element : sourceCollection) {
+                    list.set(index++, copyElement(element, copies));
+                }
+            } else {
+                for (Object element : sourceCollection) {
+                    target.add(copyElement(element, copies));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Map：键和值都会复制，与集合相同地保留具体类型、比较器和不可修改性
+     */
+    private static final class MapPlan extends CopyPlan {
+
+        private final Factory<Map<Object, Object>> factory;
+
+        private final UnaryOperator<Map<Object, Object>> view;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        MapPlan(Class<?> type, boolean treeShaped) {
+            super(treeShaped);
+            UnaryOperator<Map<Object, Object>> view = null;
+            Factory<Map<Object, Object>> factory;
+            MethodHandle constructor;
+            if (EnumMap.class.isAssignableFrom(type)) {
+                factory = source -> {
+                    EnumMap copy = new EnumMap((EnumMap) source);
+                    copy.clear();
+                    return copy;
+                };
+            } else if (isUnmodifiable(type)) {
+                if (NavigableMap.class.isAssignableFrom(type)) {
+                    factory = source -> new TreeMap<>(((SortedMap<Object, Object>) source).comparator());
+                    view = target -> Collections.unmodifiableNavigableMap((NavigableMap<Object, Object>) target);
+                } else if (SortedMap.class.isAssignableFrom(type)) {
+                    factory = source -> new TreeMap<>(((SortedMap<Object, Object>) source).comparator());
+                    view = target -> Collections.unmodifiableSortedMap((SortedMap<Object, Object>) target);
+                } else {
+                    factory = source -> new LinkedHashMap<>();
+                    view = Collections::unmodifiableMap;
+                }
+            } else if ((constructor = comparatorConstructor(type)) != null) {
+                MethodHandle sorted = constructor;
+                factory = source -> (Map<Object, Object>) (Object) sorted.invokeExact(source);
+            } else if ((constructor = publicNoArgConstructor(type)) != null) {
+                MethodHandle plain = constructor;
+                factory = source -> (Map<Object, Object>) (Object) plain.invokeExact();
+            } else {
+                throw new IllegalStateException("不支持复制 Map 类型 " + type.getName() + "，无法创建同类型的实例");
+            }
+            this.factory = factory;
+            this.view = view;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object source, IdentityHashMap<Object, Object> copies) throws Throwable {
+            Map<Object, Object> sourceMap = (Map<Object, Object>) source;
+            Map<Object, Object> target = factory.create(source);
+            Map<Object, Object> result = view == null ? target : view.apply(target);
+            if (copies != null) {
+                copies.put(source, result);
+            }
+            for (Map.Entry<Object, Object> entry : sourceMap.entrySet()) {
+                target.put(copyElement(entry.getKey(), copies), copyElement(entry.getValue(), copies));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 树形复制的前提被打破时抛出，不记录堆栈以降低开销
+     */
+    private static final class TreeViolation extends RuntimeException {
+
+        static final TreeViolation INSTANCE = new TreeViolation();
+
+        private TreeViolation() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.gtan.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 字段级脏检查工具：
+ * 比较同一类型的两个快照（例如请求前后的 User），返回发生变化的字段位图，
+ * 只需持久化位图中标记的字段即可
+ * 1. 每个类只编译一次比较器，字段顺序与 {@link #fieldNames(Class)} 一致，父类字段在前
+ * 2. 基本类型字段通过类型精确的 MethodHandle 直接比较，不装箱
+ * 3. 引用字段先比较引用是否相同，再调用 equals
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class DirtyChecker {
+
+    private static final ClassValue<ClassComparator> COMPARATORS = new ClassValue<>() {
+        @Override
+        protected ClassComparator computeValue(Class<?> type) {
+            try {
+                return new ClassComparator(type);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法为 " + type.getName() + " 生成比较器", e);
+            }
+        }
+    };
+
+    private DirtyChecker() {
+    }
+
+    /**
+     * 比较两个快照，返回发生变化的字段位图
+     *
+     * @param before 修改前的快照
+     * @param after  修改后的快照
+     * @return 第 i 位为 1 表示 {@link #fieldNames(Class)} 中第 i 个字段发生了变化
+     * @throws IllegalArgumentException 两个快照类型不同时抛出
+     */
+    public static BitSet diff(Object before, Object after) {
+        Class<?> type = before.getClass();
+        if (after.getClass() != type) {
+            throw new IllegalArgumentException("快照类型不一致: " + type.getName() + " / " + after.getClass().getName());
+        }
+        return COMPARATORS.get(type).diff(before, after);
+    }
+
+    /**
+     * 获取位图中每一位对应的字段名，父类字段在前
+     *
+     * @param type 实体类型
+     * @return 不可修改的字段名列表
+     */
+    public static List<String> fieldNames(Class<?> type) {
+        return COMPARATORS.get(type).fieldNames;
+    }
+
+    /**
+     * 判断两个快照是否存在任意字段变化，遇到第一个变化字段即返回
+     *
+     * @param before 修改前的快照
+     * @param after  修改后的快照
+     * @return 存在变化或类型不同时返回 true
+     */
+    public static boolean isDirty(Object before, Object after) {
+        Class<?> type = before.getClass();
+        if (after.getClass() != type) {
+            return true;
+        }
+        return COMPARATORS.get(type).isDirty(before, after);
+    }
+
+    /**
+     * 单个字段的比较器
+     */
+    @FunctionalInterface
+    interface FieldComparator {
+
+        /**
+         * 判断字段在两个对象中是否不同
+         *
+         * @param a 对象 a
+         * @param b 对象 b
+         * @return 不同时返回 true
+         * @throws Throwable 读取字段失败时抛出
+         */
+        boolean changed(Object a, Object b) throws Throwable;
+    }
+
+    /**
+     * 根据字段类型生成比较器，基本类型使用精确签名的 invokeExact 读取
+     *
+     * @param field 已 setAccessible 的字段
+     * @return 字段比较器
+     * @throws IllegalAccessException 无法访问字段时抛出
+     */
+    static FieldComparator fieldComparator(Field field) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        MethodHandle getter = MethodHandles.lookup().unreflectGetter(field)
+                .asType(MethodType.methodType(type.isPrimitive() ? type : Object.class, Object.class));
+        if (type == int.class) {
+            return (a, b) -> (int) getter.invokeExact(a) != (int) getter.invokeExact(b);
+        } else if (type == long.class) {
+            return (a, b) -> (long) getter.invokeExact(a) != (long) getter.invokeExact(b);
+        } else if (type == boolean.class) {
+            return (a, b) -> (boolean) getter.invokeExact(a) != (boolean) getter.invokeExact(b);
+        } else if (type == byte.class) {
+            return (a, b) -> (byte) getter.invokeExact(a) != (byte) getter.invokeExact(b);
+        } else if (type == short.class) {
+            return (a, b) -> (short) getter.invokeExact(a) != (short) getter.invokeExact(b);
+        } else if (type == char.class) {
+            return (a, b) -> (char) getter.invokeExact(a) != (char) getter.invokeExact(b);
+        } else if (type == float.class) {
+            return (a, b) -> Float.compare((float) getter.invokeExact(a), (float) getter.invokeExact(b)) != 0;
+        } else if (type == double.class) {
+            return (a, b) -> Double.compare((double) getter.invokeExact(a), (double) getter.invokeExact(b)) != 0;
+        }
+        return (a, b) -> {
+            Object x = (Object) getter.invokeExact(a);
+            Object y = (Object) getter.invokeExact(b);
+            return x != y && (x == null || !x.equals(y));
+        };
+    }
+
+    /**
+     * 单个类的比较器集合
+     */
+    private static final class ClassComparator {
+
+        private final FieldComparator[] comparators;
+
+        private final List<String> fieldNames;
+
+        ClassComparator(Class<?> type) throws IllegalAccessException {
+            List<Field> fields = ClassFields.instanceFields(type);
+            List<String> names = new ArrayList<>(fields.size());
+            this.comparators = new FieldComparator[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                this.comparators[i] = fieldComparator(fields.get(i));
+                names.add(fields.get(i).getName());
+            }
+            this.fieldNames = Collections.unmodifiableList(names);
+        }
+
+        BitSet diff(Object before, Object after) {
+            BitSet changed = new BitSet(comparators.length);
+            try {
+                for (int i = 0; i < comparators.length; i++) {
+                    if (comparators[i].changed(before, after)) {
+                        changed.set(i);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("比较字段失败: " + before.getClass().getName(), e);
+            }
+            return changed;
+        }
+
+        boolean isDirty(Object before, Object after) {
+            try {
+                for (FieldComparator comparator : comparators) {
+                    if (comparator.changed(before, after)) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("比较字段失败: " + before.getClass().getName(), e);
+            }
+        }
+    }
+}
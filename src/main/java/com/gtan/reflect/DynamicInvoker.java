@@ -0,0 +1,478 @@
+package com.gtan.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按方法名动态调用的调用点（call site）：
+ * 脚本层按「方法名 + 参数列表」调用方法时，不再每次执行 getDeclaredMethod 和重载查找
+ * 1. 全局缓存按接收者类型保存在 ClassValue 中，以（方法名, 参数个数, 是否静态）为键保存候选方法（包括接口的默认方法），
+ * 并按实参类型签名缓存重载解析结果；缓存随接收者类型一起卸载，不固定其类加载器
+ * 2. 每个调用点内联缓存最先使用的若干个（接收者类型, 实参类型）组合，
+ * 单态或少量多态的调用点直接命中已解析的 MethodHandle，接近直接调用的速度
+ * 3. 内联缓存满后调用点成为超多态：保留已有条目，其余组合查询全局缓存，按实参直接匹配已解析的签名，不分配对象
+ * 4. public 方法通过可访问的 public 声明类型或接口调用（如 List.of(...) 的 size 通过 List），
+ * 只有非 public 的成员才 setAccessible，所在的包没有开放时抛出 IllegalAccessException
+ *
+ * <p>用法示例：
+ * <pre>{@code
+ * DynamicInvoker invoker = DynamicInvoker.of("myPrivateMethod", 2);
+ * invoker.invoke(user, "GangTan", "!");
+ * DynamicInvoker.of("myPrivateStaticMethod", 1).invokeStatic(User.class, "hello world");
+ * }</pre>
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class DynamicInvoker {
+
+    /**
+     * 内联缓存最多保存的条目数，超过后调用点视为超多态
+     */
+    private static final int MAX_POLYMORPHISM = 4;
+
+    /**
+     * 统一后的句柄类型：(接收者, 参数数组) -> 返回值，静态方法忽略接收者，void 方法返回 null
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * 全局解析缓存，所有调用点共享，按接收者类型保存
+     */
+    private static final ClassValue<Map<GroupKey, MethodGroup>> GROUPS = new ClassValue<>() {
+        @Override
+        protected Map<GroupKey, MethodGroup> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String name;
+
+    private final int arity;
+
+    private final GroupKey instanceKey;
+
+    private final GroupKey staticKey;
+
+    /**
+     * 内联缓存，写时复制；条目数达到 MAX_POLYMORPHISM 后不再增加
+     */
+    private volatile Entry[] entries = new Entry[0];
+
+    private DynamicInvoker(String name, int arity) {
+        this.name = name;
+        this.arity = arity;
+        this.instanceKey = new GroupKey(name, arity, false);
+        this.staticKey = new GroupKey(name, arity, true);
+    }
+
+    /**
+     * 创建调用点，应在调用方保存并复用，以便内联缓存生效
+     *
+     * @param name  方法名
+     * @param arity 参数个数
+     * @return 调用点
+     */
+    public static DynamicInvoker of(String name, int arity) {
+        return new DynamicInvoker(name, arity);
+    }
+
+    /**
+     * 一次性调用实例方法，只使用全局缓存
+     *
+     * @param target 接收者
+     * @param name   方法名
+     * @param args   实参
+     * @return 方法返回值，void 方法返回 null
+     * @throws NoSuchMethodException     找不到匹配的方法时抛出
+     * @throws IllegalAccessException    方法无法访问时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    public static Object call(Object target, String name, Object... args) throws NoSuchMethodException,
+            IllegalAccessException, InvocationTargetException {
+        return invokeHandle(group(target.getClass(), new GroupKey(name, args.length, false)).resolve(args), target,
+                args);
+    }
+
+    /**
+     * 调用实例方法
+     *
+     * @param target 接收者
+     * @param args   实参，个数必须等于调用点的参数个数
+     * @return 方法返回值，void 方法返回 null
+     * @throws NoSuchMethodException     找不到匹配的方法时抛出
+     * @throws IllegalAccessException    方法无法访问时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    public Object invoke(Object target, Object... args) throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        return invokeHandle(lookup(target.getClass(), false, args), target, args);
+    }
+
+    /**
+     * 调用静态方法
+     *
+     * @param clazz 声明静态方法的类
+     * @param args  实参，个数必须等于调用点的参数个数
+     * @return 方法返回值，void 方法返回 null
+     * @throws NoSuchMethodException     找不到匹配的方法时抛出
+     * @throws IllegalAccessException    方法无法访问时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    public Object invokeStatic(Class<?> clazz, Object... args) throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        return invokeHandle(lookup(clazz, true, args), null, args);
+    }
+
+    private static Object invokeHandle(MethodHandle handle, Object target, Object[] args)
+            throws InvocationTargetException {
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * 先查内联缓存，未命中时查全局缓存，内联缓存未满时回填
+     */
+    private MethodHandle lookup(Class<?> receiverClass, boolean isStatic, Object[] args)
+            throws NoSuchMethodException, IllegalAccessException {
+        if (args.length != arity) {
+            throw new IllegalArgumentException(name + " 需要 " + arity + " 个参数，实际为 " + args.length);
+        }
+        Entry[] cached = this.entries;
+        for (Entry entry : cached) {
+            if (entry.matches(receiverClass, isStatic, args)) {
+                return entry.handle;
+            }
+        }
+        MethodHandle handle = group(receiverClass, isStatic ? staticKey : instanceKey).resolve(args);
+        if (cached.length < MAX_POLYMORPHISM) {
+            Entry[] updated = Arrays.copyOf(cached, cached.length + 1);
+            updated[cached.length] = new Entry(receiverClass, isStatic, argumentClasses(args), handle);
+            // 并发回填时可能丢失条目，下次未命中会重新回填，不影响正确性
+            this.entries = updated;
+        }
+        return handle;
+    }
+
+    private static MethodGroup group(Class<?> receiverClass, GroupKey key) {
+        Map<GroupKey, MethodGroup> groups = GROUPS.get(receiverClass);
+        MethodGroup group = groups.get(key);
+        if (group == null) {
+            group = groups.computeIfAbsent(key, k -> new MethodGroup(receiverClass, k));
+        }
+        return group;
+    }
+
+    private static Class<?>[] argumentClasses(Object[] args) {
+        Class<?>[] classes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            classes[i] = args[i] == null ? null : args[i].getClass();
+        }
+        return classes;
+    }
+
+    /**
+     * 内联缓存条目，null 实参的类型记为 null
+     */
+    private static final class Entry {
+
+        private final Class<?> receiverClass;
+
+        private final boolean isStatic;
+
+        private final Class<?>[] argumentClasses;
+
+        private final MethodHandle handle;
+
+        Entry(Class<?> receiverClass, boolean isStatic, Class<?>[] argumentClasses, MethodHandle handle) {
+            this.receiverClass = receiverClass;
+            this.isStatic = isStatic;
+            this.argumentClasses = argumentClasses;
+            this.handle = handle;
+        }
+
+        boolean matches(Class<?> receiverClass, boolean isStatic, Object[] args) {
+            return this.receiverClass == receiverClass && this.isStatic == isStatic
+                    && matchesArguments(argumentClasses, args);
+        }
+    }
+
+    /**
+     * 实参的运行时类型与签名逐个相同，null 实参对应 null
+     */
+    private static boolean matchesArguments(Class<?>[] argumentClasses, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if ((arg == null ? null : arg.getClass()) != argumentClasses[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record GroupKey(String name, int arity, boolean isStatic) {
+    }
+
+    /**
+     * 已解析的实参类型签名
+     */
+    private record Resolution(Class<?>[] argumentClasses, MethodHandle handle) {
+    }
+
+    /**
+     * 同一（类, 方法名, 参数个数）下的全部重载，以及按实参类型签名缓存的解析结果
+     */
+    private static final class MethodGroup {
+
+        private final Class<?> receiverClass;
+
+        private final GroupKey key;
+
+        private final List<Method> candidates;
+
+        /**
+         * 已解析的签名，写时复制；按实参逐个比较类型，查找时不分配对象
+         */
+        private volatile Resolution[] resolved = new Resolution[0];
+
+        MethodGroup(Class<?> receiverClass, GroupKey key) {
+            this.receiverClass = receiverClass;
+            this.key = key;
+            this.candidates = collectCandidates(receiverClass, key);
+        }
+
+        /**
+         * 沿继承链收集候选方法，再收集各层实现的接口中的方法（包括默认方法）；
+         * 子类中重写的方法优先，父类和接口中同签名的方法被忽略
+         */
+        private static List<Method> collectCandidates(Class<?> receiverClass, GroupKey key) {
+            List<Method> candidates = new ArrayList<>();
+            Set<List<Class<?>>> seen = new HashSet<>();
+            Deque<Class<?>> interfaces = new ArrayDeque<>();
+            for (Class<?> clazz = receiverClass; clazz != null; clazz = clazz.getSuperclass()) {
+                addCandidates(clazz, key, seen, candidates);
+                if (key.isStatic()) {
+                    // 静态方法只在指定类中查找
+                    return candidates;
+                }
+                interfaces.addAll(Arrays.asList(clazz.getInterfaces()));
+            }
+            Set<Class<?>> visited = new HashSet<>();
+            while (!interfaces.isEmpty()) {
+                Class<?> face = interfaces.removeFirst();
+                if (visited.add(face)) {
+                    addCandidates(face, key, seen, candidates);
+                    interfaces.addAll(Arrays.asList(face.getInterfaces()));
+                }
+            }
+            return candidates;
+        }
+
+        private static void addCandidates(Class<?> clazz, GroupKey key, Set<List<Class<?>>> seen,
+                                          List<Method> candidates) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(key.name()) && method.getParameterCount() == key.arity()
+                        && Modifier.isStatic(method.getModifiers()) == key.isStatic() && !method.isBridge()
+                        && seen.add(List.of(method.getParameterTypes()))) {
+                    candidates.add(method);
+                }
+            }
+        }
+
+        MethodHandle resolve(Object[] args) throws NoSuchMethodException, IllegalAccessException {
+            for (Resolution resolution : resolved) {
+                if (matchesArguments(resolution.argumentClasses(), args)) {
+                    return resolution.handle();
+                }
+            }
+            Class<?>[] argumentClasses = argumentClasses(args);
+            MethodHandle handle = toHandle(receiverClass, select(argumentClasses));
+            if (visibleFrom(receiverClass.getClassLoader(), argumentClasses)) {
+                synchronized (this) {
+                    Resolution[] current = resolved;
+                    for (Resolution resolution : current) {
+                        if (Arrays.equals(resolution.argumentClasses(), argumentClasses)) {
+                            return resolution.handle();
+                        }
+                    }
+                    Resolution[] updated = Arrays.copyOf(current, current.length + 1);
+                    updated[current.length] = new Resolution(argumentClasses, handle);
+                    resolved = updated;
+                }
+            }
+            return handle;
+        }
+
+        /**
+         * 实参类型都由接收者的类加载器或其祖先加载时才缓存签名，
+         * 否则 ClassValue 中的缓存会让这些类的加载器随接收者类型一直存活
+         */
+        private static boolean visibleFrom(ClassLoader loader, Class<?>[] argumentClasses) {
+            for (Class<?> argumentClass : argumentClasses) {
+                if (argumentClass == null) {
+                    continue;
+                }
+                ClassLoader target = argumentClass.getClassLoader();
+                ClassLoader current = loader;
+                while (current != target) {
+                    if (current == null) {
+                        return false;
+                    }
+                    current = current.getParent();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 重载解析：在可用的候选方法中选择最具体的一个
+         */
+        private Method select(Class<?>[] argumentClasses) throws NoSuchMethodException {
+            List<Method> applicable = new ArrayList<>();
+            for (Method candidate : candidates) {
+                if (isApplicable(candidate.getParameterTypes(), argumentClasses)) {
+                    applicable.add(candidate);
+                }
+            }
+            Method best = null;
+            for (Method method : applicable) {
+                boolean mostSpecific = true;
+                for (Method other : applicable) {
+                    if (other != method && !isMoreSpecific(method, other)) {
+                        mostSpecific = false;
+                        break;
+                    }
+                }
+                if (mostSpecific) {
+                    best = method;
+                    break;
+                }
+            }
+            if (best == null) {
+                String description = receiverClass.getName() + "." + key.name() + Arrays.toString(argumentClasses);
+                if (applicable.isEmpty()) {
+                    throw new NoSuchMethodException(description);
+                }
+                throw new IllegalArgumentException("重载方法调用不明确: " + description);
+            }
+            return best;
+        }
+
+        private static boolean isApplicable(Class<?>[] parameterTypes, Class<?>[] argumentClasses) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> parameterType = parameterTypes[i];
+                Class<?> argumentClass = argumentClasses[i];
+                if (argumentClass == null) {
+                    if (parameterType.isPrimitive()) {
+                        return false;
+                    }
+                } else if (parameterType.isPrimitive()) {
+                    if (MethodType.methodType(parameterType).wrap().returnType() != argumentClass) {
+                        return false;
+                    }
+                } else if (!parameterType.isAssignableFrom(argumentClass)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isMoreSpecific(Method method, Method other) {
+            Class<?>[] types = method.getParameterTypes();
+            Class<?>[] otherTypes = other.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                if (!otherTypes[i].isAssignableFrom(types[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 将方法转换为统一签名的句柄：展开参数数组，必要时拆箱，静态方法丢弃接收者
+         */
+        private static MethodHandle toHandle(Class<?> receiverClass, Method method) throws IllegalAccessException {
+            MethodHandle handle = unreflect(receiverClass, method);
+            int parameterCount = method.getParameterCount();
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle.asSpreader(Object[].class, parameterCount), 0, Object.class);
+            } else {
+                handle = handle.asSpreader(Object[].class, parameterCount);
+            }
+            return handle.asType(INVOKER_TYPE);
+        }
+
+        /**
+         * public 方法优先通过可访问的 public 类型中的同签名声明调用，虚调用仍分派到接收者的实现；
+         * 其余成员强制访问，所在的包没有对调用方开放时抛出 IllegalAccessException
+         */
+        private static MethodHandle unreflect(Class<?> receiverClass, Method method) throws IllegalAccessException {
+            if (Modifier.isPublic(method.getModifiers())) {
+                Method declaration = Modifier.isStatic(method.getModifiers())
+                        ? (accessible(method.getDeclaringClass()) ? method : null)
+                        : publicDeclaration(receiverClass, method);
+                if (declaration != null) {
+                    return MethodHandles.publicLookup().unreflect(declaration);
+                }
+            }
+            if (!method.trySetAccessible()) {
+                throw new IllegalAccessException("无法访问 " + method + "：所在的包没有对调用方开放");
+            }
+            return MethodHandles.lookup().unreflect(method);
+        }
+
+        /**
+         * 在接收者类型的父类和接口中查找声明了同签名 public 方法的可访问类型
+         */
+        private static Method publicDeclaration(Class<?> receiverClass, Method method) {
+            if (accessible(method.getDeclaringClass())) {
+                return method;
+            }
+            Deque<Class<?>> types = new ArrayDeque<>();
+            types.add(receiverClass);
+            Set<Class<?>> visited = new HashSet<>();
+            while (!types.isEmpty()) {
+                Class<?> type = types.removeFirst();
+                if (!visited.add(type)) {
+                    continue;
+                }
+                if (accessible(type)) {
+                    try {
+                        Method declared = type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                        if (Modifier.isPublic(declared.getModifiers()) && !Modifier.isStatic(declared.getModifiers())) {
+                            return declared;
+                        }
+                    } catch (NoSuchMethodException ignored) {
+                        // 该类型没有声明此方法，继续查找
+                    }
+                }
+                if (type.getSuperclass() != null) {
+                    types.add(type.getSuperclass());
+                }
+                types.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            return null;
+        }
+
+        private static boolean accessible(Class<?> type) {
+            return Modifier.isPublic(type.getModifiers()) && type.getModule().isExported(type.getPackageName());
+        }
+    }
+}
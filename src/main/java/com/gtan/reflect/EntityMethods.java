@@ -0,0 +1,417 @@
+package com.gtan.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 根据字段元数据生成实体的 toString、equals 和 hashCode：
+ * 字段取自 {@link ClassFields}，包含父类（如 Person）的字段，父类字段在前，静态字段不参与
+ * 1. 每个类只编译一次，每个字段一个类型精确的 MethodHandle 读取器，调用时不再反射，基本类型字段不装箱
+ * 2. toString 追加到调用方提供的 StringBuilder，字段名前缀预先拼好，可以复用同一个缓冲区输出多行日志而不产生中间字符串；
+ * 格式为 User{name='GangTan', age=18, ...}，String 字段加单引号。其余引用字段按值的运行时类型输出：
+ * 枚举输出 name()，数组和 JDK 类型调用其 toString，其他对象递归按同样的格式输出，
+ * 如 Order{customer=Customer{name='GangTan', ...}, ...}；对象引用了正在输出的外层对象时输出 Type{...}，不会无限递归
+ * 3. equals 要求两个对象类型完全相同，逐字段比较，基本类型规则与 {@link DirtyChecker} 相同（浮点数按 Float/Double.compare）；
+ * 引用字段与 toString 相同地按运行时类型处理：实体递归逐字段比较，如 Order 与其深度复制的副本相等，
+ * 枚举、数组和 JDK 类型调用值自身的 equals（数组即按引用比较）；比较到正在比较的同一对对象时视为相等
+ * 4. hashCode 按字段顺序 31 * h + 字段哈希 累积，与 {@link java.util.Arrays#hashCode(Object[])} 的组合方式一致，
+ * 实体字段同样递归计算，遇到正在计算的对象时记为 0，与 equals 保持一致
+ *
+ * <p>发现循环引用所需的访问路径随调用逐层向下传递，不使用 ThreadLocal；只有含嵌套引用字段的对象才会记录。
+ * 实体覆盖的 equals/hashCode 不会被调用，集合等 JDK 类型中的元素仍按元素自身的 equals 比较。
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class EntityMethods {
+
+    private static final ClassValue<ClassMethods> METHODS = new ClassValue<>() {
+        @Override
+        protected ClassMethods computeValue(Class<?> type) {
+            try {
+                return new ClassMethods(type);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法为 " + type.getName() + " 生成 toString/equals/hashCode", e);
+            }
+        }
+    };
+
+    private EntityMethods() {
+    }
+
+    /**
+     * 将对象的字段追加到缓冲区
+     *
+     * @param obj 对象，为 null 时追加 "null"
+     * @param out 调用方提供的缓冲区
+     * @return out，便于链式调用
+     */
+    public static StringBuilder appendTo(Object obj, StringBuilder out) {
+        if (obj == null) {
+            return out.append("null");
+        }
+        METHODS.get(obj.getClass()).appendTo(obj, out, null);
+        return out;
+    }
+
+    /**
+     * @param obj 对象
+     * @return 与 {@link #appendTo(Object, StringBuilder)} 相同格式的字符串
+     */
+    public static String toString(Object obj) {
+        return appendTo(obj, new StringBuilder(64)).toString();
+    }
+
+    /**
+     * 逐字段比较两个对象
+     *
+     * @param a 对象 a
+     * @param b 对象 b
+     * @return 同一引用，或类型完全相同且所有字段相等时返回 true
+     */
+    public static boolean equals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a.getClass() != b.getClass()) {
+            return false;
+        }
+        return METHODS.get(a.getClass()).equals(a, b, null);
+    }
+
+    /**
+     * @param obj 对象
+     * @return 按字段计算的哈希值，null 为 0
+     */
+    public static int hashCode(Object obj) {
+        return obj == null ? 0 : METHODS.get(obj.getClass()).hashCode(obj, null);
+    }
+
+    /**
+     * 正在输出、比较或计算哈希的对象链，由外层调用创建并传给内层，用于发现循环引用
+     *
+     * @param first  正在处理的对象
+     * @param second equals 中与之比较的对象，其余情况为 null
+     * @param outer  外层路径，最外层为 null
+     */
+    private record Path(Object first, Object second, Path outer) {
+
+        static boolean contains(Path path, Object first, Object second) {
+            for (Path visiting = path; visiting != null; visiting = visiting.outer) {
+                if (visiting.first == first && visiting.second == second) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 单个字段的输出
+     */
+    @FunctionalInterface
+    private interface FieldAppender {
+
+        /**
+         * 追加字段值
+         *
+         * @param obj  对象
+         * @param out  缓冲区
+         * @param path 包含 obj 的访问路径
+         * @throws Throwable 读取字段失败时抛出
+         */
+        void append(Object obj, StringBuilder out, Path path) throws Throwable;
+    }
+
+    /**
+     * 单个字段的比较
+     */
+    @FunctionalInterface
+    private interface FieldEquality {
+
+        /**
+         * @param a    对象 a
+         * @param b    对象 b
+         * @param path 包含 a、b 的访问路径
+         * @return 字段值相等时返回 true
+         * @throws Throwable 读取字段失败时抛出
+         */
+        boolean equal(Object a, Object b, Path path) throws Throwable;
+    }
+
+    /**
+     * 单个字段的哈希
+     */
+    @FunctionalInterface
+    private interface FieldHasher {
+
+        /**
+         * @param obj  对象
+         * @param path 包含 obj 的访问路径
+         * @return 字段值的哈希
+         * @throws Throwable 读取字段失败时抛出
+         */
+        int hash(Object obj, Path path) throws Throwable;
+    }
+
+    /**
+     * 根据字段类型生成输出，基本类型使用精确签名的 invokeExact 读取，调用 StringBuilder 对应的重载
+     */
+    private static FieldAppender appender(Field field, MethodHandle getter) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return (obj, out, path) -> out.append((int) getter.invokeExact(obj));
+        } else if (type == long.class) {
+            return (obj, out, path) -> out.append((long) getter.invokeExact(obj));
+        } else if (type == boolean.class) {
+            return (obj, out, path) -> out.append((boolean) getter.invokeExact(obj));
+        } else if (type == byte.class) {
+            return (obj, out, path) -> out.append((byte) getter.invokeExact(obj));
+        } else if (type == short.class) {
+            return (obj, out, path) -> out.append((short) getter.invokeExact(obj));
+        } else if (type == char.class) {
+            return (obj, out, path) -> out.append((char) getter.invokeExact(obj));
+        } else if (type == float.class) {
+            return (obj, out, path) -> out.append((float) getter.invokeExact(obj));
+        } else if (type == double.class) {
+            return (obj, out, path) -> out.append((double) getter.invokeExact(obj));
+        } else if (type == String.class) {
+            return (obj, out, path) -> {
+                Object value = (Object) getter.invokeExact(obj);
+                if (value == null) {
+                    out.append("null");
+                } else {
+                    out.append('\'').append((String) value).append('\'');
+                }
+            };
+        }
+        if (!nested(type)) {
+            return (obj, out, path) -> out.append((Object) getter.invokeExact(obj));
+        }
+        return (obj, out, path) -> appendValue((Object) getter.invokeExact(obj), out, path);
+    }
+
+    /**
+     * 字段值可能需要递归输出：声明类型不是基本类型、String 或其他不可继承的 JDK 类型（如 Integer）
+     */
+    private static boolean nested(Class<?> type) {
+        return !type.isPrimitive() && !(jdk(type) && Modifier.isFinal(type.getModifiers()));
+    }
+
+    private static boolean jdk(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        return loader == null || loader == ClassLoader.getPlatformClassLoader();
+    }
+
+    /**
+     * 按运行时类型输出引用字段的值
+     */
+    private static void appendValue(Object value, StringBuilder out, Path path) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Enum<?> constant) {
+            out.append(constant.name());
+        } else if (!entity(value.getClass())) {
+            out.append(value);
+        } else {
+            METHODS.get(value.getClass()).appendTo(value, out, path);
+        }
+    }
+
+    /**
+     * 运行时类型需要逐字段处理：不是枚举、数组或 JDK 类型
+     */
+    private static boolean entity(Class<?> type) {
+        return !type.isArray() && !jdk(type) && !Enum.class.isAssignableFrom(type);
+    }
+
+    /**
+     * 根据字段类型生成比较，可能嵌套实体的引用字段按运行时类型递归比较，其余沿用 {@link DirtyChecker} 的规则
+     */
+    private static FieldEquality equality(Field field, MethodHandle getter) throws IllegalAccessException {
+        if (!nested(field.getType())) {
+            DirtyChecker.FieldComparator comparator = DirtyChecker.fieldComparator(field);
+            return (a, b, path) -> !comparator.changed(a, b);
+        }
+        return (a, b, path) -> valuesEqual((Object) getter.invokeExact(a), (Object) getter.invokeExact(b), path);
+    }
+
+    private static boolean valuesEqual(Object x, Object y, Path path) {
+        if (x == y) {
+            return true;
+        }
+        if (x == null || y == null) {
+            return false;
+        }
+        Class<?> type = x.getClass();
+        if (!entity(type)) {
+            return x.equals(y);
+        }
+        return type == y.getClass() && METHODS.get(type).equals(x, y, path);
+    }
+
+    private static int valueHash(Object value, Path path) {
+        if (value == null) {
+            return 0;
+        }
+        Class<?> type = value.getClass();
+        return entity(type) ? METHODS.get(type).hashCode(value, path) : value.hashCode();
+    }
+
+    /**
+     * 根据字段类型生成哈希，基本类型使用包装类的静态 hashCode，不装箱
+     */
+    private static FieldHasher hasher(Field field, MethodHandle getter) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return (obj, path) -> Integer.hashCode((int) getter.invokeExact(obj));
+        } else if (type == long.class) {
+            return (obj, path) -> Long.hashCode((long) getter.invokeExact(obj));
+        } else if (type == boolean.class) {
+            return (obj, path) -> Boolean.hashCode((boolean) getter.invokeExact(obj));
+        } else if (type == byte.class) {
+            return (obj, path) -> Byte.hashCode((byte) getter.invokeExact(obj));
+        } else if (type == short.class) {
+            return (obj, path) -> Short.hashCode((short) getter.invokeExact(obj));
+        } else if (type == char.class) {
+            return (obj, path) -> Character.hashCode((char) getter.invokeExact(obj));
+        } else if (type == float.class) {
+            return (obj, path) -> Float.hashCode((float) getter.invokeExact(obj));
+        } else if (type == double.class) {
+            return (obj, path) -> Double.hashCode((double) getter.invokeExact(obj));
+        }
+        if (!nested(type)) {
+            return (obj, path) -> Objects.hashCode((Object) getter.invokeExact(obj));
+        }
+        return (obj, path) -> valueHash((Object) getter.invokeExact(obj), path);
+    }
+
+    /**
+     * 单个类的 toString、equals 和 hashCode
+     */
+    private static final class ClassMethods {
+
+        /**
+         * 第 i 个字段之前输出的内容，如 "User{name=" 和 ", age="
+         */
+        private final String[] prefixes;
+
+        private final FieldAppender[] appenders;
+
+        private final FieldEquality[] equalities;
+
+        private final FieldHasher[] hashers;
+
+        /**
+         * 没有实例字段时输出的内容，如 "Empty{}"
+         */
+        private final String empty;
+
+        /**
+         * 发现循环引用时输出的内容，如 "Node{...}"
+         */
+        private final String cycle;
+
+        /**
+         * 是否有需要递归处理的字段；没有时对象不会出现在循环中，处理时不记录路径
+         */
+        private final boolean nested;
+
+        ClassMethods(Class<?> type) throws IllegalAccessException {
+            List<Field> fields = ClassFields.instanceFields(type);
+            int size = fields.size();
+            this.prefixes = new String[size];
+            this.appenders = new FieldAppender[size];
+            this.equalities = new FieldEquality[size];
+            this.hashers = new FieldHasher[size];
+            this.empty = type.getSimpleName() + "{}";
+            this.cycle = type.getSimpleName() + "{...}";
+            boolean nested = false;
+            for (int i = 0; i < size; i++) {
+                Field field = fields.get(i);
+                Class<?> fieldType = field.getType();
+                MethodHandle getter = MethodHandles.lookup().unreflectGetter(field)
+                        .asType(MethodType.methodType(fieldType.isPrimitive() ? fieldType : Object.class,
+                                Object.class));
+                this.prefixes[i] = (i == 0 ? type.getSimpleName() + "{" : ", ") + field.getName() + "=";
+                this.appenders[i] = appender(field, getter);
+                this.equalities[i] = equality(field, getter);
+                this.hashers[i] = hasher(field, getter);
+                nested |= nested(fieldType);
+            }
+            this.nested = nested;
+        }
+
+        void appendTo(Object obj, StringBuilder out, Path path) {
+            if (appenders.length == 0) {
+                out.append(empty);
+                return;
+            }
+            if (nested) {
+                if (Path.contains(path, obj, null)) {
+                    out.append(cycle);
+                    return;
+                }
+                path = new Path(obj, null, path);
+            }
+            try {
+                for (int i = 0; i < appenders.length; i++) {
+                    out.append(prefixes[i]);
+                    appenders[i].append(obj, out, path);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取字段失败: " + obj.getClass().getName(), e);
+            }
+            out.append('}');
+        }
+
+        boolean equals(Object a, Object b, Path path) {
+            if (nested) {
+                if (Path.contains(path, a, b)) {
+                    return true;
+                }
+                path = new Path(a, b, path);
+            }
+            try {
+                for (FieldEquality equality : equalities) {
+                    if (!equality.equal(a, b, path)) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("比较字段失败: " + a.getClass().getName(), e);
+            }
+        }
+
+        int hashCode(Object obj, Path path) {
+            if (nested) {
+                if (Path.contains(path, obj, null)) {
+                    return 0;
+                }
+                path = new Path(obj, null, path);
+            }
+            try {
+                int hash = 1;
+                for (FieldHasher hasher : hashers) {
+                    hash = 31 * hash + hasher.hash(obj, path);
+                }
+                return hash;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取字段失败: " + obj.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.gtan.reflect;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界并发字符串去重池：批量构造实体时，把重复出现的字符串值替换为池中已有的同值实例，
+ * 使大量重复的 Address.street、Customer.name 等字段共享同一个 String，原实例可以随即被回收
+ * 1. 池按哈希分为若干段，每段是一个 4 路组相联表：一个值只可能位于同一组的 4 个槽位之一，查找最多比较 4 次，不加锁
+ * 2. 组内没有空槽时随机覆盖一个旧值，池的大小始终有界；被覆盖的值下次出现时重新入池，代价只是少去重一次
+ * 3. 槽位以 acquire/release 语义读写，String 是不可变对象，并发覆盖不会读到不完整的实例
+ * 4. 超过 maxLength 的字符串不入池，长文本很少重复，比较它们的开销大于收益
+ * 5. 统计查找次数、命中次数和命中时节省的堆内存字节数（按紧凑字符串的实际布局估算）
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class StringDeduplicator {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(String[].class);
+
+    /**
+     * String 对象本身（对象头、value 引用、hash、coder 等字段）与 byte[] 数组头占用的字节数，按开启压缩指针的 64 位 JVM 估算
+     */
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    private static final int MAX_STRIPES = 64;
+
+    private static final int WAYS = 4;
+
+    private final String[][] stripes;
+
+    private final int stripeShift;
+
+    private final int setMask;
+
+    private final int maxLength;
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * 创建去重池，只对长度不超过 64 的字符串去重
+     *
+     * @param capacity 最多保存的字符串个数，向上取整为 2 的幂且不小于 4
+     * @throws IllegalArgumentException capacity 小于 1 时抛出
+     */
+    public StringDeduplicator(int capacity) {
+        this(capacity, 64);
+    }
+
+    /**
+     * 创建去重池
+     *
+     * @param capacity  最多保存的字符串个数，向上取整为 2 的幂且不小于 4
+     * @param maxLength 参与去重的最大字符串长度
+     * @throws IllegalArgumentException capacity 小于 1 或 maxLength 为负数时抛出
+     */
+    public StringDeduplicator(int capacity, int maxLength) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity 必须在 1 到 2^30 之间: " + capacity);
+        }
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("maxLength 不能为负数: " + maxLength);
+        }
+        int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        int stripeCount = Math.min(MAX_STRIPES, Math.max(1, size / 64));
+        int stripeSize = size / stripeCount;
+        this.stripes = new String[stripeCount][stripeSize];
+        // 段号取哈希的高位，段内的组取低位，两者互不相关
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+        this.setMask = stripeSize - WAYS;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * 返回与 value 相等的池中实例；池中没有时把 value 放入池中并原样返回
+     *
+     * @param value 字符串，可以为 null
+     * @return 与 value 相等的字符串
+     */
+    public String deduplicate(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        lookups.increment();
+        // 前缀相同的字符串哈希值高位几乎一样，先乘以黄金分割常数把差异扩散到高位
+        int hash = value.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        String[] stripe = stripes[stripeShift == 32 ? 0 : hash >>> stripeShift];
+        int set = hash & setMask;
+        int empty = -1;
+        for (int slot = set; slot < set + WAYS; slot++) {
+            String pooled = (String) SLOTS.getAcquire(stripe, slot);
+            if (pooled == null) {
+                if (empty < 0) {
+                    empty = slot;
+                }
+            } else if (pooled.equals(value)) {
+                hits.increment();
+                if (pooled != value) {
+                    bytesSaved.add(sizeOf(value));
+                }
+                return pooled;
+            }
+        }
+        SLOTS.setRelease(stripe, empty >= 0 ? empty : set + ThreadLocalRandom.current().nextInt(WAYS), value);
+        return value;
+    }
+
+    /**
+     * 清空池中的字符串，统计数据保留
+     */
+    public void clear() {
+        for (String[] stripe : stripes) {
+            for (int i = 0; i < stripe.length; i++) {
+                SLOTS.setRelease(stripe, i, null);
+            }
+        }
+    }
+
+    /**
+     * @return 统计快照
+     */
+    public Stats stats() {
+        int size = 0;
+        for (String[] stripe : stripes) {
+            for (int i = 0; i < stripe.length; i++) {
+                if (SLOTS.getAcquire(stripe, i) != null) {
+                    size++;
+                }
+            }
+        }
+        return new Stats(lookups.sum(), hits.sum(), bytesSaved.sum(), size);
+    }
+
+    /**
+     * 估算一个字符串实例占用的堆内存：只含 Latin-1 字符时每个字符 1 字节，否则 2 字节，数组按 8 字节对齐
+     */
+    private static long sizeOf(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_OVERHEAD + ((long) value.length() * bytesPerChar + 7 & ~7L);
+    }
+
+    /**
+     * 去重统计
+     *
+     * @param lookups    参与去重的字符串个数（不含 null 和超长字符串）
+     * @param hits       在池中找到同值实例的次数
+     * @param bytesSaved 命中且替换为池中实例时，被替换实例占用的字节数之和
+     * @param size       池中当前保存的字符串个数
+     */
+    public record Stats(long lookups, long hits, long bytesSaved, int size) {
+
+        /**
+         * @return 命中率，没有查找时为 0
+         */
+        public double hitRate() {
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.gtan.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界并发缓存：
+ * 1. 按键的哈希分段，每段是一个按访问顺序排列的 LinkedHashMap，超过容量时淘汰最久未访问的条目（分段内的 LRU）
+ * 2. 值保存为 CompletableFuture，同一个键的并发未命中只会调用一次加载函数，其余请求者共享同一个 Future；
+ * 加载函数在段锁之外执行，耗时的加载不会阻塞同一段中其他键的读取
+ * 3. 加载失败的条目立即移除，下次请求重新加载
+ * 4. 命中、未命中、淘汰和过期次数使用 LongAdder 统计
+ * 5. 可选的 TTL：条目加载完成后开始计时，过期的条目在下次访问或淘汰时移除
+ * 6. 淘汰策略为 LFU 时，从每段最久未访问的若干个条目中淘汰访问次数最少的一个（近似 LFU），
+ * 访问次数定期减半，过去的热点会逐渐冷却
+ *
+ * @param <K> 键类型，需要正确实现 equals 和 hashCode
+ * @param <V> 值类型
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * 每段至少容纳的条目数；容量较小时只使用一段，保证严格的 LRU 顺序
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private static final int MAX_SEGMENTS = 64;
+
+    /**
+     * LFU 淘汰时比较的候选条目数
+     */
+    private static final int LFU_SAMPLE = 8;
+
+    private final Segment<K, V>[] segments;
+
+    private final int maxSize;
+
+    /**
+     * 条目加载完成后的存活时间（纳秒），0 表示永不过期
+     */
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * 创建按 LRU 淘汰、永不过期的缓存
+     *
+     * @param maxSize 最多缓存的条目数
+     * @throws IllegalArgumentException maxSize 小于 1 时抛出
+     */
+    public BoundedCache(int maxSize) {
+        this(maxSize, Duration.ZERO, Policy.LRU);
+    }
+
+    /**
+     * 创建缓存
+     *
+     * @param maxSize 最多缓存的条目数
+     * @param ttl     条目加载完成后的存活时间，为 0 时永不过期
+     * @param policy  超过容量时的淘汰策略
+     * @throws IllegalArgumentException maxSize 小于 1 或 ttl 为负数时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxSize, Duration ttl, Policy policy) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize 必须大于 0: " + maxSize);
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl 不能为负数: " + ttl);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_CAPACITY)));
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            // 前 maxSize % count 段多容纳一个条目，各段容量之和恰好为 maxSize
+            segments[i] = new Segment<>(maxSize / count + (i < maxSize % count ? 1 : 0), policy, this);
+        }
+    }
+
+    /**
+     * 获取缓存的值，不存在时调用加载函数；并发请求同一个键时只加载一次
+     *
+     * @param key    键
+     * @param loader 加载函数，返回的 CompletionStage 以异常完成时不缓存
+     * @return 完成时得到值的 Future
+     */
+    public CompletableFuture<V> get(K key, Function<? super K, ? extends CompletionStage<? extends V>> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        CompletableFuture<V> created;
+        Node<V> node;
+        synchronized (segment) {
+            node = segment.get(key);
+            if (node != null) {
+                if (!node.expired(this.ttlNanos == 0 ? 0 : System.nanoTime())) {
+                    hits.increment();
+                    segment.recordAccess(node);
+                    return node.future;
+                }
+                segment.remove(key);
+                expirations.increment();
+            }
+            created = new CompletableFuture<>();
+            node = new Node<>(created);
+            segment.put(key, node);
+        }
+        misses.increment();
+        Node<V> loading = node;
+        CompletionStage<? extends V> loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (Throwable e) {
+            // 加载函数直接抛出（包括 Error）时同样移除条目，否则等待同一个键的调用方永远不会完成
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, e) -> {
+            if (e == null) {
+                if (this.ttlNanos > 0) {
+                    synchronized (segment) {
+                        loading.expiresAt = System.nanoTime() + this.ttlNanos;
+                    }
+                }
+                created.complete(value);
+            } else {
+                remove(key, created);
+                created.completeExceptionally(e);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * 移除指定的键
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存，统计数据保留
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return 当前缓存的条目数（包括加载中的条目）
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return 最多缓存的条目数
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return 统计快照
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    private void remove(K key, CompletableFuture<V> expected) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            if (node != null && node.future == expected) {
+                segment.remove(key);
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * 超过容量时的淘汰策略
+     */
+    public enum Policy {
+
+        /**
+         * 淘汰最久未访问的条目
+         */
+        LRU,
+
+        /**
+         * 在最久未访问的若干条目中淘汰访问次数最少的条目
+         */
+        LFU
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @param hits        命中次数
+     * @param misses      未命中（触发加载）次数
+     * @param evictions   因容量不足淘汰的条目数
+     * @param expirations 因超过存活时间移除的条目数
+     * @param size        当前条目数
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+
+        /**
+         * @return 命中率，没有请求时为 0
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * 缓存条目，由持有段锁的线程读写
+     */
+    private static final class Node<V> {
+
+        final CompletableFuture<V> future;
+
+        /**
+         * 过期时间（System.nanoTime），加载完成前和不设 TTL 时为 Long.MAX_VALUE
+         */
+        long expiresAt = Long.MAX_VALUE;
+
+        /**
+         * 访问次数，LFU 淘汰时使用
+         */
+        int frequency = 1;
+
+        Node(CompletableFuture<V> future) {
+            this.future = future;
+        }
+
+        boolean expired(long now) {
+            return now != 0 && now - this.expiresAt > 0;
+        }
+    }
+
+    /**
+     * 按访问顺序排列的分段，由调用方持有段锁访问
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Node<V>> {
+
+        private final int capacity;
+
+        private final Policy policy;
+
+        private final BoundedCache<K, V> cache;
+
+        /**
+         * 上次衰减以来的命中次数
+         */
+        private int accesses;
+
+        Segment(int capacity, Policy policy, BoundedCache<K, V> cache) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.policy = policy;
+            this.cache = cache;
+        }
+
+        /**
+         * 记录一次命中；命中次数达到容量的 8 倍时全部访问次数减半
+         */
+        void recordAccess(Node<V> node) {
+            if (this.policy != Policy.LFU) {
+                return;
+            }
+            if (node.frequency < Integer.MAX_VALUE) {
+                node.frequency++;
+            }
+            if (++this.accesses >= this.capacity * 8) {
+                this.accesses = 0;
+                for (Node<V> value : values()) {
+                    value.frequency = Math.max(1, value.frequency >>> 1);
+                }
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+            if (size() <= this.capacity) {
+                return false;
+            }
+            // 加载中的条目不淘汰，避免并发请求重复加载；已过期的条目优先淘汰
+            long now = this.cache.ttlNanos == 0 ? 0 : System.nanoTime();
+            K victim = null;
+            Node<V> victimNode = null;
+            int sampled = 0;
+            for (Map.Entry<K, Node<V>> entry : entrySet()) {
+                Node<V> node = entry.getValue();
+                if (!node.future.isDone()) {
+                    continue;
+                }
+                if (node.expired(now)) {
+                    victim = entry.getKey();
+                    victimNode = node;
+                    break;
+                }
+                if (victimNode == null || node.frequency < victimNode.frequency) {
+                    victim = entry.getKey();
+                    victimNode = node;
+                }
+                if (this.policy == Policy.LRU || ++sampled == LFU_SAMPLE) {
+                    break;
+                }
+            }
+            if (victimNode == null) {
+                return false;
+            }
+            if (victimNode.expired(now)) {
+                this.cache.expirations.increment();
+            } else {
+                this.cache.evictions.increment();
+            }
+            if (victimNode == eldest.getValue()) {
+                return true;
+            }
+            remove(victim);
+            return false;
+        }
+    }
+}
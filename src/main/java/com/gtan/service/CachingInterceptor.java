@@ -0,0 +1,171 @@
+package com.gtan.service;
+
+import com.gtan.annotation.Cacheable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @Cacheable 的拦截器，容器创建时注册在最外层：
+ * 1. 每个被标注的方法一个 BoundedCache，容量、TTL 和淘汰策略取自注解；同一方法在不同子类中织入时共用同一个缓存。
+ * 缓存按方法的声明类保存在 ClassValue 中，统计只弱引用它们，不阻止 Bean 类型及其类加载器被卸载
+ * 2. 键为接收者和参数：接收者按引用比较并以弱引用持有，缓存不会让 Bean 无法回收，被回收的接收者的条目在之后的调用中清除；
+ * 参数按 equals 比较。同一接收者相同参数的并发未命中共享同一个 Future，方法只执行一次，其余调用方等待其结果，
+ * 冷键不会引发重复计算
+ * 3. 方法抛出的异常原样抛给所有等待的调用方，且不缓存
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class CachingInterceptor implements MethodInterceptor {
+
+    private static final MethodHandle INVOKE;
+
+    static {
+        try {
+            INVOKE = MethodHandles.lookup().findVirtual(CachedMethod.class, "invoke",
+                    MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 每个类中已织入的 @Cacheable 方法的缓存，随类卸载释放
+     */
+    private final ClassValue<Map<Method, BoundedCache<Key, Object>>> caches = new ClassValue<>() {
+        @Override
+        protected Map<Method, BoundedCache<Key, Object>> computeValue(Class<?> type) {
+            Map<Method, BoundedCache<Key, Object>> declared = new ConcurrentHashMap<>();
+            registered.add(new WeakReference<>(declared));
+            return declared;
+        }
+    };
+
+    /**
+     * caches 中的全部值，供 {@link #stats()} 遍历；弱引用，类卸载后自动失效
+     */
+    private final Queue<WeakReference<Map<Method, BoundedCache<Key, Object>>>> registered =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException 方法返回 void 时抛出
+     */
+    @Override
+    public MethodHandle wrap(Method method, MethodHandle next) {
+        if (method.getReturnType() == void.class) {
+            throw new IllegalStateException("@Cacheable 方法必须有返回值: " + method);
+        }
+        BoundedCache<Key, Object> cache = this.caches.get(method.getDeclaringClass()).computeIfAbsent(method, key -> {
+            Cacheable cacheable = key.getAnnotation(Cacheable.class);
+            return new BoundedCache<>(cacheable.maxSize(), Duration.ofMillis(cacheable.ttlMillis()),
+                    BoundedCache.Policy.valueOf(cacheable.eviction().name()));
+        });
+        int arity = next.type().parameterCount();
+        // (Object[]) -> Object 的原方法，供未命中时调用
+        MethodHandle target = next.asSpreader(Object[].class, arity)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return INVOKE.bindTo(new CachedMethod(cache, target)).asCollector(Object[].class, arity).asType(next.type());
+    }
+
+    /**
+     * @return 每个已织入的 @Cacheable 方法的缓存统计
+     */
+    Map<Method, BoundedCache.Stats> stats() {
+        Map<Method, BoundedCache.Stats> stats = new HashMap<>();
+        for (Iterator<WeakReference<Map<Method, BoundedCache<Key, Object>>>> it = this.registered.iterator();
+             it.hasNext(); ) {
+            Map<Method, BoundedCache<Key, Object>> declared = it.next().get();
+            if (declared == null) {
+                it.remove();
+            } else {
+                declared.forEach((method, cache) -> stats.put(method, cache.stats()));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 缓存键：弱引用的接收者（按引用比较）和其余参数（按 equals 比较）；
+     * 接收者被回收后只与自身相等，从引用队列取出后按自身移除
+     */
+    private static final class Key extends WeakReference<Object> {
+
+        private final List<Object> arguments;
+
+        private final int hash;
+
+        Key(Object receiver, List<Object> arguments, ReferenceQueue<Object> queue) {
+            super(receiver, queue);
+            this.arguments = arguments;
+            this.hash = 31 * System.identityHashCode(receiver) + arguments.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other) || this.hash != other.hash) {
+                return false;
+            }
+            Object receiver = get();
+            return receiver != null && receiver == other.get() && this.arguments.equals(other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * 一个方法的缓存和原方法的调用
+     */
+    private record CachedMethod(BoundedCache<Key, Object> cache, MethodHandle target,
+                                ReferenceQueue<Object> collected) {
+
+        CachedMethod(BoundedCache<Key, Object> cache, MethodHandle target) {
+            this(cache, target, new ReferenceQueue<>());
+        }
+
+        Object invoke(Object[] arguments) throws Throwable {
+            // 清除接收者已被回收的条目
+            for (Reference<?> cleared; (cleared = this.collected.poll()) != null; ) {
+                this.cache.invalidate((Key) cleared);
+            }
+            Key key = new Key(arguments[0], Arrays.asList(arguments).subList(1, arguments.length), this.collected);
+            CompletableFuture<Object> result = this.cache.get(key, ignored -> {
+                try {
+                    return CompletableFuture.completedFuture((Object) this.target.invokeExact(arguments));
+                } catch (Throwable e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            });
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.gtan.service;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Printable;
+import com.gtan.bytecode.ClassFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 类路径注解扫描器：
+ * 直接解析目录和 jar 中的 class 文件，识别 @Bean、@Autowired、@Printable 等注解，
+ * 整个过程不调用 Class.forName，因此不会加载类，也不会执行类似 User 中的静态初始化块
+ * 1. 先在常量池中查找注解描述符，一个都不存在的 class 文件不再解析方法表
+ * 2. 较大的 class 文件通过内存映射读取，较小的文件直接读入堆内缓冲区（映射小文件的系统调用开销更高）
+ * 3. 文件列表按阈值拆分为 ForkJoin 任务，并行解析
+ *
+ * 扫描结果中只有匹配的类才需要交给 {@link Container}，例如：
+ * <pre>{@code
+ * for (ScannedClass scanned : new ClassPathScanner().scan(root)) {
+ *     if (scanned.hasMethodAnnotation(Bean.class)) {
+ *         container.init(scanned.load(classLoader));
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class ClassPathScanner {
+
+    /**
+     * 默认扫描的注解
+     */
+    public static final List<Class<? extends Annotation>> DEFAULT_ANNOTATIONS =
+            List.of(Bean.class, Autowired.class, Printable.class);
+
+    /**
+     * 超过该大小的 class 文件使用内存映射读取
+     */
+    private static final long MAPPING_THRESHOLD = 16 * 1024;
+
+    /**
+     * 单个 ForkJoin 任务最多直接处理的文件数
+     */
+    private static final int BATCH_SIZE = 32;
+
+    private final List<Class<? extends Annotation>> annotations;
+
+    /**
+     * 注解类型描述符的 Utf8 字节，例如 Lcom/gtan/annotation/Bean;
+     */
+    private final byte[][] descriptors;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 使用默认注解和公共 ForkJoin 线程池创建扫描器
+     */
+    public ClassPathScanner() {
+        this(DEFAULT_ANNOTATIONS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 创建扫描器
+     *
+     * @param annotations 需要识别的注解类型
+     * @param pool        执行扫描任务的线程池
+     */
+    public ClassPathScanner(Collection<Class<? extends Annotation>> annotations, ForkJoinPool pool) {
+        this.annotations = List.copyOf(annotations);
+        this.descriptors = new byte[this.annotations.size()][];
+        for (int i = 0; i < descriptors.length; i++) {
+            descriptors[i] = ClassFile.Names.ascii("L" + this.annotations.get(i).getName().replace('.', '/') + ";");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * 扫描目录或 jar 文件
+     *
+     * @param roots 类路径根目录或 jar 文件
+     * @return 至少包含一个目标注解的类，顺序与文件遍历顺序一致
+     * @throws IOException 读取文件失败时抛出
+     */
+    public List<ScannedClass> scan(Path... roots) throws IOException {
+        List<ScannedClass> result = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                List<Path> files;
+                try (Stream<Path> stream = Files.walk(root)) {
+                    files = stream.filter(path -> path.toString().endsWith(".class")).toList();
+                }
+                result.addAll(invoke(new ScanTask<>(files, 0, files.size(), this::readFile)));
+            } else {
+                try (JarFile jar = new JarFile(root.toFile())) {
+                    List<JarEntry> entries = jar.stream()
+                            .filter(entry -> entry.getName().endsWith(".class") && !entry.isDirectory())
+                            .toList();
+                    result.addAll(invoke(new ScanTask<>(entries, 0, entries.size(), entry -> readEntry(jar, entry))));
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<ScannedClass> invoke(ScanTask<?> task) throws IOException {
+        try {
+            return pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof UncheckedIOException wrapped) {
+                cause = wrapped.getCause();
+            }
+            throw (IOException) cause;
+        }
+    }
+
+    private ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满缓冲区
+            }
+            return buffer.flip();
+        }
+    }
+
+    private ByteBuffer readEntry(JarFile jar, JarEntry entry) throws IOException {
+        // jar 中的条目通常经过压缩，只能解压后读入内存
+        try (InputStream input = jar.getInputStream(entry)) {
+            return ByteBuffer.wrap(input.readAllBytes());
+        }
+    }
+
+    /**
+     * 解析单个 class 文件
+     *
+     * @param buffer class 文件内容
+     * @return 匹配时返回扫描结果，否则返回 null
+     */
+    ScannedClass parse(ByteBuffer buffer) {
+        ClassFile classFile = ClassFile.read(buffer);
+        int[] descriptorIndexes = new int[descriptors.length];
+        boolean candidate = false;
+        for (int i = 0; i < descriptors.length; i++) {
+            descriptorIndexes[i] = classFile.findUtf8(descriptors[i]);
+            candidate |= descriptorIndexes[i] != 0;
+        }
+        if (!candidate) {
+            return null;
+        }
+        Set<Class<? extends Annotation>> classAnnotations = collect(classFile, classFile.attributes(), descriptorIndexes);
+        Set<Class<? extends Annotation>> constructorAnnotations = new LinkedHashSet<>();
+        Set<Class<? extends Annotation>> methodAnnotations = new LinkedHashSet<>();
+        for (ClassFile.Member method : classFile.methods()) {
+            Set<Class<? extends Annotation>> found = collect(classFile, method.attributes(), descriptorIndexes);
+            if (classFile.utf8Equals(method.nameIndex(), ClassFile.Names.CONSTRUCTOR)) {
+                constructorAnnotations.addAll(found);
+            } else {
+                methodAnnotations.addAll(found);
+            }
+        }
+        if (classAnnotations.isEmpty() && constructorAnnotations.isEmpty() && methodAnnotations.isEmpty()) {
+            // 描述符可能只出现在方法调用或字段引用中，并未作为注解使用
+            return null;
+        }
+        return new ScannedClass(classFile.thisClass().replace('/', '.'), classAnnotations,
+                constructorAnnotations, methodAnnotations);
+    }
+
+    private Set<Class<? extends Annotation>> collect(ClassFile classFile, List<ClassFile.Attribute> attributes,
+                                                     int[] descriptorIndexes) {
+        int[] types = classFile.annotationTypes(attributes);
+        if (types.length == 0) {
+            return Collections.emptySet();
+        }
+        Set<Class<? extends Annotation>> found = new LinkedHashSet<>();
+        for (int type : types) {
+            for (int i = 0; i < descriptorIndexes.length; i++) {
+                if (descriptorIndexes[i] == type) {
+                    found.add(annotations.get(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 读取 class 文件内容的函数
+     *
+     * @param <T> 文件或 jar 条目类型
+     */
+    @FunctionalInterface
+    private interface Reader<T> {
+
+        ByteBuffer read(T source) throws IOException;
+    }
+
+    /**
+     * 将文件列表二分拆解的扫描任务
+     *
+     * @param <T> 文件或 jar 条目类型
+     */
+    private final class ScanTask<T> extends RecursiveTask<List<ScannedClass>> {
+
+        private final List<T> sources;
+
+        private final int from;
+
+        private final int to;
+
+        private final Reader<T> reader;
+
+        ScanTask(List<T> sources, int from, int to, Reader<T> reader) {
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.reader = reader;
+        }
+
+        @Override
+        protected List<ScannedClass> compute() {
+            if (to - from > BATCH_SIZE) {
+                int middle = (from + to) >>> 1;
+                ScanTask<T> left = new ScanTask<>(sources, from, middle, reader);
+                left.fork();
+                List<ScannedClass> right = new ScanTask<>(sources, middle, to, reader).compute();
+                List<ScannedClass> result = new ArrayList<>(left.join());
+                result.addAll(right);
+                return result;
+            }
+            List<ScannedClass> result = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                try {
+                    ScannedClass scanned = parse(reader.read(sources.get(i)));
+                    if (scanned != null) {
+                        result.add(scanned);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 扫描结果：类名及其在类、构造器、方法上使用的目标注解
+     *
+     * @param className              全限定类名
+     * @param classAnnotations       类上的注解
+     * @param constructorAnnotations 构造器上的注解
+     * @param methodAnnotations      方法上的注解
+     */
+    public record ScannedClass(String className, Set<Class<? extends Annotation>> classAnnotations,
+                               Set<Class<? extends Annotation>> constructorAnnotations,
+                               Set<Class<? extends Annotation>> methodAnnotations) {
+
+        /**
+         * @param annotation 注解类型
+         * @return 任意方法上存在该注解时返回 true
+         */
+        public boolean hasMethodAnnotation(Class<? extends Annotation> annotation) {
+            return methodAnnotations.contains(annotation);
+        }
+
+        /**
+         * @param annotation 注解类型
+         * @return 任意构造器上存在该注解时返回 true
+         */
+        public boolean hasConstructorAnnotation(Class<? extends Annotation> annotation) {
+            return constructorAnnotations.contains(annotation);
+        }
+
+        /**
+         * 加载类但不初始化，静态初始化块会推迟到首次使用时执行
+         *
+         * @param loader 类加载器
+         * @return 类对象
+         * @throws ClassNotFoundException 类不存在时抛出
+         */
+        public Class<?> load(ClassLoader loader) throws ClassNotFoundException {
+            return Class.forName(className, false, loader);
+        }
+    }
+}
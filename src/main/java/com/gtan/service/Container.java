@@ -1,18 +1,39 @@
 package com.gtan.service;
 
 import com.gtan.annotation.Autowired;
-import com.gtan.annotation.Bean;
+import com.gtan.annotation.Cacheable;
+import com.gtan.annotation.RequestScoped;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 简易 IoC 容器：
- * 负责扫描配置类中标注 @Bean 的方法，将其返回类型和方法映射保存，
- * 并支持根据类型获取单例 Bean 或通过带 @Autowired 的构造器创建服务实例
+ * 扫描配置类中标注 @Bean 的方法，按类型或名称获取单例 Bean，并通过带 @Autowired 的构造器创建实例；
+ * @Bean 方法和 @Autowired 构造器的参数按类型注入，也可以是 List&lt;T&gt; 或 Map&lt;String, T&gt;
+ *
+ * <p>容器本身只是入口，状态保存在不可变的快照 {@link Registry} 中：{@link #reload(Class)} 只重建发生变化的 Bean
+ * 及依赖它们的 Bean，完成后一次性替换快照。@RequestScoped Bean 通过 {@link RequestScope} 获取，
+ * {@link #fork()} 创建的子容器经由 {@link Overlay} 覆盖 Bean。异步 Bean、带参 Bean、拦截器、@Cacheable
+ * 和 @Subscribe 的规则见对应方法
  *
  * @author gangtann@126.com
  * @version 1.0
@@ -21,78 +42,506 @@ import java.util.Map;
 public class Container {
 
     /**
-     * 存放配置类中所有返回类型到方法的映射，用于根据类型创建 Bean
+     * 创建 Bean 的执行器，每个任务一个虚拟线程
+     */
+    static final Executor EXECUTOR = Thread::startVirtualThread;
+
+    /**
+     * 默认最多缓存的带参 Bean 实例数
+     */
+    public static final int DEFAULT_VARIANT_CACHE_SIZE = 1024;
+
+    /**
+     * 每个快照中带参 Bean 缓存的容量
+     */
+    private final int variantCacheSize;
+
+    /**
+     * 当前快照，init 和 reload 整体替换；子容器不使用该字段，始终读取根容器的快照
+     */
+    private volatile Registry registry;
+
+    /**
+     * 拦截器织入，所有快照和子容器共享
+     */
+    private final InterceptorWeaver weaver;
+
+    /**
+     * 事件总线，所有快照和子容器共享
+     */
+    private final EventBus events;
+
+    /**
+     * @Cacheable 方法的缓存，所有快照和子容器共享
+     */
+    private final CachingInterceptor caches;
+
+    /**
+     * 根容器，根容器指向自身
      */
-    private Map<Class<?>, Method> methods;
+    private final Container root;
 
     /**
-     * 配置类实例，用于调用 @Bean 方法生成 Bean
+     * 子容器覆盖的 Bean（含从祖先继承的覆盖），不可变，修改时复制；根容器为空
      */
-    private Object config;
+    private volatile Map<String, Object> overrides = Map.of();
 
     /**
-     * 单例服务缓存，保证同一类型的 Bean 只创建一次
+     * 按当前快照解析的覆盖层，首次查找时创建，覆盖或快照变化后重建
      */
-    private Map<Class<?>, Object> services;
+    private volatile Overlay overlay;
 
     /**
-     * 初始化容器：
-     * 1. 扫描 com.gtan.config.Config 类中的所有 @Bean 方法
-     * 2. 将返回类型与对应方法保存到 methods
-     * 3. 实例化配置类对象，供后续调用
+     * 创建容器，带参 Bean 缓存使用默认容量
+     */
+    public Container() {
+        this(DEFAULT_VARIANT_CACHE_SIZE);
+    }
+
+    /**
+     * 创建容器
+     *
+     * @param variantCacheSize 最多缓存的带参 Bean 实例数
+     * @throws IllegalArgumentException variantCacheSize 小于 1 时抛出
+     */
+    public Container(int variantCacheSize) {
+        if (variantCacheSize < 1) {
+            throw new IllegalArgumentException("variantCacheSize 必须大于 0: " + variantCacheSize);
+        }
+        this.variantCacheSize = variantCacheSize;
+        this.weaver = new InterceptorWeaver();
+        this.events = new EventBus();
+        this.caches = new CachingInterceptor();
+        this.weaver.add(Cacheable.class, this.caches);
+        this.root = this;
+    }
+
+    /**
+     * 创建子容器，共享根容器的快照和拦截器，继承父容器当前的全部覆盖
+     */
+    private Container(Container parent) {
+        this.variantCacheSize = parent.variantCacheSize;
+        this.weaver = parent.weaver;
+        this.events = parent.events;
+        this.caches = parent.caches;
+        this.root = parent.root;
+        this.overrides = parent.overrides;
+    }
+
+    /**
+     * 使用默认配置类 com.gtan.config.Config 初始化容器，等同于 {@link #init(Class)}：
+     * 按该类创建新的快照，@Bean 方法在首次获取对应 Bean 时才调用
      *
      * @throws ClassNotFoundException    配置类未找到时抛出
      * @throws NoSuchMethodException     无默认构造器时抛出
-     * @throws InvocationTargetException 构造器或方法调用失败时抛出
+     * @throws InvocationTargetException 构造器调用失败时抛出
      * @throws InstantiationException    无法实例化配置类时抛出
-     * @throws IllegalAccessException    构造器或方法访问受限时抛出
+     * @throws IllegalAccessException    构造器访问受限时抛出
      */
     public void init() throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException,
             InstantiationException, IllegalAccessException {
-        this.methods = new HashMap<>();
-        this.services = new HashMap<>();
         // 加载配置类及其 @Bean 方法
-        Class<?> clazz = Class.forName("com.gtan.config.Config");
-        Method[] declaredMethods = clazz.getDeclaredMethods();
-        for (Method declaredMethod : declaredMethods) {
-            if (declaredMethod.isAnnotationPresent(Bean.class)) {
-                // 保存返回类型到方法的映射
-                this.methods.put(declaredMethod.getReturnType(), declaredMethod);
+        init(Class.forName("com.gtan.config.Config"));
+    }
+
+    /**
+     * 使用指定的配置类初始化容器，例如由 {@link ClassPathScanner} 扫描得到的配置类
+     *
+     * @param clazz 包含 @Bean 方法的配置类
+     * @throws NoSuchMethodException     无默认构造器时抛出
+     * @throws InvocationTargetException 构造器调用失败时抛出
+     * @throws InstantiationException    无法实例化配置类时抛出
+     * @throws IllegalAccessException    构造器访问受限时抛出
+     * @throws IllegalStateException     @Bean 方法之间存在循环依赖或在子容器上调用时抛出
+     */
+    public synchronized void init(Class<?> clazz) throws NoSuchMethodException, InvocationTargetException,
+            InstantiationException, IllegalAccessException {
+        requireRoot();
+        this.registry = new Registry(clazz, this.variantCacheSize, this.weaver, this.events);
+    }
+
+    /**
+     * 增量重新加载配置类：
+     * 1. 按 Bean 名称比较新旧 @Bean 方法，方法签名、字节码指纹（包括调用的同类方法）或依赖发生变化的 Bean 视为已变化
+     * 2. 沿依赖图找出所有直接或间接依赖已变化 Bean 的 Bean
+     * 3. 在新快照中重建其中旧快照已经创建过的 Bean，其余单例和集合注入缓存直接沿用
+     * 4. 全部重建成功后一次性替换快照，随后在 EventBus 中一次性用新单例的订阅替换旧单例的订阅；
+     * 任一 Bean 创建失败时保留旧快照，新建的单例不会收到事件
+     * 带参 Bean 的缓存不沿用，新快照中按需重新创建
+     *
+     * @param clazz 新版本的配置类，可以来自新的类加载器
+     * @return 被替换（新增、删除、变化或依赖已变化）的 Bean 名称
+     * @throws NoSuchMethodException     无默认构造器时抛出
+     * @throws InvocationTargetException 构造器或 @Bean 方法调用失败时抛出
+     * @throws InstantiationException    无法实例化配置类时抛出
+     * @throws IllegalAccessException    构造器或方法访问受限时抛出
+     * @throws IllegalStateException     @Bean 方法之间存在循环依赖或在子容器上调用时抛出
+     */
+    public synchronized Set<String> reload(Class<?> clazz) throws NoSuchMethodException, InvocationTargetException,
+            InstantiationException, IllegalAccessException {
+        requireRoot();
+        Registry previous = this.registry;
+        Registry next = new Registry(clazz, this.variantCacheSize, this.weaver, this.events);
+        next.unpublished = new ArrayList<>();
+        Map<String, String> previousFingerprints = previous.fingerprints();
+        Map<String, String> nextFingerprints = next.fingerprints();
+        Set<String> changed = new LinkedHashSet<>();
+        for (String name : previous.beanMethods.keySet()) {
+            if (!next.beanMethods.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        for (Map.Entry<String, Method> entry : next.beanMethods.entrySet()) {
+            String name = entry.getKey();
+            Method method = previous.beanMethods.get(name);
+            String fingerprint = nextFingerprints.get(name);
+            if (method == null || fingerprint == null || !fingerprint.equals(previousFingerprints.get(name))
+                    || Registry.beanType(method) != Registry.beanType(entry.getValue())
+                    || !previous.dependencies.get(name).equals(next.dependencies.get(name))) {
+                changed.add(name);
+            }
+        }
+        Set<String> affected = next.dependents(changed);
+
+        // 沿用未受影响且已经创建完成的单例，只复制引用；仍在创建中的由新快照重新创建，
+        // 旧快照中随后创建完成的单例在发布时从 EventBus 注销
+        Set<Object> inherited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, CompletableFuture<Object>> entry : previous.beans.entrySet()) {
+            CompletableFuture<Object> future = entry.getValue();
+            if (!affected.contains(entry.getKey()) && future.isDone() && !future.isCompletedExceptionally()) {
+                next.beans.put(entry.getKey(), future);
+                inherited.add(future.join());
+            }
+        }
+        next.inherit(inherited);
+        for (Map.Entry<Class<?>, Object> entry : previous.services.entrySet()) {
+            Method method = next.methods.get(entry.getKey());
+            if (method != null && inherited.contains(entry.getValue())
+                    && method.getName().equals(previous.methods.get(entry.getKey()).getName())) {
+                next.services.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Set<Class<?>> affectedTypes = new HashSet<>();
+        for (String name : affected) {
+            if (previous.beanMethods.containsKey(name)) {
+                affectedTypes.add(Registry.beanType(previous.beanMethods.get(name)));
+            }
+            if (next.beanMethods.containsKey(name)) {
+                affectedTypes.add(Registry.beanType(next.beanMethods.get(name)));
+            }
+        }
+        for (Map.Entry<Type, Object> entry : previous.collections.entrySet()) {
+            Type[] arguments = ((ParameterizedType) entry.getKey()).getActualTypeArguments();
+            Class<?> elementType = Registry.erase(arguments[arguments.length - 1]);
+            Collection<?> elements = entry.getValue() instanceof Map<?, ?> map ? map.values()
+                    : (Collection<?>) entry.getValue();
+            if (affectedTypes.stream().noneMatch(elementType::isAssignableFrom)
+                    && inherited.containsAll(elements)) {
+                next.collections.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // 在新快照发布之前重建旧快照中已经创建过的 Bean，互不依赖的 Bean 并发创建
+        List<CompletableFuture<Object>> rebuilt = new ArrayList<>();
+        for (String name : affected) {
+            if (previous.beans.containsKey(name) && next.beanMethods.containsKey(name)) {
+                rebuilt.add(next.beanFuture(name, true));
             }
         }
-        // 实例化配置类，用于后续生成 Bean
-        this.config = clazz.getConstructor().newInstance();
+        // 重建失败时新快照被丢弃，其中的单例从未注册过 @Subscribe 方法
+        join(CompletableFuture.allOf(rebuilt.toArray(new CompletableFuture<?>[0])));
+        this.registry = next;
+        // 旧快照注册过的全部单例中，除沿用的之外都被替换；退役之后旧快照中创建完成的单例不再注册
+        List<Object> replaced = new ArrayList<>();
+        for (Object bean : previous.retire()) {
+            if (!inherited.contains(bean)) {
+                replaced.add(bean);
+            }
+        }
+        this.events.replace(replaced, next.publish());
+        return Collections.unmodifiableSet(affected);
+    }
+
+    /**
+     * 注册方法拦截器：此后创建的 Bean（包括 @Bean 方法的返回值和 createInstance 创建的实例）中，
+     * 标注了 annotation 的方法都会经过拦截器；已经创建的单例不受影响。
+     * 同一个方法匹配多个拦截器时，先注册的在外层；容器内置的 @Cacheable 拦截器最先注册，命中缓存时不经过其他拦截器
+     *
+     * @param annotation  方法注解，需要在运行时保留
+     * @param interceptor 拦截器，例如 {@link Interceptors#timing(Interceptors.Timer)}
+     */
+    public void addInterceptor(Class<? extends Annotation> annotation, MethodInterceptor interceptor) {
+        this.weaver.add(annotation, interceptor);
+    }
+
+    /**
+     * @return 每个已织入的 @Cacheable 方法的缓存统计（命中、未命中、淘汰、过期次数和当前条目数）
+     */
+    public Map<Method, BoundedCache.Stats> getCacheStats() {
+        return this.caches.stats();
+    }
+
+    /**
+     * @return 容器的事件总线，已创建的单例 Bean 中的 @Subscribe 方法已注册
+     */
+    public EventBus getEventBus() {
+        return this.events;
+    }
+
+    /**
+     * 向已创建的单例 Bean 发布事件，等同于 getEventBus().publish(event)
+     *
+     * @param event 事件
+     * @throws IllegalStateException 同步订阅抛出异常时抛出
+     */
+    public void publish(Object event) {
+        this.events.publish(event);
+    }
+
+    /**
+     * 打开一个请求作用域：@RequestScoped Bean 在作用域中首次获取时创建，之后在同一作用域中共享；
+     * 作用域绑定打开时的快照，请求处理期间 reload 不影响已打开的作用域
+     *
+     * <pre>
+     * try (RequestScope scope = container.openRequestScope()) {
+     *     RequestContext context = (RequestContext) scope.getServiceInstanceByClass(RequestContext.class);
+     * }
+     * </pre>
+     *
+     * @return 新的请求作用域，使用完毕后需要关闭
+     */
+    public RequestScope openRequestScope() {
+        return new RequestScope(this, registry(), layer());
+    }
+
+    /**
+     * 创建子容器：只复制父容器覆盖表的引用，耗时与 Bean 数量无关。
+     * 子容器的查找先查自身的覆盖层，再直接查根容器的快照，与子容器的嵌套层数无关；
+     * 之后父容器新增的覆盖不影响已创建的子容器，根容器 reload 后子容器看到新的快照
+     *
+     * @return 子容器
+     */
+    public Container fork() {
+        return new Container(this);
+    }
+
+    /**
+     * 在子容器中覆盖一个 Bean：子容器中按名称、类型或依赖注入得到的都是 bean，
+     * 直接或间接依赖它的单例在子容器中按需重新创建，其余 Bean 与父容器共用。
+     * 应在子容器使用之前覆盖，之后覆盖会丢弃子容器中已经重新创建的依赖方
+     *
+     * @param name Bean 名称
+     * @param bean 替代的实例
+     * @throws IllegalStateException    在根容器上调用时抛出
+     * @throws IllegalArgumentException Bean 未定义、是 @RequestScoped 或 bean 的类型不匹配时抛出
+     */
+    public synchronized void override(String name, Object bean) {
+        if (this.root == this) {
+            throw new IllegalStateException("只能在 fork() 创建的子容器中覆盖 Bean");
+        }
+        Method method = registry().beanMethods.get(name);
+        if (method == null || method.isAnnotationPresent(RequestScoped.class)) {
+            throw new IllegalArgumentException("不能覆盖 Bean: " + name);
+        }
+        if (!Registry.beanType(method).isInstance(Objects.requireNonNull(bean, "bean"))) {
+            throw new IllegalArgumentException(bean.getClass().getName() + " 不是 " + Registry.beanType(method).getName());
+        }
+        Map<String, Object> next = new HashMap<>(this.overrides);
+        next.put(name, bean);
+        this.overrides = Map.copyOf(next);
+        this.overlay = null;
+    }
+
+    /**
+     * 按类型覆盖 Bean，规则同 {@link #override(String, Object)}
+     *
+     * @param clazz 服务类型
+     * @param bean  替代的实例
+     * @param <T>   服务类型
+     * @throws IllegalStateException    在根容器上调用时抛出
+     * @throws IllegalArgumentException 该类型没有对应的 Bean 时抛出
+     */
+    public <T> void override(Class<T> clazz, T bean) {
+        Method method = registry().methods.get(clazz);
+        if (method == null) {
+            throw new IllegalArgumentException("没有类型为 " + clazz.getName() + " 的 Bean");
+        }
+        override(method.getName(), bean);
     }
 
     /**
      * 按类型获取单例服务实例：
      * 1. 若 services 缓存中存在，直接返回
-     * 2. 否则根据 methods 调用对应 @Bean 方法生成，缓存并返回
+     * 2. 否则根据 methods 调用对应 @Bean 方法生成，缓存并返回；异步 Bean 会等待其完成
      *
      * @param clazz 服务类型
      * @return 对应类型的单例 Bean，若未定义则返回 null
      * @throws InvocationTargetException 方法调用失败时抛出
      * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalStateException     对应的 Bean 是 @RequestScoped 时抛出，需要通过 {@link RequestScope} 获取；
+     *                                   该类型只由带参 Bean 提供时抛出，需要通过 {@link #getServiceInstanceByClass(Class, Object...)} 获取
      */
     public Object getServiceInstanceByClass(Class<?> clazz) throws InvocationTargetException, IllegalAccessException {
-        if (this.services.containsKey(clazz)) {
-            return this.services.get(clazz);
+        Registry registry = registry();
+        Overlay overlay = layer();
+        if (overlay != null && registry.methods.containsKey(clazz)) {
+            CompletableFuture<Object> future = overlay.beanFuture(registry.methods.get(clazz).getName(), false);
+            if (future != null) {
+                return join(future);
+            }
+        }
+        if (registry.services.containsKey(clazz)) {
+            return registry.services.get(clazz);
         } else {
-            if (this.methods.containsKey(clazz)) {
+            if (registry.methods.containsKey(clazz)) {
                 // 调用配置类的 @Bean 方法创建 Bean
-                Method method = this.methods.get(clazz);
-                Object obj = method.invoke(this.config);
-                this.services.put(clazz, obj);
+                Method method = registry.methods.get(clazz);
+                registry.requireSingleton(method.getName());
+                Object obj = join(registry.beanFuture(method.getName(), false));
+                if (obj != null) {
+                    registry.services.put(clazz, obj);
+                }
                 return obj;
             }
         }
+        registry.requireNoArguments(clazz);
         return null;
     }
 
+    /**
+     * 按名称获取单例服务实例，名称即 @Bean 方法名
+     *
+     * @param name Bean 名称
+     * @return 对应名称的单例 Bean，若未定义则返回 null
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalStateException     对应的 Bean 是 @RequestScoped 时抛出，需要通过 {@link RequestScope} 获取；
+     *                                   对应的是带参 Bean 时抛出，需要通过 {@link #getServiceInstanceByName(String, Object...)} 获取
+     */
+    public Object getServiceInstanceByName(String name) throws InvocationTargetException, IllegalAccessException {
+        Registry registry = registry();
+        if (!registry.beanMethods.containsKey(name)) {
+            registry.requireNoArguments(name);
+            return null;
+        }
+        registry.requireSingleton(name);
+        return join(registry.beanFuture(name, false, layer()));
+    }
+
+    /**
+     * 按显式参数调用 @Bean 方法，结果按 Bean 名称和参数组合缓存；带参 Bean（存在没有对应 @Bean 的参数）只能这样获取；
+     * 相同参数（按 equals 比较）的重复请求返回同一个实例，并发请求同一组参数时只调用一次 @Bean 方法
+     *
+     * @param name      Bean 名称
+     * @param arguments 传给 @Bean 方法的参数，个数必须与方法参数个数一致；
+     *                  为空时等同于 {@link #getServiceInstanceByName(String)}
+     * @return 对应参数的 Bean，若未定义则返回 null
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalArgumentException  参数个数或类型与 @Bean 方法不匹配时抛出
+     */
+    public Object getServiceInstanceByName(String name, Object... arguments) throws InvocationTargetException,
+            IllegalAccessException {
+        if (arguments.length == 0) {
+            return getServiceInstanceByName(name);
+        }
+        Registry registry = registry();
+        Method method = registry.parameterized.getOrDefault(name, registry.beanMethods.get(name));
+        if (method == null) {
+            return null;
+        }
+        return join(registry.variantFuture(method, arguments));
+    }
+
+    /**
+     * 按类型和显式参数获取带参 Bean，缓存规则同 {@link #getServiceInstanceByName(String, Object...)}
+     *
+     * @param clazz     服务类型
+     * @param arguments 传给 @Bean 方法的参数；为空时等同于 {@link #getServiceInstanceByClass(Class)}
+     * @return 对应参数的 Bean，若未定义则返回 null
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalArgumentException  参数个数或类型与 @Bean 方法不匹配时抛出
+     */
+    public Object getServiceInstanceByClass(Class<?> clazz, Object... arguments) throws InvocationTargetException,
+            IllegalAccessException {
+        if (arguments.length == 0) {
+            return getServiceInstanceByClass(clazz);
+        }
+        Registry registry = registry();
+        Method method = registry.parameterizedTypes.getOrDefault(clazz, registry.methods.get(clazz));
+        if (method == null) {
+            return null;
+        }
+        return join(registry.variantFuture(method, arguments));
+    }
+
+    /**
+     * @return 当前快照中带参 Bean 缓存的命中、未命中和淘汰统计
+     */
+    public BoundedCache.Stats getVariantCacheStats() {
+        return registry().variants.stats();
+    }
+
+    /**
+     * 异步按类型获取单例服务实例：Bean 尚未创建时在虚拟线程上调用 @Bean 方法，调用线程不会阻塞
+     *
+     * @param clazz 服务类型
+     * @param <T>   服务类型
+     * @return 完成时得到单例 Bean 的 Future，若未定义则得到 null；该类型只由带参 Bean 提供时以 IllegalStateException 完成
+     */
+    public <T> CompletableFuture<T> getServiceAsync(Class<T> clazz) {
+        Registry registry = registry();
+        Method method = registry.methods.get(clazz);
+        if (method == null) {
+            Method parameterized = registry.parameterizedTypes.get(clazz);
+            return parameterized == null ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.failedFuture(Registry.argumentsRequired(parameterized.getName()));
+        }
+        Overlay overlay = layer();
+        CompletableFuture<Object> future = overlay == null ? null : overlay.beanFuture(method.getName(), true);
+        if (future == null) {
+            Object service = registry.services.get(clazz);
+            if (service != null) {
+                return CompletableFuture.completedFuture(clazz.cast(service));
+            }
+            future = registry.beanFuture(method.getName(), true);
+        }
+        return future.thenApply(clazz::cast);
+    }
+
+    /**
+     * 获取所有类型匹配的单例 Bean（返回类型为 clazz 或其子类型）
+     *
+     * @param clazz 服务类型
+     * @param <T>   服务类型
+     * @return 不可变列表，顺序与 @Bean 方法的注册顺序一致
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     */
+    public <T> List<T> getServiceInstancesByClass(Class<T> clazz) throws InvocationTargetException,
+            IllegalAccessException {
+        return List.copyOf(getServiceInstanceMapByClass(clazz).values());
+    }
+
+    /**
+     * 获取所有类型匹配的单例 Bean，键为 Bean 名称
+     *
+     * @param clazz 服务类型
+     * @param <T>   服务类型
+     * @return 不可变 Map，顺序与 @Bean 方法的注册顺序一致
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     */
+    public <T> Map<String, T> getServiceInstanceMapByClass(Class<T> clazz) throws InvocationTargetException,
+            IllegalAccessException {
+        return join(registry().serviceMapFuture(clazz, false, layer()));
+    }
+
     /**
      * 为指定类型创建实例：
      * 1. 查找所有构造器，若标注 @Autowired，则优先使用该构造器，
-     * 并递归获取所需依赖类型的实例作为参数
+     * 并递归获取所需依赖类型的实例作为参数，异步依赖会并发完成
      * 2. 若无 @Autowired 构造器，使用默认无参构造器创建
      *
      * @param clazz 目标类类型
@@ -101,23 +550,132 @@ public class Container {
      * @throws IllegalAccessException    构造器访问受限时抛出
      * @throws InstantiationException    无法实例化类时抛出
      * @throws NoSuchMethodException     找不到对应构造器时抛出
+     * @throws IllegalStateException     构造器依赖 @RequestScoped Bean 时抛出，需要通过 {@link RequestScope} 创建；
+     *                                   构造器参数没有对应的 Bean 时抛出
      */
     public Object createInstance(Class<?> clazz) throws InvocationTargetException, IllegalAccessException,
             InstantiationException, NoSuchMethodException {
+        return createInstance(clazz, registry(), layer(), false);
+    }
+
+    /**
+     * 创建实例，依赖先从 layer（请求作用域或子容器的覆盖层）中获取；scoped 为 false 时不能依赖 @RequestScoped Bean
+     */
+    Object createInstance(Class<?> clazz, Registry registry, Layer layer, boolean scoped)
+            throws InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchMethodException {
         Constructor<?>[] constructors = clazz.getDeclaredConstructors();
         for (Constructor<?> constructor : constructors) {
             if (constructor.isAnnotationPresent(Autowired.class)) {
-                Class<?>[] parameterTypes = constructor.getParameterTypes();
-                Object[] arguments = new Object[parameterTypes.length];
-                // 为每个参数获取依赖实例
-                for (int i = 0; i < parameterTypes.length; i++) {
-                    arguments[i] = getServiceInstanceByClass(parameterTypes[i]);
+                for (Type type : constructor.getGenericParameterTypes()) {
+                    registry.requireInjectable(type);
+                    if (!scoped) {
+                        registry.requireSingleton(type);
+                    }
                 }
-                // 使用带参构造器创建实例
-                return constructor.newInstance(arguments);
+                // 先启动所有依赖的创建，再统一等待，异步 Bean 因此可以并发完成
+                Object[] arguments = join(registry.resolveArguments(constructor, false, layer));
+                // 使用带参构造器创建实例，需要织入时直接调用生成子类中对应的构造器
+                return this.weaver.newInstance(constructor, arguments);
             }
         }
         // 若无 @Autowired 构造器，使用无参构造器创建实例
-        return clazz.getConstructor().newInstance();
+        return this.weaver.newInstance(clazz.getConstructor(), new Object[0]);
+    }
+
+    /**
+     * 异步创建实例：并发解析 @Autowired 构造器的所有依赖，全部完成后在虚拟线程上调用构造器
+     *
+     * @param clazz 目标类类型
+     * @param <T>   目标类型
+     * @return 完成时得到新实例的 Future；构造失败时以 InvocationTargetException 等异常完成
+     */
+    public <T> CompletableFuture<T> createInstanceAsync(Class<T> clazz) {
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(Autowired.class)) {
+                // 依赖已经全部完成时 thenApply 会在调用线程上执行构造器，因此显式交给虚拟线程
+                return registry().resolveArguments(constructor, true, layer()).thenApplyAsync(arguments -> {
+                    try {
+                        return clazz.cast(this.weaver.newInstance(constructor, arguments));
+                    } catch (ReflectiveOperationException e) {
+                        throw new CompletionException(e);
+                    }
+                }, EXECUTOR);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return clazz.cast(this.weaver.newInstance(clazz.getConstructor(), new Object[0]));
+            } catch (ReflectiveOperationException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * @return 当前快照，子容器返回根容器的快照
+     */
+    private Registry registry() {
+        return this.root.registry;
+    }
+
+    /**
+     * 获取子容器的覆盖层：没有覆盖时返回 null；快照或覆盖变化后按新的快照重建
+     *
+     * @return 覆盖层，根容器和没有覆盖的子容器返回 null
+     */
+    private Overlay layer() {
+        Map<String, Object> overrides = this.overrides;
+        if (overrides.isEmpty()) {
+            return null;
+        }
+        Registry registry = registry();
+        Overlay overlay = this.overlay;
+        if (overlay != null && overlay.registry == registry && overlay.overrides == overrides) {
+            return overlay;
+        }
+        synchronized (this) {
+            overlay = this.overlay;
+            if (overlay == null || overlay.registry != registry || overlay.overrides != this.overrides) {
+                overlay = new Overlay(registry, this.overrides);
+                this.overlay = overlay;
+            }
+            return overlay;
+        }
+    }
+
+    private void requireRoot() {
+        if (this.root != this) {
+            throw new IllegalStateException("子容器共享根容器的快照，不能单独初始化或重新加载");
+        }
+    }
+
+    /**
+     * 等待 Future 完成，并将异常还原为容器同步接口声明的受检异常
+     *
+     * @param future Future
+     * @param <T>    结果类型
+     * @return 结果
+     * @throws InvocationTargetException @Bean 方法或构造器抛出异常时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     */
+    static <T> T join(CompletableFuture<T> future) throws InvocationTargetException, IllegalAccessException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException invocationTargetException) {
+                throw invocationTargetException;
+            } else if (cause instanceof IllegalAccessException illegalAccessException) {
+                throw illegalAccessException;
+            }
+            throw new InvocationTargetException(cause);
+        }
+    }
+
+    /**
+     * 去掉 CompletableFuture 组合时包装的 CompletionException
+     */
+    static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
@@ -0,0 +1,415 @@
+package com.gtan.service;
+
+import com.gtan.annotation.Subscribe;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * 进程内事件总线：Bean 中标注 @Subscribe 的方法接收发布的事件
+ * 1. 每个订阅者类只解析一次 @Subscribe 方法，并用 LambdaMetafactory 编译为 BiConsumer&lt;订阅者, 事件&gt;，
+ * 发布时直接调用，不做反射查找，也不经过 Method.invoke
+ * 2. 分派表按事件类型保存订阅，注册和注销时整体复制后替换；发布只读取 volatile 引用，不加锁。
+ * 事件的运行时类型第一次发布时解析出所有匹配的订阅（参数类型是事件类型的父类或接口），之后直接命中
+ * 3. 同步订阅在发布线程上依次调用；@Subscribe(async = true) 的订阅有各自的队列，
+ * 由虚拟线程每次最多投递 batchSize 个事件，同一订阅者收到事件的顺序与发布顺序一致
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class EventBus {
+
+    /**
+     * 投递异步事件的执行器，每批一个虚拟线程
+     */
+    private static final Executor EXECUTOR = Thread::startVirtualThread;
+
+    /**
+     * 默认每批投递的最大事件数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 每个类的 @Subscribe 方法只编译一次，ClassValue 随类卸载自动释放
+     */
+    private static final ClassValue<List<Handler>> HANDLERS = new ClassValue<>() {
+        @Override
+        protected List<Handler> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final int batchSize;
+
+    /**
+     * 尚未投递完成的异步事件数
+     */
+    private final LongAdder pending = new LongAdder();
+
+    private volatile Tables tables = new Tables(Map.of());
+
+    /**
+     * 创建事件总线，异步订阅每批最多投递 {@link #DEFAULT_BATCH_SIZE} 个事件
+     */
+    public EventBus() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 创建事件总线
+     *
+     * @param batchSize 异步订阅每批最多投递的事件数，投递完一批后换一个虚拟线程继续，避免长期占用
+     * @throws IllegalArgumentException batchSize 小于 1 时抛出
+     */
+    public EventBus(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 必须大于 0: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 注册订阅者的全部 @Subscribe 方法（包括父类中声明的方法）；没有 @Subscribe 方法时不做任何事
+     *
+     * @param subscriber 订阅者
+     * @throws IllegalArgumentException @Subscribe 方法是静态方法、参数个数不为 1 或参数是基本类型时抛出
+     */
+    public void register(Object subscriber) {
+        List<Handler> handlers = HANDLERS.get(subscriber.getClass());
+        if (handlers.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Map<Class<?>, Subscription[]> byType = new HashMap<>(this.tables.byType);
+            for (Handler handler : handlers) {
+                Subscription subscription = new Subscription(subscriber, handler,
+                        handler.async ? new Mailbox(this) : null);
+                Subscription[] current = byType.getOrDefault(handler.eventType, NONE);
+                Subscription[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = subscription;
+                byType.put(handler.eventType, next);
+            }
+            this.tables = new Tables(Map.copyOf(byType));
+        }
+    }
+
+    /**
+     * 注销订阅者的全部订阅；已经进入异步队列的事件仍会投递
+     *
+     * @param subscriber 订阅者，按引用比较
+     */
+    public void unregister(Object subscriber) {
+        if (HANDLERS.get(subscriber.getClass()).isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Map<Class<?>, Subscription[]> byType = new HashMap<>();
+            boolean removed = false;
+            for (Map.Entry<Class<?>, Subscription[]> entry : this.tables.byType.entrySet()) {
+                Subscription[] remaining = Arrays.stream(entry.getValue())
+                        .filter(subscription -> subscription.target != subscriber)
+                        .toArray(Subscription[]::new);
+                removed |= remaining.length != entry.getValue().length;
+                if (remaining.length > 0) {
+                    byType.put(entry.getKey(), remaining);
+                }
+            }
+            if (removed) {
+                this.tables = new Tables(Map.copyOf(byType));
+            }
+        }
+    }
+
+    /**
+     * 在一次分派表替换中注销 removed 并注册 added：发布方要么只看到替换前的订阅，要么只看到替换后的订阅，
+     * 不会在中间状态下同时投递给新旧两个订阅者，或两者都不投递
+     *
+     * @param removed 要注销的订阅者，按引用比较
+     * @param added   要注册的订阅者
+     * @throws IllegalArgumentException added 中的 @Subscribe 方法不合法时抛出，此时分派表不变
+     */
+    public void replace(Collection<?> removed, Collection<?> added) {
+        List<List<Handler>> addedHandlers = new ArrayList<>(added.size());
+        for (Object subscriber : added) {
+            addedHandlers.add(HANDLERS.get(subscriber.getClass()));
+        }
+        Set<Object> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        gone.addAll(removed);
+        synchronized (this) {
+            Map<Class<?>, Subscription[]> byType = new HashMap<>();
+            for (Map.Entry<Class<?>, Subscription[]> entry : this.tables.byType.entrySet()) {
+                Subscription[] remaining = gone.isEmpty() ? entry.getValue() : Arrays.stream(entry.getValue())
+                        .filter(subscription -> !gone.contains(subscription.target))
+                        .toArray(Subscription[]::new);
+                if (remaining.length > 0) {
+                    byType.put(entry.getKey(), remaining);
+                }
+            }
+            int i = 0;
+            for (Object subscriber : added) {
+                for (Handler handler : addedHandlers.get(i++)) {
+                    Subscription subscription = new Subscription(subscriber, handler,
+                            handler.async ? new Mailbox(this) : null);
+                    Subscription[] current = byType.getOrDefault(handler.eventType, NONE);
+                    Subscription[] next = Arrays.copyOf(current, current.length + 1);
+                    next[current.length] = subscription;
+                    byType.put(handler.eventType, next);
+                }
+            }
+            this.tables = new Tables(Map.copyOf(byType));
+        }
+    }
+
+    /**
+     * 解析订阅者的 @Subscribe 方法但不注册，用于在注册之前尽早发现不合法的方法
+     *
+     * @param subscriber 订阅者
+     * @throws IllegalArgumentException @Subscribe 方法是静态方法、参数个数不为 1 或参数是基本类型时抛出
+     */
+    static void validate(Object subscriber) {
+        HANDLERS.get(subscriber.getClass());
+    }
+
+    /**
+     * 发布事件：同步订阅在当前线程上依次调用，异步订阅放入各自的队列后立即返回
+     *
+     * @param event 事件
+     * @throws IllegalStateException 同步订阅抛出异常时抛出，其余订阅仍会收到事件，后续失败作为 suppressed 附加
+     */
+    public void publish(Object event) {
+        IllegalStateException failure = null;
+        for (Subscription subscription : this.tables.subscriptions(event.getClass())) {
+            if (subscription.mailbox != null) {
+                subscription.mailbox.offer(subscription, event);
+                continue;
+            }
+            try {
+                subscription.handler.invoker.accept(subscription.target, event);
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("事件处理失败: " + subscription.handler.method, e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 等待已发布的异步事件全部投递完成
+     *
+     * @param timeout 最长等待时间
+     * @return 在超时之前全部投递完成时返回 true
+     * @throws InterruptedException 等待期间线程被中断时抛出
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (this.pending.sum() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 当前注册的订阅数
+     */
+    public int subscriptionCount() {
+        return this.tables.byType.values().stream().mapToInt(subscriptions -> subscriptions.length).sum();
+    }
+
+    /**
+     * 解析并编译类及其父类中的 @Subscribe 方法，子类重写的方法只保留一个
+     */
+    private static List<Handler> compile(Class<?> type) {
+        List<Handler> handlers = new ArrayList<>();
+        Set<List<Object>> signatures = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                if (subscribe == null || method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                        || method.getParameterTypes()[0].isPrimitive()) {
+                    throw new IllegalArgumentException("@Subscribe 方法必须是只有一个引用类型参数的实例方法: " + method);
+                }
+                Class<?> eventType = method.getParameterTypes()[0];
+                boolean overridable = !Modifier.isPrivate(method.getModifiers());
+                if (overridable && !signatures.add(List.of(method.getName(), eventType))) {
+                    continue;
+                }
+                handlers.add(new Handler(method, eventType, subscribe.async(), invoker(method, eventType)));
+            }
+        }
+        return List.copyOf(handlers);
+    }
+
+    /**
+     * 把方法编译为 BiConsumer：在声明类中生成实现类，私有方法和包内可见的方法同样可以直接调用，
+     * 返回值被丢弃；订阅者是织入拦截器的子类实例时按虚方法分派到子类
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> invoker(Method method, Class<?> eventType) {
+        Class<?> owner = method.getDeclaringClass();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            MethodHandle target = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    INVOKER_TYPE.erase(), target, MethodType.methodType(void.class, owner, eventType));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (IllegalAccessException | LambdaConversionException e) {
+            throw new IllegalArgumentException("无法编译 @Subscribe 方法: " + method, e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法编译 @Subscribe 方法: " + method, e);
+        }
+    }
+
+    /**
+     * 编译后的 @Subscribe 方法，同一个类的所有实例共享
+     *
+     * @param method    订阅方法
+     * @param eventType 事件类型
+     * @param async     是否异步投递
+     * @param invoker   (订阅者, 事件) -> 调用订阅方法
+     */
+    private record Handler(Method method, Class<?> eventType, boolean async, BiConsumer<Object, Object> invoker) {
+    }
+
+    /**
+     * 一个订阅者的一个订阅方法
+     *
+     * @param target  订阅者
+     * @param handler 编译后的订阅方法
+     * @param mailbox 异步订阅的队列，同步订阅为 null
+     */
+    private record Subscription(Object target, Handler handler, Mailbox mailbox) {
+    }
+
+    /**
+     * 不可变的分派表
+     */
+    private static final class Tables {
+
+        /**
+         * 按 @Subscribe 方法的参数类型保存的订阅
+         */
+        private final Map<Class<?>, Subscription[]> byType;
+
+        /**
+         * 按事件的运行时类型解析后的订阅，随分派表一起替换
+         */
+        private final Map<Class<?>, Subscription[]> resolved = new ConcurrentHashMap<>();
+
+        Tables(Map<Class<?>, Subscription[]> byType) {
+            this.byType = byType;
+        }
+
+        Subscription[] subscriptions(Class<?> eventClass) {
+            Subscription[] subscriptions = this.resolved.get(eventClass);
+            if (subscriptions == null) {
+                subscriptions = this.resolved.computeIfAbsent(eventClass, this::resolve);
+            }
+            return subscriptions;
+        }
+
+        private Subscription[] resolve(Class<?> eventClass) {
+            List<Subscription> matched = new ArrayList<>();
+            for (Map.Entry<Class<?>, Subscription[]> entry : this.byType.entrySet()) {
+                if (entry.getKey().isAssignableFrom(eventClass)) {
+                    matched.addAll(Arrays.asList(entry.getValue()));
+                }
+            }
+            return matched.isEmpty() ? NONE : matched.toArray(new Subscription[0]);
+        }
+    }
+
+    /**
+     * 异步订阅的事件队列：同一时刻最多一个虚拟线程在投递，保证该订阅按发布顺序收到事件
+     */
+    private static final class Mailbox {
+
+        private final EventBus bus;
+
+        private final ConcurrentLinkedQueue<Object> events = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(EventBus bus) {
+            this.bus = bus;
+        }
+
+        void offer(Subscription subscription, Object event) {
+            this.bus.pending.increment();
+            this.events.add(event);
+            if (this.scheduled.compareAndSet(false, true)) {
+                EXECUTOR.execute(() -> drain(subscription));
+            }
+        }
+
+        /**
+         * 投递一批事件；队列中还有剩余时交给新的虚拟线程继续
+         */
+        private void drain(Subscription subscription) {
+            int delivered = 0;
+            Object event;
+            while (delivered < this.bus.batchSize && (event = this.events.poll()) != null) {
+                try {
+                    subscription.handler.invoker.accept(subscription.target, event);
+                } catch (Throwable e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                } finally {
+                    this.bus.pending.decrement();
+                }
+                delivered++;
+            }
+            if (delivered == this.bus.batchSize && !this.events.isEmpty()) {
+                EXECUTOR.execute(() -> drain(subscription));
+                return;
+            }
+            this.scheduled.set(false);
+            // 放开标志之后可能有新事件入队，而发布方看到标志仍为 true 没有调度
+            if (!this.events.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+                EXECUTOR.execute(() -> drain(subscription));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.gtan.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 转发类的类数据：{@link InterceptorWeaver} 生成的转发类不是隐藏类，不能使用 MethodHandles.classData，
+ * 改为在静态初始化时凭自身的 Lookup 领取拦截链
+ * 1. 织入方在定义转发类后、初始化前登记拦截链，初始化完成后条目即被移除
+ * 2. 只有持有转发类完整权限 Lookup 的代码（即转发类自身）才能领取，其他类无法取得拦截链
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class ForwarderData {
+
+    private static final Map<Class<?>, MethodHandle[]> PENDING = new ConcurrentHashMap<>();
+
+    private ForwarderData() {
+    }
+
+    /**
+     * 登记转发类的拦截链，随后初始化该类
+     *
+     * @param forwarder 转发类
+     * @param handles   拦截链，按方法顺序排列
+     * @throws ClassNotFoundException 初始化转发类失败时抛出
+     */
+    static void initialize(Class<?> forwarder, MethodHandle[] handles) throws ClassNotFoundException {
+        PENDING.put(forwarder, handles);
+        try {
+            Class.forName(forwarder.getName(), true, forwarder.getClassLoader());
+        } finally {
+            PENDING.remove(forwarder);
+        }
+    }
+
+    /**
+     * 由转发类的静态初始化调用
+     *
+     * @param lookup 转发类自身的 Lookup
+     * @return 登记的拦截链
+     * @throws IllegalArgumentException lookup 没有完整权限时抛出
+     * @throws IllegalStateException    没有为该类登记拦截链时抛出
+     */
+    public static MethodHandle[] take(MethodHandles.Lookup lookup) {
+        if (!lookup.hasFullPrivilegeAccess()) {
+            throw new IllegalArgumentException("需要完整权限的 Lookup: " + lookup);
+        }
+        MethodHandle[] handles = PENDING.remove(lookup.lookupClass());
+        if (handles == null) {
+            throw new IllegalStateException("没有登记的拦截链: " + lookup.lookupClass().getName());
+        }
+        return handles;
+    }
+}
@@ -0,0 +1,729 @@
+package com.gtan.service;
+
+import com.gtan.bytecode.ConstantPoolBuilder;
+import sun.reflect.ReflectionFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 拦截器织入：
+ * 为包含被拦截方法的 Bean 类型生成一个隐藏子类（Lookup.defineHiddenClass），子类只覆盖被拦截的方法
+ * 1. 每个被拦截方法的拦截链在生成类时构建一次，作为类数据（classData）传入，在静态初始化时存入 static final 字段
+ * 2. 覆盖方法的字节码只有 getstatic、加载参数和 MethodHandle.invokeExact，类型与原方法一致，没有装箱和 Object[]；
+ * static final 的 MethodHandle 是 JIT 眼中的常量，整条拦截链可以内联到调用方
+ * 3. 未被拦截的方法不覆盖，调用开销与原类完全相同；不包含被拦截方法的类型原样返回，不生成子类
+ * 4. 拦截链的最内层通过 findSpecial 调用父类方法，相当于 super.method(...)
+ *
+ * <p>子类为父类的每个非私有构造器生成一个原样转发的构造器：createInstance 先定义子类，
+ * 再以解析好的参数调用子类中对应的构造器，实例只构造一次
+ *
+ * <p>@Bean 方法的返回值已经由配置类构造，不再调用任何构造器：为其类型另外生成一个转发子类 Type$$Forwarding，
+ * 实例由 ReflectionFactory 的序列化构造器分配（与反序列化相同，只执行 Object 的构造器），只持有原实例；
+ * 全部可覆盖的方法都转发给原实例，被拦截的方法经过拦截链，状态只存在于原实例中。
+ * 类型含有 final 方法或其他包中的包私有方法时无法完整转发，织入时抛出 IllegalStateException。
+ * 配置类保留的引用或构造时泄露的 this 仍指向原实例，经由它们的调用不经过拦截器
+ *
+ * <p>子类工厂按拦截器快照缓存在 ClassValue 中：注册拦截器时整体替换快照，并发织入只会把工厂写入它读到的快照，
+ * 不会把按旧拦截器生成的工厂留在新快照中；ClassValue 也不阻止 Bean 类型及其类加载器被卸载
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class InterceptorWeaver {
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    /**
+     * 生成的 class 文件版本（Java 21）；方法内没有分支，不需要 StackMapTable
+     */
+    private static final int CLASS_VERSION = 65;
+
+    private static final int ALOAD_0 = 0x2A;
+    private static final int LDC_W = 0x13;
+    private static final int DUP = 0x59;
+    private static final int POP = 0x57;
+    private static final int AALOAD = 0x32;
+    private static final int GETSTATIC = 0xB2;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int CHECKCAST = 0xC0;
+    private static final int RETURN = 0xB1;
+
+    private static final String HANDLE = "java/lang/invoke/MethodHandle";
+
+    private static final String HANDLE_ARRAY = "[Ljava/lang/invoke/MethodHandle;";
+
+    private static final MethodType DELEGATE_SETTER_TYPE = MethodType.methodType(void.class, Object.class,
+            Object.class);
+
+    private static final MethodType SPREAD_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 不需要织入的类型
+     */
+    private static final Factory NONE = new Factory(Map.of());
+
+    /**
+     * 转发类不是隐藏类（序列化构造器按名称引用它），每次生成使用新的序号避免重名
+     */
+    private static final AtomicInteger FORWARDERS = new AtomicInteger();
+
+    /**
+     * 当前的拦截器及按其生成的子类工厂；修改时整体替换
+     */
+    private volatile Snapshot snapshot = new Snapshot(Map.of());
+
+    /**
+     * 注册拦截器：同一个方法上的多个拦截器按注册顺序从外到内执行
+     *
+     * @param annotation  方法注解，需要在运行时保留
+     * @param interceptor 拦截器
+     */
+    synchronized void add(Class<? extends Annotation> annotation, MethodInterceptor interceptor) {
+        Map<Class<? extends Annotation>, List<MethodInterceptor>> next =
+                new LinkedHashMap<>(this.snapshot.interceptors);
+        List<MethodInterceptor> list = new ArrayList<>(next.getOrDefault(annotation, List.of()));
+        list.add(interceptor);
+        next.put(annotation, List.copyOf(list));
+        this.snapshot = new Snapshot(Collections.unmodifiableMap(next));
+    }
+
+    /**
+     * 织入 Bean：类型包含被拦截的方法时返回生成子类的实例，否则原样返回
+     *
+     * @param bean Bean 实例
+     * @return 织入后的实例：转发给 bean 的子类实例，或 bean 本身
+     * @throws IllegalAccessException 无法在 Bean 所在的包中定义子类或访问其成员时抛出
+     * @throws IllegalStateException  被拦截的方法或 Bean 类型不能被覆盖（final、static、private），
+     *                                或其他方法无法转发给原实例时抛出
+     */
+    Object weave(Object bean) throws IllegalAccessException {
+        if (bean == null || factory(bean.getClass()) == NONE) {
+            return bean;
+        }
+        Snapshot snapshot = this.snapshot;
+        Forwarder forwarder;
+        try {
+            forwarder = snapshot.forwarders.get(bean.getClass());
+        } catch (BuildFailure e) {
+            throw e.getCause();
+        }
+        return forwarder.wrap(bean);
+    }
+
+    /**
+     * 用构造器创建实例：类型包含被拦截的方法时调用生成子类中对应的构造器，否则直接调用该构造器
+     *
+     * @param constructor 目标类的构造器
+     * @param arguments   构造器参数
+     * @return 新实例，需要织入时为生成子类的实例
+     * @throws InvocationTargetException 构造器抛出异常时抛出
+     * @throws IllegalAccessException    构造器访问受限，或无法在目标类所在的包中定义子类时抛出
+     * @throws InstantiationException    目标类是抽象类时抛出
+     * @throws IllegalStateException     被拦截的方法或目标类不能被覆盖（final、static、private）时抛出
+     */
+    Object newInstance(Constructor<?> constructor, Object[] arguments) throws InvocationTargetException,
+            IllegalAccessException, InstantiationException {
+        Class<?> type = constructor.getDeclaringClass();
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw new InstantiationException(type.getName());
+        }
+        Factory factory = factory(type);
+        MethodHandle subclassConstructor = factory.constructors().get(constructor);
+        if (subclassConstructor == null) {
+            // 不需要织入，或私有构造器在子类中没有对应的构造器
+            return weave(constructor.newInstance(arguments));
+        }
+        if (arguments.length != constructor.getParameterCount()) {
+            throw new IllegalArgumentException("参数个数不匹配: " + constructor);
+        }
+        try {
+            return (Object) subclassConstructor.invokeExact(arguments);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * 从当前快照中获取类型的子类工厂，首次获取时生成子类
+     */
+    private Factory factory(Class<?> type) throws IllegalAccessException {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.interceptors.isEmpty() || type.isHidden()) {
+            return NONE;
+        }
+        try {
+            return snapshot.factories.get(type);
+        } catch (BuildFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 查找被拦截的方法并生成子类
+     */
+    private static Factory build(Class<?> type, Map<Class<? extends Annotation>, List<MethodInterceptor>> interceptors)
+            throws IllegalAccessException {
+        List<Method> methods = new ArrayList<>();
+        List<List<MethodInterceptor>> chains = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                List<MethodInterceptor> selected = select(method, interceptors);
+                int modifiers = method.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) {
+                    if (!selected.isEmpty()) {
+                        throw new IllegalStateException("无法拦截 static 或 private 方法: " + method);
+                    }
+                    continue;
+                }
+                // 子类中的覆盖方法优先，父类中同签名的方法不再处理
+                if (!seen.add(method.getName() + descriptor(method.getReturnType(), method.getParameterTypes()))
+                        || selected.isEmpty()) {
+                    continue;
+                }
+                if (Modifier.isFinal(modifiers)) {
+                    throw new IllegalStateException("无法拦截 final 方法: " + method);
+                }
+                if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)
+                        && c.getPackage() != type.getPackage()) {
+                    throw new IllegalStateException("无法拦截其他包中的包私有方法: " + method);
+                }
+                methods.add(method);
+                chains.add(selected);
+            }
+        }
+        if (methods.isEmpty()) {
+            return NONE;
+        }
+        if (Modifier.isFinal(type.getModifiers())) {
+            throw new IllegalStateException("无法拦截 final 类的方法: " + type.getName());
+        }
+        List<Constructor<?>> superConstructors = new ArrayList<>();
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (!Modifier.isPrivate(candidate.getModifiers())) {
+                superConstructors.add(candidate);
+            }
+        }
+
+        MethodHandle[] handles = new MethodHandle[methods.size()];
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                .defineHiddenClassWithClassData(generate(type, methods, superConstructors), handles, false);
+        Class<?> subclass = lookup.lookupClass();
+        for (int i = 0; i < handles.length; i++) {
+            Method method = methods.get(i);
+            MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            MethodHandle superCall;
+            try {
+                superCall = lookup.findSpecial(type, method.getName(), methodType, subclass)
+                        .asType(methodType.insertParameterTypes(0, type));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+            handles[i] = intercept(method, superCall, chains.get(i));
+        }
+        // 类数据填充完成后再初始化子类，<clinit> 从中读取拦截链
+        lookup.ensureInitialized(subclass);
+
+        // 子类构造器按父类构造器索引，参数以 Object[] 传入
+        Map<Constructor<?>, MethodHandle> constructors = new HashMap<>();
+        for (Constructor<?> superConstructor : superConstructors) {
+            MethodHandle handle;
+            try {
+                handle = lookup.findConstructor(subclass,
+                        MethodType.methodType(void.class, superConstructor.getParameterTypes()));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+            constructors.put(superConstructor, handle.asSpreader(Object[].class, superConstructor.getParameterCount())
+                    .asType(SPREAD_CONSTRUCTOR_TYPE));
+        }
+        return new Factory(Map.copyOf(constructors));
+    }
+
+    /**
+     * 生成转发给原实例的子类：类型的全部可覆盖方法（以及 Object 的 equals、hashCode、toString）都被覆盖，
+     * 被拦截的方法经过拦截链，其余方法直接调用原实例
+     */
+    private static Forwarder buildForwarder(Class<?> type,
+                                            Map<Class<? extends Annotation>, List<MethodInterceptor>> interceptors)
+            throws IllegalAccessException {
+        List<Method> methods = new ArrayList<>();
+        List<List<MethodInterceptor>> chains = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(modifiers)
+                        || Modifier.isPrivate(modifiers)
+                        || c == Object.class && (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers))
+                        || !seen.add(method.getName() + descriptor(method.getReturnType(), method.getParameterTypes()))) {
+                    continue;
+                }
+                if (Modifier.isFinal(modifiers) || !Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)
+                        && c.getPackage() != type.getPackage()) {
+                    throw new IllegalStateException("无法把 " + method + " 转发给 @Bean 返回的原实例，"
+                            + "请去掉 final 修饰或改用 createInstance 创建 " + type.getName());
+                }
+                methods.add(method);
+                chains.add(select(method, interceptors));
+            }
+        }
+
+        MethodHandles.Lookup typeLookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        MethodHandle[] handles = new MethodHandle[methods.size()];
+        for (int i = 0; i < handles.length; i++) {
+            Method method = methods.get(i);
+            MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            MethodHandle call;
+            try {
+                call = typeLookup.findVirtual(type, method.getName(), methodType)
+                        .asType(methodType.insertParameterTypes(0, type));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+            handles[i] = intercept(method, call, chains.get(i));
+        }
+        String name = type.getName().replace('.', '/') + "$$Forwarding$" + FORWARDERS.incrementAndGet();
+        Class<?> forwarding = typeLookup.defineClass(generateForwarder(name, type, methods));
+        try {
+            ForwarderData.initialize(forwarding, handles);
+            Field delegate = forwarding.getDeclaredField("delegate");
+            delegate.setAccessible(true);
+            return new Forwarder(ReflectionFactory.getReflectionFactory()
+                    .newConstructorForSerialization(forwarding, Object.class.getConstructor()),
+                    MethodHandles.lookup().unreflectSetter(delegate).asType(DELEGATE_SETTER_TYPE));
+        } catch (NoSuchFieldException | NoSuchMethodException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按注册顺序从内到外包装拦截器，最先注册的在最外层
+     *
+     * @param innermost 最内层的调用，类型为 (Type, 参数...)返回值
+     */
+    private static MethodHandle intercept(Method method, MethodHandle innermost, List<MethodInterceptor> selected) {
+        MethodHandle chain = innermost;
+        for (int j = selected.size() - 1; j >= 0; j--) {
+            chain = selected.get(j).wrap(method, chain);
+            if (!chain.type().equals(innermost.type())) {
+                throw new IllegalStateException("拦截器改变了方法类型: " + method + " -> " + chain.type());
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * 按注册顺序选出方法上的注解对应的全部拦截器
+     */
+    private static List<MethodInterceptor> select(Method method,
+                                                  Map<Class<? extends Annotation>, List<MethodInterceptor>> interceptors) {
+        List<MethodInterceptor> selected = List.of();
+        for (Map.Entry<Class<? extends Annotation>, List<MethodInterceptor>> entry : interceptors.entrySet()) {
+            if (method.isAnnotationPresent(entry.getKey())) {
+                if (selected.isEmpty()) {
+                    selected = new ArrayList<>();
+                }
+                selected.addAll(entry.getValue());
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 生成子类的 class 文件：
+     * <pre>
+     * final class Type$$Intercepted extends Type {
+     *     private static final MethodHandle h0 = ((MethodHandle[]) MethodHandles.classData(...))[0];
+     *     Type$$Intercepted(A a, B b) { super(a, b); }   // 每个非私有构造器各一个
+     *     public R method(P p) { return (R) h0.invokeExact(this, p); }
+     * }
+     * </pre>
+     */
+    private static byte[] generate(Class<?> type, List<Method> methods, List<Constructor<?>> constructors) {
+        String superName = type.getName().replace('.', '/');
+        ConstantPoolBuilder pool = new ConstantPoolBuilder();
+        int thisClass = pool.classRef(superName + "$$Intercepted");
+        int superClass = pool.classRef(superName);
+        int codeName = pool.utf8("Code");
+        int handleDescriptor = pool.utf8("L" + HANDLE + ";");
+        int[] handleFields = new int[methods.size()];
+        ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream fieldOut = new DataOutputStream(fieldBytes);
+            for (int i = 0; i < handleFields.length; i++) {
+                handleFields[i] = pool.fieldRef(thisClass, "h" + i, "L" + HANDLE + ";");
+                fieldOut.writeShort(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC);
+                fieldOut.writeShort(pool.utf8("h" + i));
+                fieldOut.writeShort(handleDescriptor);
+                fieldOut.writeShort(0);
+            }
+
+            DataOutputStream methodOut = new DataOutputStream(methodBytes);
+            // 构造器：原样转发给父类构造器
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            DataOutputStream codeOut = new DataOutputStream(code);
+            int slots;
+            for (Constructor<?> constructor : constructors) {
+                String constructorDescriptor = descriptor(void.class, constructor.getParameterTypes());
+                code.reset();
+                codeOut.writeByte(ALOAD_0);
+                slots = loadParameters(codeOut, constructor.getParameterTypes());
+                codeOut.writeByte(INVOKESPECIAL);
+                codeOut.writeShort(pool.methodRef(superClass, "<init>", constructorDescriptor));
+                codeOut.writeByte(RETURN);
+                writeMethod(methodOut, ACC_PUBLIC, pool.utf8("<init>"), pool.utf8(constructorDescriptor), codeName,
+                        1 + slots, 1 + slots, code);
+            }
+
+            // 静态初始化：从类数据中取出拦截链
+            code.reset();
+            int methodHandles = pool.classRef("java/lang/invoke/MethodHandles");
+            codeOut.writeByte(INVOKESTATIC);
+            codeOut.writeShort(pool.methodRef(methodHandles, "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;"));
+            codeOut.writeByte(LDC_W);
+            codeOut.writeShort(pool.string("_"));
+            codeOut.writeByte(LDC_W);
+            codeOut.writeShort(pool.classRef(HANDLE_ARRAY));
+            codeOut.writeByte(INVOKESTATIC);
+            codeOut.writeShort(pool.methodRef(methodHandles, "classData",
+                    "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+            codeOut.writeByte(CHECKCAST);
+            codeOut.writeShort(pool.classRef(HANDLE_ARRAY));
+            storeHandles(codeOut, pool, handleFields);
+            codeOut.writeByte(RETURN);
+            writeMethod(methodOut, ACC_STATIC, pool.utf8("<clinit>"), pool.utf8("()V"), codeName, 3, 0, code);
+
+            // 被拦截的方法：调用 static final 字段中的拦截链
+            int handleClass = pool.classRef(HANDLE);
+            for (int i = 0; i < methods.size(); i++) {
+                Method method = methods.get(i);
+                code.reset();
+                codeOut.writeByte(GETSTATIC);
+                codeOut.writeShort(handleFields[i]);
+                codeOut.writeByte(ALOAD_0);
+                slots = loadParameters(codeOut, method.getParameterTypes());
+                codeOut.writeByte(INVOKEVIRTUAL);
+                codeOut.writeShort(pool.methodRef(handleClass, "invokeExact",
+                        "(L" + superName + ";" + descriptor(method.getReturnType(), method.getParameterTypes())
+                                .substring(1)));
+                codeOut.writeByte(returnOpcode(method.getReturnType()));
+                String methodDescriptor = descriptor(method.getReturnType(), method.getParameterTypes());
+                writeMethod(methodOut, method.getModifiers() & (ACC_PUBLIC | ACC_PROTECTED),
+                        pool.utf8(method.getName()), pool.utf8(methodDescriptor), codeName, 2 + slots, 1 + slots,
+                        code);
+            }
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(result);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(pool.count());
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(handleFields.length);
+            fieldBytes.writeTo(out);
+            out.writeShort(constructors.size() + 1 + methods.size());
+            methodBytes.writeTo(out);
+            out.writeShort(0);
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 生成转发类的 class 文件：
+     * <pre>
+     * final class Type$$Forwarding$1 extends Type {
+     *     private static final MethodHandle h0 = ForwarderData.take(MethodHandles.lookup())[0];
+     *     private Type delegate;                                   // 没有构造器，由序列化构造器分配后写入
+     *     public R method(P p) { return (R) h0.invokeExact(delegate, p); }
+     * }
+     * </pre>
+     */
+    private static byte[] generateForwarder(String name, Class<?> type, List<Method> methods) {
+        String superName = type.getName().replace('.', '/');
+        ConstantPoolBuilder pool = new ConstantPoolBuilder();
+        int thisClass = pool.classRef(name);
+        int superClass = pool.classRef(superName);
+        int codeName = pool.utf8("Code");
+        int handleDescriptor = pool.utf8("L" + HANDLE + ";");
+        int delegate = pool.fieldRef(thisClass, "delegate", "L" + superName + ";");
+        int[] handleFields = new int[methods.size()];
+        ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream fieldOut = new DataOutputStream(fieldBytes);
+            fieldOut.writeShort(ACC_PRIVATE | ACC_SYNTHETIC);
+            fieldOut.writeShort(pool.utf8("delegate"));
+            fieldOut.writeShort(pool.utf8("L" + superName + ";"));
+            fieldOut.writeShort(0);
+            for (int i = 0; i < handleFields.length; i++) {
+                handleFields[i] = pool.fieldRef(thisClass, "h" + i, "L" + HANDLE + ";");
+                fieldOut.writeShort(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC);
+                fieldOut.writeShort(pool.utf8("h" + i));
+                fieldOut.writeShort(handleDescriptor);
+                fieldOut.writeShort(0);
+            }
+
+            DataOutputStream methodOut = new DataOutputStream(methodBytes);
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            DataOutputStream codeOut = new DataOutputStream(code);
+            // 静态初始化：凭自身的 Lookup 领取拦截链
+            codeOut.writeByte(INVOKESTATIC);
+            codeOut.writeShort(pool.methodRef(pool.classRef("java/lang/invoke/MethodHandles"), "lookup",
+                    "()Ljava/lang/invoke/MethodHandles$Lookup;"));
+            codeOut.writeByte(INVOKESTATIC);
+            codeOut.writeShort(pool.methodRef(pool.classRef("com/gtan/service/ForwarderData"), "take",
+                    "(Ljava/lang/invoke/MethodHandles$Lookup;)" + HANDLE_ARRAY));
+            storeHandles(codeOut, pool, handleFields);
+            codeOut.writeByte(RETURN);
+            writeMethod(methodOut, ACC_STATIC, pool.utf8("<clinit>"), pool.utf8("()V"), codeName, 3, 0, code);
+
+            // 每个方法：以原实例为接收者调用拦截链或原方法
+            int handleClass = pool.classRef(HANDLE);
+            for (int i = 0; i < methods.size(); i++) {
+                Method method = methods.get(i);
+                code.reset();
+                codeOut.writeByte(GETSTATIC);
+                codeOut.writeShort(handleFields[i]);
+                codeOut.writeByte(ALOAD_0);
+                codeOut.writeByte(GETFIELD);
+                codeOut.writeShort(delegate);
+                int slots = loadParameters(codeOut, method.getParameterTypes());
+                codeOut.writeByte(INVOKEVIRTUAL);
+                codeOut.writeShort(pool.methodRef(handleClass, "invokeExact",
+                        "(L" + superName + ";" + descriptor(method.getReturnType(), method.getParameterTypes())
+                                .substring(1)));
+                codeOut.writeByte(returnOpcode(method.getReturnType()));
+                String methodDescriptor = descriptor(method.getReturnType(), method.getParameterTypes());
+                writeMethod(methodOut, method.getModifiers() & (ACC_PUBLIC | ACC_PROTECTED),
+                        pool.utf8(method.getName()), pool.utf8(methodDescriptor), codeName, 2 + slots, 1 + slots,
+                        code);
+            }
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(result);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(pool.count());
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(1 + handleFields.length);
+            fieldBytes.writeTo(out);
+            out.writeShort(1 + methods.size());
+            methodBytes.writeTo(out);
+            out.writeShort(0);
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把栈顶 MethodHandle[] 的各个元素依次写入对应的 static final 字段，完成后弹出数组
+     */
+    private static void storeHandles(DataOutputStream codeOut, ConstantPoolBuilder pool, int[] handleFields)
+            throws IOException {
+        for (int i = 0; i < handleFields.length; i++) {
+            codeOut.writeByte(DUP);
+            codeOut.writeByte(LDC_W);
+            codeOut.writeShort(pool.integer(i));
+            codeOut.writeByte(AALOAD);
+            codeOut.writeByte(PUTSTATIC);
+            codeOut.writeShort(handleFields[i]);
+        }
+        codeOut.writeByte(POP);
+    }
+
+    /**
+     * 按类型依次加载局部变量 1 起的参数
+     *
+     * @return 参数占用的局部变量槽数
+     */
+    private static int loadParameters(DataOutputStream out, Class<?>[] parameterTypes) throws IOException {
+        int slot = 1;
+        for (Class<?> parameterType : parameterTypes) {
+            int opcode;
+            if (parameterType == long.class) {
+                opcode = 0x16;
+            } else if (parameterType == float.class) {
+                opcode = 0x17;
+            } else if (parameterType == double.class) {
+                opcode = 0x18;
+            } else if (parameterType.isPrimitive()) {
+                opcode = 0x15;
+            } else {
+                opcode = 0x19;
+            }
+            out.writeByte(opcode);
+            out.writeByte(slot);
+            slot += parameterType == long.class || parameterType == double.class ? 2 : 1;
+        }
+        return slot - 1;
+    }
+
+    private static int returnOpcode(Class<?> returnType) {
+        if (returnType == void.class) {
+            return RETURN;
+        } else if (returnType == long.class) {
+            return 0xAD;
+        } else if (returnType == float.class) {
+            return 0xAE;
+        } else if (returnType == double.class) {
+            return 0xAF;
+        } else if (returnType.isPrimitive()) {
+            return 0xAC;
+        }
+        return 0xB0;
+    }
+
+    private static void writeMethod(DataOutputStream out, int access, int name, int descriptor, int codeName,
+                                    int maxStack, int maxLocals, ByteArrayOutputStream code) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.size());
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.size());
+        code.writeTo(out);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private static String descriptor(Class<?> returnType, Class<?>[] parameterTypes) {
+        return MethodType.methodType(returnType, parameterTypes).toMethodDescriptorString();
+    }
+
+    /**
+     * 拦截器快照：拦截器映射和按其生成的子类工厂，两者一起替换
+     */
+    private static final class Snapshot {
+
+        /**
+         * 注解到拦截器的映射，按注册顺序排列
+         */
+        final Map<Class<? extends Annotation>, List<MethodInterceptor>> interceptors;
+
+        final ClassValue<Factory> factories = new ClassValue<>() {
+            @Override
+            protected Factory computeValue(Class<?> type) {
+                try {
+                    return build(type, interceptors);
+                } catch (IllegalAccessException e) {
+                    throw new BuildFailure(e);
+                }
+            }
+        };
+
+        /**
+         * 织入 @Bean 返回值时使用的转发类，只为需要织入的类型生成
+         */
+        final ClassValue<Forwarder> forwarders = new ClassValue<>() {
+            @Override
+            protected Forwarder computeValue(Class<?> type) {
+                try {
+                    return buildForwarder(type, interceptors);
+                } catch (IllegalAccessException e) {
+                    throw new BuildFailure(e);
+                }
+            }
+        };
+
+        Snapshot(Map<Class<? extends Annotation>, List<MethodInterceptor>> interceptors) {
+            this.interceptors = interceptors;
+        }
+    }
+
+    /**
+     * 在 ClassValue.computeValue 中传递生成子类时的 IllegalAccessException
+     */
+    private static final class BuildFailure extends RuntimeException {
+
+        BuildFailure(IllegalAccessException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IllegalAccessException getCause() {
+            return (IllegalAccessException) super.getCause();
+        }
+    }
+
+    /**
+     * 生成子类的实例工厂
+     *
+     * @param constructors 父类的非私有构造器到对应子类构造器的映射，类型为 (Object[])Object
+     */
+    private record Factory(Map<Constructor<?>, MethodHandle> constructors) {
+    }
+
+    /**
+     * 转发类的实例工厂
+     *
+     * @param allocator 不执行 Bean 类型任何构造器的序列化构造器
+     * @param delegate  写入原实例，类型为 (Object forwarder, Object original)void
+     */
+    private record Forwarder(Constructor<?> allocator, MethodHandle delegate) {
+
+        Object wrap(Object original) {
+            try {
+                Object forwarder = allocator.newInstance();
+                delegate.invokeExact(forwarder, original);
+                return forwarder;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("无法分配转发实例: " + original.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.gtan.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * 常用的方法拦截器：计时、重试和调用跟踪
+ * 1. 拦截链只用 MethodHandles 的组合子（foldArguments、tryFinally、catchException）构建，
+ * 类型与被拦截方法一致，参数和返回值不装箱
+ * 2. 方法名等字符串在包装时计算一次，每次调用不再拼接
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class Interceptors {
+
+    private static final MethodHandle NANO_TIME;
+
+    private static final MethodHandle STOP;
+
+    private static final MethodHandle ACCEPT;
+
+    private static final MethodHandle TRACE_EXIT;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            NANO_TIME = lookup.findStatic(System.class, "nanoTime", MethodType.methodType(long.class));
+            STOP = lookup.findStatic(Interceptors.class, "stop",
+                    MethodType.methodType(void.class, Timer.class, Method.class, long.class));
+            ACCEPT = lookup.findVirtual(Consumer.class, "accept", MethodType.methodType(void.class, Object.class));
+            TRACE_EXIT = lookup.findStatic(Interceptors.class, "traceExit",
+                    MethodType.methodType(void.class, Consumer.class, String.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Interceptors() {
+    }
+
+    /**
+     * 计时：记录每次调用的耗时（纳秒），方法抛出异常时同样记录
+     *
+     * @param timer 接收耗时的回调，会在调用线程上执行
+     * @return 拦截器
+     */
+    public static MethodInterceptor timing(Timer timer) {
+        return (method, next) -> {
+            // (long start, 接收者, 参数...) -> 返回值，start 由 foldArguments 在调用前填入
+            MethodHandle timed = MethodHandles.dropArguments(next, 0, long.class);
+            MethodHandle stop = MethodHandles.dropArguments(
+                    MethodHandles.insertArguments(STOP, 0, timer, method), 0, Throwable.class);
+            return MethodHandles.foldArguments(runFinally(timed, stop), NANO_TIME);
+        };
+    }
+
+    /**
+     * 重试：方法抛出指定类型的异常时重新调用，最多调用 attempts 次，最后一次的异常原样抛出
+     *
+     * @param attempts 最多调用次数
+     * @param on       需要重试的异常类型
+     * @return 拦截器
+     * @throws IllegalArgumentException attempts 小于 1 时抛出
+     */
+    public static MethodInterceptor retry(int attempts, Class<? extends Throwable> on) {
+        if (attempts < 1) {
+            throw new IllegalArgumentException("attempts 必须大于 0: " + attempts);
+        }
+        return (method, next) -> {
+            // 展开为 attempts 层嵌套的 catchException，调用路径上没有循环和计数器
+            MethodHandle chain = next;
+            for (int i = 1; i < attempts; i++) {
+                chain = MethodHandles.catchException(next, on, MethodHandles.dropArguments(chain, 0, on));
+            }
+            return chain;
+        };
+    }
+
+    /**
+     * 调用跟踪：调用前输出 "enter 类名.方法名"，返回后输出 "exit 类名.方法名"，抛出异常时附加异常类型
+     *
+     * @param sink 接收跟踪记录的回调
+     * @return 拦截器
+     */
+    public static MethodInterceptor tracing(Consumer<String> sink) {
+        return (method, next) -> {
+            String name = method.getDeclaringClass().getName() + "." + method.getName();
+            MethodHandle exit = MethodHandles.insertArguments(TRACE_EXIT, 0, sink, "exit " + name);
+            MethodHandle enter = MethodHandles.insertArguments(ACCEPT, 0, sink, "enter " + name);
+            return MethodHandles.foldArguments(runFinally(next, exit), enter);
+        };
+    }
+
+    /**
+     * 在 target 返回或抛出异常后执行 action，返回值和异常保持不变
+     *
+     * @param target 类型为 (A..., 其余参数...)R
+     * @param action 类型为 (Throwable, A...)void，正常返回时 Throwable 为 null
+     * @return 与 target 类型相同的 MethodHandle
+     */
+    private static MethodHandle runFinally(MethodHandle target, MethodHandle action) {
+        Class<?> returnType = target.type().returnType();
+        MethodHandle cleanup = action;
+        if (returnType != void.class) {
+            // tryFinally 的 cleanup 形如 (Throwable, R, A...)R，需要原样返回 R
+            MethodHandle result = MethodHandles.dropArguments(
+                    MethodHandles.dropArguments(MethodHandles.identity(returnType), 0, Throwable.class),
+                    2, action.type().parameterList().subList(1, action.type().parameterCount()));
+            cleanup = MethodHandles.foldArguments(result, MethodHandles.dropArguments(action, 1, returnType));
+        }
+        return MethodHandles.tryFinally(target, cleanup);
+    }
+
+    private static void stop(Timer timer, Method method, long start) {
+        timer.record(method, System.nanoTime() - start);
+    }
+
+    private static void traceExit(Consumer<String> sink, String message, Throwable e) {
+        sink.accept(e == null ? message : message + " with " + e.getClass().getName());
+    }
+
+    /**
+     * 接收方法耗时
+     */
+    @FunctionalInterface
+    public interface Timer {
+
+        /**
+         * @param method 被调用的方法
+         * @param nanos  耗时，单位纳秒
+         */
+        void record(Method method, long nanos);
+    }
+}
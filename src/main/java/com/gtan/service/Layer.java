@@ -0,0 +1,26 @@
+package com.gtan.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 叠加在快照之上的 Bean 来源：请求作用域或子容器的覆盖层
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+interface Layer {
+
+    /**
+     * @param name    Bean 名称
+     * @param offload 是否在虚拟线程上创建
+     * @return 由本层负责的 Bean 的 Future，不由本层负责时返回 null
+     */
+    CompletableFuture<Object> beanFuture(String name, boolean offload);
+
+    /**
+     * @param type 集合注入的元素类型
+     * @return 本层负责的 Bean 中是否有该类型的 Bean，有则对应的集合不能在快照中缓存
+     */
+    boolean shadows(Class<?> type);
+}
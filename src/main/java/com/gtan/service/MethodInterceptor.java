@@ -0,0 +1,31 @@
+package com.gtan.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * 方法拦截器：
+ * 容器创建 Bean 时为每个标注了对应注解的方法调用一次 {@link #wrap(Method, MethodHandle)}，
+ * 把返回的 MethodHandle 固定在生成的子类中，之后每次调用都直接执行这条拦截链，不再经过拦截器本身
+ *
+ * <p>与 java.lang.reflect.Proxy 的 InvocationHandler 不同，拦截链的类型与方法签名完全一致，
+ * 参数和返回值不会被装箱成 Object[]，JIT 可以把整条链内联到调用方
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ * @see Interceptors
+ * @see Container#addInterceptor(Class, MethodInterceptor)
+ */
+@FunctionalInterface
+public interface MethodInterceptor {
+
+    /**
+     * 包装被拦截方法的调用链
+     *
+     * @param method 被拦截的方法
+     * @param next   下一层调用，类型为 (Bean 类型, 参数...)返回值；最内层直接调用原方法
+     * @return 包装后的调用，类型必须与 next 相同；不需要拦截时直接返回 next
+     */
+    MethodHandle wrap(Method method, MethodHandle next);
+}
@@ -0,0 +1,96 @@
+package com.gtan.service;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 子容器的覆盖层：
+ * 1. 覆盖的 Bean 直接返回替代实例
+ * 2. 直接或间接依赖被覆盖 Bean 的单例在本层中按需创建并缓存，依赖从本层解析
+ * 3. 其余 Bean 返回 null，由调用方从快照中获取，与根容器共用同一个实例
+ * 覆盖层绑定创建时的快照和覆盖表，任一变化后由子容器重建
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class Overlay implements Layer {
+
+    final Registry registry;
+
+    final Map<String, Object> overrides;
+
+    /**
+     * 需要在本层重新创建的单例
+     */
+    private final Set<String> affected;
+
+    /**
+     * 覆盖和重新创建的 Bean 类型
+     */
+    private final List<Class<?>> types = new ArrayList<>();
+
+    private final Map<String, CompletableFuture<Object>> beans = new ConcurrentHashMap<>();
+
+    Overlay(Registry registry, Map<String, Object> overrides) {
+        this.registry = registry;
+        this.overrides = overrides;
+        Set<String> affected = new HashSet<>();
+        for (String name : registry.dependents(overrides.keySet())) {
+            Method method = registry.beanMethods.get(name);
+            if (method != null && !overrides.containsKey(name) && !registry.scopedSlots.containsKey(name)) {
+                affected.add(name);
+            }
+            if (method != null) {
+                this.types.add(Registry.beanType(method));
+            }
+        }
+        this.affected = affected;
+    }
+
+    @Override
+    public CompletableFuture<Object> beanFuture(String name, boolean offload) {
+        Object bean = this.overrides.get(name);
+        if (bean != null) {
+            return CompletableFuture.completedFuture(bean);
+        }
+        if (!this.affected.contains(name)) {
+            return null;
+        }
+        CompletableFuture<Object> future = this.beans.get(name);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        future = this.beans.putIfAbsent(name, created);
+        if (future != null) {
+            return future;
+        }
+        Method method = this.registry.beanMethods.get(name);
+        Runnable create = () -> this.registry.build(method, offload, this).whenComplete((obj, e) -> {
+            if (e == null) {
+                created.complete(obj);
+            } else {
+                this.beans.remove(name, created);
+                created.completeExceptionally(Container.unwrap(e));
+            }
+        });
+        if (offload) {
+            Container.EXECUTOR.execute(create);
+        } else {
+            create.run();
+        }
+        return created;
+    }
+
+    @Override
+    public boolean shadows(Class<?> type) {
+        return this.types.stream().anyMatch(type::isAssignableFrom);
+    }
+}
@@ -0,0 +1,727 @@
+package com.gtan.service;
+
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.RequestScoped;
+import com.gtan.bytecode.ClassFile;
+import com.gtan.bytecode.MethodFingerprints;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 容器快照：一个配置类版本对应的全部 @Bean 方法、依赖图以及已创建的单例。
+ * 快照创建后方法表和依赖图不再修改，单例和集合缓存随 Bean 的创建逐步填充；
+ * 字段由 {@link Container}、{@link RequestScope} 和 {@link Overlay} 在包内直接读取
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class Registry {
+
+    /**
+     * 存放配置类中所有返回类型到方法的映射，用于根据类型创建 Bean
+     */
+    final Map<Class<?>, Method> methods = new HashMap<>();
+
+    /**
+     * 配置类实例，用于调用 @Bean 方法生成 Bean
+     */
+    private final Object config;
+
+    /**
+     * 单例服务缓存，保证同一类型的 Bean 只创建一次
+     */
+    final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+
+    /**
+     * 按 Bean 名称（即 @Bean 方法名）保存所有 @Bean 方法，同一类型的多个 Bean 都会保留
+     */
+    final Map<String, Method> beanMethods = new LinkedHashMap<>();
+
+    /**
+     * 带参 Bean：存在没有对应 @Bean 的参数（如 message(String content)）的 @Bean 方法，
+     * 不参与按类型查找、依赖注入、集合注入和覆盖，只能按显式参数获取
+     */
+    final Map<String, Method> parameterized = new LinkedHashMap<>();
+
+    /**
+     * 带参 Bean 的类型到方法的映射，用于按类型和显式参数获取
+     */
+    final Map<Class<?>, Method> parameterizedTypes = new HashMap<>();
+
+    /**
+     * 按 Bean 名称缓存的单例；值为创建中或已完成的 Future，并发请求同一个 Bean 时只会创建一次
+     */
+    final Map<String, CompletableFuture<Object>> beans = new ConcurrentHashMap<>();
+
+    /**
+     * 集合注入缓存：泛型参数类型（如 List&lt;Customer&gt;）只解析一次，
+     * 之后每次注入都直接交付同一个预先构建好的不可变集合
+     */
+    final Map<Type, Object> collections = new ConcurrentHashMap<>();
+
+    /**
+     * 依赖图：Bean 名称到其 @Bean 方法参数所依赖的 Bean 名称
+     */
+    final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    /**
+     * 配置类的 class 文件，初始化时读取，避免重新加载时磁盘上的文件已被新版本覆盖
+     */
+    private final byte[] classFile;
+
+    /**
+     * 带参 Bean 缓存：键为 Bean 名称和参数组合
+     */
+    final BoundedCache<Variant, Object> variants;
+
+    /**
+     * 拦截器织入，@Bean 方法的返回值经过它之后才缓存
+     */
+    private final InterceptorWeaver weaver;
+
+    /**
+     * 单例创建后在其中注册 @Subscribe 方法
+     */
+    private final EventBus events;
+
+    /**
+     * 重新加载期间在新快照中创建的单例：快照发布之前只校验不注册 @Subscribe 方法，
+     * 发布后与被替换的旧单例一起在 EventBus 中原子地替换；为 null 时创建后立即注册。由本对象的锁保护
+     */
+    List<Object> unpublished;
+
+    /**
+     * 本快照在 EventBus 中注册的全部单例，包括从上一个快照沿用的；重新加载时据此注销被替换的单例。由本对象的锁保护
+     */
+    private final List<Object> subscribers = new ArrayList<>();
+
+    /**
+     * 已被新快照取代：之后在本快照中创建完成的单例不再注册 @Subscribe 方法。由本对象的锁保护
+     */
+    private boolean retired;
+
+    /**
+     * @RequestScoped Bean 的名称到作用域槽位的映射；槽位按依赖顺序分配，被依赖的 Bean 下标更小
+     */
+    final Map<String, Integer> scopedSlots = new HashMap<>();
+
+    /**
+     * 按槽位排列的 @RequestScoped Bean 方法
+     */
+    final Method[] scopedMethods;
+
+    /**
+     * @RequestScoped Bean 的类型，用于判断集合注入是否可以缓存
+     */
+    final List<Class<?>> scopedTypes = new ArrayList<>();
+
+    Registry(Class<?> clazz, int variantCacheSize, InterceptorWeaver weaver, EventBus events)
+            throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        this.variants = new BoundedCache<>(variantCacheSize);
+        this.weaver = weaver;
+        this.events = events;
+        Method[] declaredMethods = clazz.getDeclaredMethods();
+        Map<Class<?>, Method> providers = new HashMap<>();
+        for (Method declaredMethod : declaredMethods) {
+            if (declaredMethod.isAnnotationPresent(Bean.class)) {
+                providers.put(beanType(declaredMethod), declaredMethod);
+            }
+        }
+        for (Method declaredMethod : declaredMethods) {
+            if (!declaredMethod.isAnnotationPresent(Bean.class)) {
+                continue;
+            }
+            if (requiresArguments(declaredMethod, providers)) {
+                this.parameterized.put(declaredMethod.getName(), declaredMethod);
+                this.parameterizedTypes.put(beanType(declaredMethod), declaredMethod);
+            } else {
+                // 保存返回类型到方法的映射，异步 Bean 按 Future 的结果类型保存
+                this.methods.put(beanType(declaredMethod), declaredMethod);
+                this.beanMethods.put(declaredMethod.getName(), declaredMethod);
+            }
+        }
+        for (Map.Entry<String, Method> entry : this.beanMethods.entrySet()) {
+            Set<String> names = new LinkedHashSet<>();
+            for (Type type : entry.getValue().getGenericParameterTypes()) {
+                Class<?> elementType = elementType(type);
+                if (elementType != null) {
+                    for (Map.Entry<String, Method> candidate : this.beanMethods.entrySet()) {
+                        if (elementType.isAssignableFrom(beanType(candidate.getValue()))) {
+                            names.add(candidate.getKey());
+                        }
+                    }
+                } else if (this.methods.containsKey(erase(type))) {
+                    names.add(this.methods.get(erase(type)).getName());
+                } else {
+                    throw new IllegalStateException("Bean " + entry.getKey() + " 依赖的 " + type.getTypeName()
+                            + " 只由带参 Bean " + this.parameterizedTypes.get(erase(type)).getName() + " 提供");
+                }
+            }
+            this.dependencies.put(entry.getKey(), names);
+        }
+        checkAcyclic();
+        List<String> scoped = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String name : this.beanMethods.keySet()) {
+            orderScoped(name, visited, scoped);
+        }
+        this.scopedMethods = new Method[scoped.size()];
+        for (int i = 0; i < scoped.size(); i++) {
+            this.scopedSlots.put(scoped.get(i), i);
+            this.scopedMethods[i] = this.beanMethods.get(scoped.get(i));
+            this.scopedTypes.add(beanType(this.scopedMethods[i]));
+        }
+        for (Map.Entry<String, Set<String>> entry : this.dependencies.entrySet()) {
+            if (this.scopedSlots.containsKey(entry.getKey())) {
+                continue;
+            }
+            for (String dependency : entry.getValue()) {
+                if (this.scopedSlots.containsKey(dependency)) {
+                    throw new IllegalStateException("单例 Bean " + entry.getKey() + " 不能依赖 @RequestScoped Bean "
+                            + dependency);
+                }
+            }
+        }
+        this.classFile = classBytes(clazz);
+        // 实例化配置类，用于后续生成 Bean
+        this.config = clazz.getConstructor().newInstance();
+    }
+
+    /**
+     * 判断 @Bean 方法是否需要显式参数：某个非集合参数的类型没有任何 @Bean 提供
+     */
+    private static boolean requiresArguments(Method method, Map<Class<?>, Method> providers) {
+        for (Type type : method.getGenericParameterTypes()) {
+            if (elementType(type) == null && !providers.containsKey(erase(type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 深度优先遍历依赖图，发现环时抛出 IllegalStateException
+     */
+    private void checkAcyclic() {
+        Map<String, Boolean> visited = new HashMap<>();
+        for (String name : this.beanMethods.keySet()) {
+            visit(name, visited, new ArrayDeque<>());
+        }
+    }
+
+    private void visit(String name, Map<String, Boolean> visited, Deque<String> path) {
+        Boolean done = visited.get(name);
+        if (Boolean.TRUE.equals(done)) {
+            return;
+        }
+        path.addLast(name);
+        if (done != null) {
+            throw new IllegalStateException("@Bean 方法之间存在循环依赖: " + String.join(" -> ", path));
+        }
+        visited.put(name, false);
+        for (String dependency : this.dependencies.get(name)) {
+            visit(dependency, visited, path);
+        }
+        visited.put(name, true);
+        path.removeLast();
+    }
+
+    /**
+     * 按依赖的后序遍历收集 @RequestScoped Bean，保证被依赖的 Bean 排在前面
+     */
+    private void orderScoped(String name, Set<String> visited, List<String> order) {
+        if (!visited.add(name)) {
+            return;
+        }
+        for (String dependency : this.dependencies.get(name)) {
+            orderScoped(dependency, visited, order);
+        }
+        if (this.beanMethods.get(name).isAnnotationPresent(RequestScoped.class)) {
+            order.add(name);
+        }
+    }
+
+    /**
+     * 计算 Bean 名称到 @Bean 方法指纹的映射，无法读取 class 文件时返回空 Map（所有 Bean 均视为已变化）；
+     * 每个指纹都并入配置类构造器和静态初始化的指纹
+     */
+    Map<String, String> fingerprints() {
+        if (this.classFile == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> methodFingerprints = MethodFingerprints.of(ClassFile.read(ByteBuffer.wrap(this.classFile)));
+        // 构造器（包括实例字段的初始化）和静态初始化决定 @Bean 方法读取的字段，其变化影响全部 Bean
+        String initializers = methodFingerprints.getOrDefault("<init>()V", "")
+                + methodFingerprints.getOrDefault("<clinit>()V", "");
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, Method> entry : this.beanMethods.entrySet()) {
+            Method method = entry.getValue();
+            String descriptor = MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                    .toMethodDescriptorString();
+            String fingerprint = methodFingerprints.get(entry.getKey() + descriptor);
+            result.put(entry.getKey(), fingerprint == null ? null : fingerprint + initializers);
+        }
+        return result;
+    }
+
+    /**
+     * 沿依赖图反向查找所有直接或间接依赖给定 Bean 的 Bean
+     *
+     * @param names Bean 名称
+     * @return 给定的 Bean 及其全部依赖方
+     */
+    Set<String> dependents(Set<String> names) {
+        Map<String, List<String>> reverse = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : this.dependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                reverse.computeIfAbsent(dependency, key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        Set<String> result = new LinkedHashSet<>(names);
+        Deque<String> queue = new ArrayDeque<>(names);
+        while (!queue.isEmpty()) {
+            for (String dependent : reverse.getOrDefault(queue.poll(), List.of())) {
+                if (result.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取 Bean 的 Future：首个请求者负责创建，其余请求者共享同一个 Future
+     *
+     * @param name    Bean 名称
+     * @param offload 为 true 时在虚拟线程上调用 @Bean 方法，否则在当前线程调用
+     * @return 创建中或已完成的 Future
+     */
+    CompletableFuture<Object> beanFuture(String name, boolean offload) {
+        try {
+            requireSingleton(name);
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Object> future = this.beans.get(name);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        future = this.beans.putIfAbsent(name, created);
+        if (future != null) {
+            return future;
+        }
+        Method method = this.beanMethods.get(name);
+        if (offload) {
+            Container.EXECUTOR.execute(() -> createBean(name, method, created, true));
+        } else {
+            createBean(name, method, created, false);
+        }
+        return created;
+    }
+
+    /**
+     * 检查 Bean 不是 @RequestScoped
+     *
+     * @param name Bean 名称
+     * @throws IllegalStateException Bean 是 @RequestScoped 时抛出
+     */
+    void requireSingleton(String name) {
+        if (this.scopedSlots.containsKey(name)) {
+            throw new IllegalStateException("@RequestScoped Bean " + name + " 只能通过 RequestScope 获取");
+        }
+    }
+
+    /**
+     * 检查名称不对应带参 Bean
+     *
+     * @param name Bean 名称
+     * @throws IllegalStateException 带参 Bean 需要显式参数，不能按名称直接获取
+     */
+    void requireNoArguments(String name) {
+        if (this.parameterized.containsKey(name)) {
+            throw argumentsRequired(name);
+        }
+    }
+
+    /**
+     * 检查类型不只由带参 Bean 提供
+     *
+     * @param clazz 服务类型
+     * @throws IllegalStateException 带参 Bean 需要显式参数，不能按类型直接获取
+     */
+    void requireNoArguments(Class<?> clazz) {
+        Method method = this.parameterizedTypes.get(clazz);
+        if (method != null) {
+            throw argumentsRequired(method.getName());
+        }
+    }
+
+    /**
+     * 检查参数可以注入：集合注入总是可以（没有匹配的 Bean 时为空），其余参数需要有对应的单例 Bean
+     *
+     * @param type 参数的泛型类型
+     * @throws IllegalStateException 没有对应的 Bean，或只由带参 Bean 提供时抛出
+     */
+    void requireInjectable(Type type) {
+        if (elementType(type) == null && !this.methods.containsKey(erase(type))) {
+            throw unresolvable(erase(type));
+        }
+    }
+
+    private IllegalStateException unresolvable(Class<?> clazz) {
+        Method parameterized = this.parameterizedTypes.get(clazz);
+        return parameterized != null ? argumentsRequired(parameterized.getName())
+                : new IllegalStateException("没有类型为 " + clazz.getName() + " 的 Bean");
+    }
+
+    static IllegalStateException argumentsRequired(String name) {
+        return new IllegalStateException("带参 Bean " + name
+                + " 需要显式参数，请通过 getServiceInstanceByName(name, args...) 获取");
+    }
+
+    /**
+     * 检查依赖类型（包括集合注入的元素类型）不对应 @RequestScoped Bean
+     *
+     * @param type 参数的泛型类型
+     * @throws IllegalStateException 依赖 @RequestScoped Bean 时抛出
+     */
+    void requireSingleton(Type type) {
+        Class<?> elementType = elementType(type);
+        if (elementType != null) {
+            for (Map.Entry<String, Method> entry : this.beanMethods.entrySet()) {
+                if (elementType.isAssignableFrom(beanType(entry.getValue()))) {
+                    requireSingleton(entry.getKey());
+                }
+            }
+        } else if (this.methods.containsKey(erase(type))) {
+            requireSingleton(this.methods.get(erase(type)).getName());
+        }
+    }
+
+    /**
+     * 获取 Bean 的 Future：先从 layer（请求作用域或子容器的覆盖层）中获取，layer 不负责该 Bean 时按单例获取
+     *
+     * @param name    Bean 名称
+     * @param offload 为 true 时在虚拟线程上创建单例
+     * @param layer   请求作用域或覆盖层，为 null 时获取 @RequestScoped Bean 会失败
+     * @return 创建中或已完成的 Future
+     */
+    CompletableFuture<Object> beanFuture(String name, boolean offload, Layer layer) {
+        if (layer != null) {
+            CompletableFuture<Object> future = layer.beanFuture(name, offload);
+            if (future != null) {
+                return future;
+            }
+        }
+        return beanFuture(name, offload);
+    }
+
+    /**
+     * 解析 @Bean 方法的参数后调用它，注册其 @Subscribe 方法后用结果完成 Future；
+     * 返回 CompletableFuture 的异步 Bean 在其完成时再完成
+     */
+    private void createBean(String name, Method method, CompletableFuture<Object> created, boolean offload) {
+        build(method, offload, null).whenComplete((obj, e) -> {
+            if (e == null) {
+                try {
+                    subscribe(obj);
+                } catch (IllegalArgumentException invalid) {
+                    this.beans.remove(name, created);
+                    created.completeExceptionally(invalid);
+                    return;
+                }
+                created.complete(obj);
+            } else {
+                // 创建失败的 Bean 不缓存，下次请求时重新创建
+                this.beans.remove(name, created);
+                created.completeExceptionally(Container.unwrap(e));
+            }
+        });
+    }
+
+    /**
+     * 注册单例的 @Subscribe 方法；快照尚未发布时只校验，留到发布时注册，快照退役后只校验
+     */
+    private synchronized void subscribe(Object bean) {
+        if (this.unpublished != null || this.retired) {
+            EventBus.validate(bean);
+            if (!this.retired) {
+                this.unpublished.add(bean);
+            }
+            return;
+        }
+        this.events.register(bean);
+        this.subscribers.add(bean);
+    }
+
+    /**
+     * 记录从上一个快照沿用的单例，它们已经在 EventBus 中注册
+     *
+     * @param beans 沿用的单例
+     */
+    synchronized void inherit(Collection<Object> beans) {
+        this.subscribers.addAll(beans);
+    }
+
+    /**
+     * 发布快照：之后创建的单例直接注册
+     *
+     * @return 发布之前创建的单例
+     */
+    synchronized List<Object> publish() {
+        List<Object> created = this.unpublished;
+        this.unpublished = null;
+        this.subscribers.addAll(created);
+        return created;
+    }
+
+    /**
+     * 快照被取代：之后创建完成的单例不再注册
+     *
+     * @return 本快照注册过的全部单例
+     */
+    synchronized List<Object> retire() {
+        this.retired = true;
+        return new ArrayList<>(this.subscribers);
+    }
+
+    /**
+     * 解析 @Bean 方法的参数并调用它
+     */
+    CompletionStage<Object> build(Method method, boolean offload, Layer layer) {
+        return resolveArguments(method, offload, layer).thenCompose(arguments -> invoke(method, arguments));
+    }
+
+    /**
+     * 获取带参 Bean 的 Future：命中缓存时直接返回，否则用显式参数调用 @Bean 方法
+     */
+    CompletableFuture<Object> variantFuture(Method method, Object[] arguments) {
+        String name = method.getName();
+        if (arguments.length != method.getParameterCount()) {
+            throw new IllegalArgumentException("@Bean 方法 " + name + " 需要 " + method.getParameterCount()
+                    + " 个参数，实际传入 " + arguments.length + " 个");
+        }
+        Object[] copy = arguments.clone();
+        return this.variants.get(new Variant(name, Arrays.asList(copy)), variant -> invoke(method, copy));
+    }
+
+    /**
+     * 调用 @Bean 方法并织入拦截器，返回 CompletionStage 的异步 Bean 在其完成后织入
+     */
+    @SuppressWarnings("unchecked")
+    private CompletionStage<Object> invoke(Method method, Object[] arguments) {
+        try {
+            Object obj = method.invoke(this.config, arguments);
+            if (obj instanceof CompletionStage<?> stage) {
+                return ((CompletionStage<Object>) stage).thenApply(this::weave);
+            }
+            return CompletableFuture.completedFuture(this.weaver.weave(obj));
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Object weave(Object bean) {
+        try {
+            return this.weaver.weave(bean);
+        } catch (IllegalAccessException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 获取所有类型匹配的 Bean：先启动全部 Bean 的创建，再等待它们完成
+     */
+    <T> CompletableFuture<Map<String, T>> serviceMapFuture(Class<T> clazz, boolean offload, Layer layer) {
+        List<String> names = new ArrayList<>();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (Map.Entry<String, Method> entry : this.beanMethods.entrySet()) {
+            if (clazz.isAssignableFrom(beanType(entry.getValue()))) {
+                names.add(entry.getKey());
+                futures.add(beanFuture(entry.getKey(), offload, layer));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, T> result = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                result.put(names.get(i), clazz.cast(futures.get(i).join()));
+            }
+            return Collections.unmodifiableMap(result);
+        });
+    }
+
+    /**
+     * 并发解析构造器或 @Bean 方法的全部参数
+     */
+    CompletableFuture<Object[]> resolveArguments(Executable executable, boolean offload, Layer layer) {
+        Type[] parameterTypes = executable.getGenericParameterTypes();
+        if (parameterTypes.length == 0) {
+            return CompletableFuture.completedFuture(new Object[0]);
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[parameterTypes.length];
+        // 为每个参数获取依赖实例
+        for (int i = 0; i < parameterTypes.length; i++) {
+            futures[i] = resolveDependency(parameterTypes[i], offload, layer);
+        }
+        return CompletableFuture.allOf(futures).thenApply(ignored -> {
+            Object[] arguments = new Object[futures.length];
+            for (int i = 0; i < futures.length; i++) {
+                arguments[i] = futures[i].join();
+            }
+            return arguments;
+        });
+    }
+
+    /**
+     * 解析参数对应的依赖：
+     * List&lt;T&gt;、Collection&lt;T&gt; 注入所有类型匹配的 Bean，Map&lt;String, T&gt; 注入 Bean 名称到实例的映射，
+     * 集合按泛型类型缓存，其余类型按类型获取单例 Bean
+     *
+     * @param type    参数的泛型类型
+     * @param offload 是否在虚拟线程上创建尚未创建的 Bean
+     * @param layer   请求作用域或子容器的覆盖层，其中的 Bean 优先
+     * @return 完成时得到依赖实例的 Future；没有对应的单例 Bean 时以 IllegalStateException 完成，不注入 null
+     */
+    CompletableFuture<?> resolveDependency(Type type, boolean offload, Layer layer) {
+        Class<?> elementType = elementType(type);
+        if (elementType != null) {
+            // 包含 @RequestScoped Bean 或被覆盖 Bean 的集合随作用域和子容器不同，不缓存
+            boolean cacheable = this.scopedTypes.stream().noneMatch(elementType::isAssignableFrom)
+                    && (layer == null || !layer.shadows(elementType));
+            Object cached = cacheable ? this.collections.get(type) : null;
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            boolean isMap = erase(type) == Map.class;
+            return serviceMapFuture(elementType, offload, layer).thenApply(map -> {
+                Object collection = isMap ? map : List.copyOf(map.values());
+                if (!cacheable) {
+                    return collection;
+                }
+                Object previous = this.collections.putIfAbsent(type, collection);
+                return previous != null ? previous : collection;
+            });
+        }
+        Class<?> clazz = erase(type);
+        Method method = this.methods.get(clazz);
+        if (method == null) {
+            return CompletableFuture.failedFuture(unresolvable(clazz));
+        }
+        if (layer != null) {
+            CompletableFuture<Object> future = layer.beanFuture(method.getName(), offload);
+            if (future != null) {
+                return future;
+            }
+        }
+        Object service = this.services.get(clazz);
+        if (service != null) {
+            return CompletableFuture.completedFuture(service);
+        }
+        return beanFuture(method.getName(), offload).thenApply(obj -> {
+            if (obj != null) {
+                this.services.putIfAbsent(clazz, obj);
+            }
+            return obj;
+        });
+    }
+
+    /**
+     * 获取 @Bean 方法注册的类型：返回 CompletableFuture&lt;T&gt; 等 CompletionStage 时取 T，否则取返回类型
+     *
+     * @param method @Bean 方法
+     * @return Bean 类型
+     */
+    static Class<?> beanType(Method method) {
+        if (CompletionStage.class.isAssignableFrom(method.getReturnType())
+                && method.getGenericReturnType() instanceof ParameterizedType parameterizedType) {
+            return erase(parameterizedType.getActualTypeArguments()[0]);
+        }
+        return method.getReturnType();
+    }
+
+    /**
+     * 将泛型类型擦除为对应的 Class，通配符取其上界
+     *
+     * @param type 泛型类型
+     * @return 擦除后的类型
+     */
+    static Class<?> erase(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        } else if (type instanceof ParameterizedType parameterizedType) {
+            return (Class<?>) parameterizedType.getRawType();
+        } else if (type instanceof WildcardType wildcardType) {
+            return erase(wildcardType.getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * 判断参数类型是否为集合注入：List&lt;T&gt;、Collection&lt;T&gt; 或 Map&lt;String, T&gt;
+     *
+     * @param type 参数的泛型类型
+     * @return 集合注入时返回元素类型，否则返回 null
+     */
+    static Class<?> elementType(Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            if (rawType == List.class || rawType == Collection.class
+                    || rawType == Map.class && arguments[0] == String.class) {
+                return erase(arguments[arguments.length - 1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取类的 class 文件，用于计算方法指纹
+     *
+     * @param clazz 类
+     * @return class 文件内容，无法读取（例如运行时生成的类）时返回 null
+     */
+    private static byte[] classBytes(Class<?> clazz) {
+        try (InputStream input = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            return input == null ? null : input.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 带参 Bean 缓存的键
+     *
+     * @param name      Bean 名称
+     * @param arguments 参数列表，按元素的 equals 比较
+     */
+    private record Variant(String name, List<Object> arguments) {
+    }
+}
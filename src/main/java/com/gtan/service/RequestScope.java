@@ -0,0 +1,226 @@
+package com.gtan.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 请求作用域：
+ * 1. 每个 @RequestScoped Bean 在快照中有固定的槽位，作用域只持有一个按槽位索引的数组，
+ * 打开作用域只分配三个对象（作用域本身、槽位数组和作为依赖来源的 Layer），查找是一次数组读取，
+ * 不使用 ThreadLocal 或按线程保存的 Map
+ * 2. 槽位中保存 Bean 的 Future，通过 CAS 占用：同一请求派生的多个虚拟线程并发获取同一个 Bean 时只创建一次，
+ * 创建失败时清空槽位，下次获取重新创建
+ * 3. 关闭时逐个把槽位换成关闭标记：并发获取的 CAS 要么先占用槽位、由关闭方负责关闭其 Bean，要么看到标记而失败；
+ * 已创建完成的 AutoCloseable Bean 按依赖的逆序立即关闭，仍在创建中的 Bean 在创建完成时关闭；关闭后不能再使用
+ *
+ * <p>由 {@link Container#openRequestScope()} 创建
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class RequestScope implements AutoCloseable {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final VarHandle STATE;
+
+    /**
+     * 关闭后槽位中的标记
+     */
+    private static final Object CLOSED = new Object();
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(RequestScope.class, "closed", boolean.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Container container;
+
+    private final Registry registry;
+
+    /**
+     * 打开作用域的子容器的覆盖层，根容器为 null
+     */
+    private final Layer parent;
+
+    /**
+     * 按槽位保存的 Bean Future，关闭后每个槽位都是 {@link #CLOSED}
+     */
+    private final Object[] slots;
+
+    private volatile boolean closed;
+
+    /**
+     * 作为依赖解析的 Bean 来源：@RequestScoped Bean 从槽位获取，其余交给子容器的覆盖层
+     */
+    private final Layer layer = new Layer() {
+
+        @Override
+        public CompletableFuture<Object> beanFuture(String name, boolean offload) {
+            Integer slot = registry.scopedSlots.get(name);
+            if (slot != null) {
+                return future(slot);
+            }
+            return parent == null ? null : parent.beanFuture(name, offload);
+        }
+
+        @Override
+        public boolean shadows(Class<?> type) {
+            return registry.scopedTypes.stream().anyMatch(type::isAssignableFrom)
+                    || parent != null && parent.shadows(type);
+        }
+    };
+
+    RequestScope(Container container, Registry registry, Layer parent) {
+        this.container = container;
+        this.registry = registry;
+        this.parent = parent;
+        this.slots = new Object[registry.scopedMethods.length];
+    }
+
+    /**
+     * 按类型获取 Bean：@RequestScoped Bean 在本作用域中共享，其余类型按单例获取
+     *
+     * @param clazz 服务类型
+     * @return 对应类型的 Bean，若未定义则返回 null
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalStateException     作用域已关闭时抛出
+     */
+    public Object getServiceInstanceByClass(Class<?> clazz) throws InvocationTargetException,
+            IllegalAccessException {
+        checkOpen();
+        if (!this.registry.methods.containsKey(clazz)) {
+            this.registry.requireNoArguments(clazz);
+            return null;
+        }
+        return Container.join(this.registry.resolveDependency(clazz, false, this.layer));
+    }
+
+    /**
+     * 按名称获取 Bean，规则同 {@link #getServiceInstanceByClass(Class)}
+     *
+     * @param name Bean 名称
+     * @return 对应名称的 Bean，若未定义则返回 null
+     * @throws InvocationTargetException 方法调用失败时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws IllegalStateException     作用域已关闭时抛出
+     */
+    public Object getServiceInstanceByName(String name) throws InvocationTargetException, IllegalAccessException {
+        checkOpen();
+        if (!this.registry.beanMethods.containsKey(name)) {
+            this.registry.requireNoArguments(name);
+            return null;
+        }
+        return Container.join(this.registry.beanFuture(name, false, this.layer));
+    }
+
+    /**
+     * 创建实例，@Autowired 构造器的 @RequestScoped 依赖从本作用域中获取；实例本身不缓存
+     *
+     * @param clazz 目标类类型
+     * @return 创建好的实例对象
+     * @throws InvocationTargetException 构造器调用失败时抛出
+     * @throws IllegalAccessException    构造器访问受限时抛出
+     * @throws InstantiationException    无法实例化类时抛出
+     * @throws NoSuchMethodException     找不到对应构造器时抛出
+     * @throws IllegalStateException     作用域已关闭时抛出
+     */
+    public Object createInstance(Class<?> clazz) throws InvocationTargetException, IllegalAccessException,
+            InstantiationException, NoSuchMethodException {
+        checkOpen();
+        return this.container.createInstance(clazz, this.registry, this.layer, true);
+    }
+
+    /**
+     * 关闭作用域：把全部槽位换成关闭标记，并按依赖的逆序（依赖方先关闭）关闭已创建完成的 AutoCloseable Bean；
+     * 仍在创建中的 Bean 在创建完成的线程上关闭，失败交给该线程的 UncaughtExceptionHandler；重复关闭没有效果
+     *
+     * @throws IllegalStateException 关闭某个 Bean 失败时抛出，其余 Bean 仍会关闭，后续失败作为 suppressed 附加
+     */
+    @Override
+    public void close() {
+        if (!STATE.compareAndSet(this, false, true)) {
+            return;
+        }
+        IllegalStateException failure = null;
+        for (int i = this.slots.length - 1; i >= 0; i--) {
+            if (!(SLOTS.getAndSet(this.slots, i, CLOSED) instanceof CompletableFuture<?> future)) {
+                continue;
+            }
+            if (!future.isDone()) {
+                future.whenComplete((obj, e) -> {
+                    if (obj instanceof AutoCloseable closeable) {
+                        try {
+                            closeable.close();
+                        } catch (Exception closeFailure) {
+                            Thread thread = Thread.currentThread();
+                            thread.getUncaughtExceptionHandler().uncaughtException(thread,
+                                    new IllegalStateException("关闭 @RequestScoped Bean 失败", closeFailure));
+                        }
+                    }
+                });
+            } else if (!future.isCompletedExceptionally() && future.join() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("关闭 @RequestScoped Bean 失败", e);
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 获取槽位中的 Bean，首个请求者负责创建
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> future(int slot) {
+        Object[] slots = this.slots;
+        Object current = SLOTS.getAcquire(slots, slot);
+        if (current == null) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            current = SLOTS.compareAndExchange(slots, slot, (Object) null, (Object) created);
+            if (current == null) {
+                return create(slot, created);
+            }
+        }
+        if (current == CLOSED) {
+            return CompletableFuture.failedFuture(new IllegalStateException("RequestScope 已关闭"));
+        }
+        return (CompletableFuture<Object>) current;
+    }
+
+    /**
+     * 创建槽位中的 Bean；失败时清空槽位，关闭后槽位已是关闭标记，不再清空
+     */
+    private CompletableFuture<Object> create(int slot, CompletableFuture<Object> created) {
+        this.registry.build(this.registry.scopedMethods[slot], false, this.layer).whenComplete((obj, e) -> {
+            if (e == null) {
+                created.complete(obj);
+            } else {
+                SLOTS.compareAndSet(this.slots, slot, (Object) created, (Object) null);
+                created.completeExceptionally(Container.unwrap(e));
+            }
+        });
+        return created;
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("RequestScope 已关闭");
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.gtan.tools;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Cacheable;
+import com.gtan.annotation.RequestScoped;
+import com.gtan.annotation.Subscribe;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionStage;
+import java.util.regex.Pattern;
+
+/**
+ * 构建期生成 GraalVM native-image 的可达性元数据（reflect-config.json、resource-config.json）：
+ * 沿 @Bean / @Autowired 依赖图只登记容器实际反射访问的成员，不使用 allDeclaredMethods 之类的整类登记
+ * 1. 配置类：Class.forName 按名称加载，getDeclaredMethods 查找 @Bean，无参构造器（getConstructor().newInstance），
+ * 以及全部 @Bean 方法（Method.invoke），包括需要调用方传入参数的带参 Bean
+ * 2. createInstance 的目标类型：getDeclaredConstructors 查找 @Autowired 构造器，登记该构造器，没有时为 public 无参构造器；
+ * 构造器参数必须能由单例 @Bean 注入，否则构建期报错。与容器相同，某个参数类型没有 @Bean 提供的方法是带参 Bean，
+ * 其类型不能注入
+ * 3. Bean 声明的类型和目标类型及其父类：只登记 queryAllDeclaredMethods，供拦截器织入和 EventBus 扫描方法注解，不生成调用入口；
+ * 运行时类型比声明类型更具体时（如声明 Person 实际返回 User），需要把实际类型也列为目标类型
+ * 4. 容器查询的注解类型，以及 reload 计算方法指纹时读取的配置类 class 文件（资源）
+ *
+ * <p>拦截器（包括 @Cacheable）和 @Subscribe 在运行时生成类，native image 中不可用；
+ * 元数据只保证 init、按类型/名称获取 Bean 和 createInstance 的反射访问。
+ *
+ * <p>这是构建工具，不属于容器运行时；Bean 类型的推导与 {@link com.gtan.service.Container} 保持一致。
+ * 命令行：{@code NativeMetadataGenerator <输出目录> <配置类> [createInstance 的目标类...]}，
+ * 由 pom.xml 中的 native-metadata profile 在 process-classes 阶段调用
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class NativeMetadataGenerator {
+
+    /**
+     * 容器、拦截器织入和 EventBus 查询的注解
+     */
+    private static final List<Class<?>> ANNOTATIONS = List.of(Bean.class, Autowired.class, RequestScoped.class,
+            Cacheable.class, Subscribe.class);
+
+    private static final Comparator<Member> MEMBER_ORDER = Comparator.comparing(Member::name)
+            .thenComparing(member -> String.join(",", member.parameterTypes()));
+
+    private NativeMetadataGenerator() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 输出目录、配置类名以及 createInstance 的目标类名（可以逗号分隔）
+     * @throws IOException              写入文件失败时抛出
+     * @throws ClassNotFoundException   找不到指定的类时抛出
+     * @throws IllegalArgumentException 参数不足时抛出，消息为用法说明
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("用法: NativeMetadataGenerator <输出目录> <配置类> [createInstance 的目标类...]");
+        }
+        List<Class<?>> instanceTypes = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            // 允许以逗号分隔，空参数（profile 未指定目标类时）忽略
+            for (String name : args[i].split(",")) {
+                if (!name.isBlank()) {
+                    instanceTypes.add(Class.forName(name.strip()));
+                }
+            }
+        }
+        List<Entry> entries = write(Path.of(args[0]), Class.forName(args[1]), instanceTypes.toArray(new Class<?>[0]));
+        System.out.println("wrote " + entries.size() + " reflection entries to " + args[0]);
+    }
+
+    /**
+     * 生成并写入 reflect-config.json 和 resource-config.json
+     *
+     * @param directory     输出目录，通常为 META-INF/native-image/&lt;groupId&gt;/&lt;artifactId&gt;
+     * @param config        配置类
+     * @param instanceTypes createInstance 的目标类
+     * @return 写入的反射条目
+     * @throws IOException 写入文件失败时抛出
+     */
+    public static List<Entry> write(Path directory, Class<?> config, Class<?>... instanceTypes) throws IOException {
+        List<Entry> entries = reflectionEntries(config, instanceTypes);
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("reflect-config.json"), reflectConfig(entries), StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("resource-config.json"), resourceConfig(config), StandardCharsets.UTF_8);
+        return entries;
+    }
+
+    /**
+     * 沿依赖图收集反射条目
+     *
+     * @param config        配置类
+     * @param instanceTypes createInstance 的目标类
+     * @return 按类名排序的条目，成员按名称和参数排序
+     * @throws IllegalArgumentException 配置类没有 public 无参构造器，或目标类的构造器参数无法注入时抛出
+     */
+    public static List<Entry> reflectionEntries(Class<?> config, Class<?>... instanceTypes) {
+        Map<String, EntryBuilder> builders = new TreeMap<>();
+        EntryBuilder configEntry = builder(builders, config);
+        configEntry.queryAllDeclaredMethods = true;
+        configEntry.methods.add(constructor(publicNoArgs(config)));
+        List<Method> beanMethods = new ArrayList<>();
+        Set<Class<?>> providers = new HashSet<>();
+        for (Method method : config.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Bean.class)) {
+                configEntry.methods.add(new Member(method.getName(), parameterTypes(method)));
+                beanMethods.add(method);
+                providers.add(beanType(method));
+            }
+        }
+        // 只有单例 Bean 可以注入；带参 Bean 的类型仍需查询方法，供拦截器织入
+        List<Class<?>> beanTypes = new ArrayList<>();
+        List<Class<?>> queried = new ArrayList<>();
+        for (Method method : beanMethods) {
+            if (!requiresArguments(method, providers)) {
+                beanTypes.add(beanType(method));
+            }
+            queried.add(beanType(method));
+        }
+        for (Class<?> type : instanceTypes) {
+            Executable constructor = autowiredConstructor(type);
+            if (constructor == null) {
+                constructor = publicNoArgs(type);
+            } else {
+                requireInjectable(constructor, beanTypes);
+            }
+            EntryBuilder entry = builder(builders, type);
+            entry.queryAllDeclaredConstructors = true;
+            entry.methods.add(constructor((Constructor<?>) constructor));
+        }
+        queried.addAll(Arrays.asList(instanceTypes));
+        for (Class<?> type : queried) {
+            for (Class<?> c = type; c != null && c != Object.class && !c.isPrimitive(); c = c.getSuperclass()) {
+                builder(builders, c).queryAllDeclaredMethods = true;
+            }
+        }
+        for (Class<?> annotation : ANNOTATIONS) {
+            builder(builders, annotation);
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (EntryBuilder builder : builders.values()) {
+            entries.add(new Entry(builder.name, builder.queryAllDeclaredConstructors, builder.queryAllDeclaredMethods,
+                    List.copyOf(builder.methods)));
+        }
+        return entries;
+    }
+
+    /**
+     * @param entries 反射条目
+     * @return reflect-config.json 的内容
+     */
+    public static String reflectConfig(List<Entry> entries) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            json.append("  {\n    \"name\": ").append(quote(entry.name()));
+            if (entry.queryAllDeclaredConstructors()) {
+                json.append(",\n    \"queryAllDeclaredConstructors\": true");
+            }
+            if (entry.queryAllDeclaredMethods()) {
+                json.append(",\n    \"queryAllDeclaredMethods\": true");
+            }
+            if (!entry.methods().isEmpty()) {
+                json.append(",\n    \"methods\": [\n");
+                for (int j = 0; j < entry.methods().size(); j++) {
+                    Member member = entry.methods().get(j);
+                    json.append("      { \"name\": ").append(quote(member.name())).append(", \"parameterTypes\": [");
+                    for (int k = 0; k < member.parameterTypes().size(); k++) {
+                        json.append(k == 0 ? "" : ", ").append(quote(member.parameterTypes().get(k)));
+                    }
+                    json.append("] }").append(j + 1 < entry.methods().size() ? ",\n" : "\n");
+                }
+                json.append("    ]");
+            }
+            json.append("\n  }").append(i + 1 < entries.size() ? ",\n" : "\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+    /**
+     * @param config 配置类
+     * @return resource-config.json 的内容，只包含配置类的 class 文件
+     */
+    public static String resourceConfig(Class<?> config) {
+        String pattern = Pattern.quote(config.getName().replace('.', '/') + ".class");
+        return "{\n  \"resources\": {\n    \"includes\": [\n      { \"pattern\": " + quote(pattern)
+                + " }\n    ]\n  }\n}\n";
+    }
+
+    private static EntryBuilder builder(Map<String, EntryBuilder> builders, Class<?> type) {
+        return builders.computeIfAbsent(type.getName(), EntryBuilder::new);
+    }
+
+    private static Constructor<?> publicNoArgs(Class<?> type) {
+        try {
+            return type.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " 没有 public 无参构造器", e);
+        }
+    }
+
+    private static Constructor<?> autowiredConstructor(Class<?> type) {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(Autowired.class)) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查构造器的每个参数都能注入：集合注入总是可以（没有匹配的 Bean 时为空），其余参数需要有类型兼容的 @Bean
+     */
+    private static void requireInjectable(Executable executable, List<Class<?>> beanTypes) {
+        for (Type type : executable.getGenericParameterTypes()) {
+            if (elementType(type) != null) {
+                continue;
+            }
+            Class<?> required = erase(type);
+            if (beanTypes.stream().noneMatch(required::isAssignableFrom)) {
+                throw new IllegalArgumentException(executable + " 的参数 " + type.getTypeName() + " 没有对应的 @Bean");
+            }
+        }
+    }
+
+    /**
+     * 与容器相同：某个非集合参数的类型没有任何 @Bean 提供时，方法是需要调用方传参的带参 Bean
+     */
+    private static boolean requiresArguments(Method method, Set<Class<?>> providers) {
+        for (Type type : method.getGenericParameterTypes()) {
+            if (elementType(type) == null && !providers.contains(erase(type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return @Bean 方法提供的类型，返回 CompletionStage&lt;T&gt; 时为 T
+     */
+    private static Class<?> beanType(Method method) {
+        if (CompletionStage.class.isAssignableFrom(method.getReturnType())
+                && method.getGenericReturnType() instanceof ParameterizedType parameterizedType) {
+            return erase(parameterizedType.getActualTypeArguments()[0]);
+        }
+        return method.getReturnType();
+    }
+
+    private static Class<?> erase(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        } else if (type instanceof ParameterizedType parameterizedType) {
+            return (Class<?>) parameterizedType.getRawType();
+        } else if (type instanceof WildcardType wildcardType) {
+            return erase(wildcardType.getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * @return 集合注入（List&lt;T&gt;、Collection&lt;T&gt; 或 Map&lt;String, T&gt;）时返回元素类型，否则返回 null
+     */
+    private static Class<?> elementType(Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            if (rawType == List.class || rawType == Collection.class
+                    || rawType == Map.class && arguments[0] == String.class) {
+                return erase(arguments[arguments.length - 1]);
+            }
+        }
+        return null;
+    }
+
+    private static Member constructor(Constructor<?> constructor) {
+        return new Member("<init>", parameterTypes(constructor));
+    }
+
+    private static List<String> parameterTypes(Executable executable) {
+        return Arrays.stream(executable.getParameterTypes()).map(Class::getTypeName).toList();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * reflect-config.json 中的一个类
+     *
+     * @param name                         类名
+     * @param queryAllDeclaredConstructors 是否允许 getDeclaredConstructors 返回全部构造器（只能查询，不能调用）
+     * @param queryAllDeclaredMethods      是否允许 getDeclaredMethods 返回全部方法（只能查询，不能调用）
+     * @param methods                      可以反射调用的方法和构造器（构造器名为 &lt;init&gt;）
+     */
+    public record Entry(String name, boolean queryAllDeclaredConstructors, boolean queryAllDeclaredMethods,
+                        List<Member> methods) {
+    }
+
+    /**
+     * 可以反射调用的方法或构造器
+     *
+     * @param name           方法名，构造器为 &lt;init&gt;
+     * @param parameterTypes 参数类型名
+     */
+    public record Member(String name, List<String> parameterTypes) {
+    }
+
+    /**
+     * 合并同一个类的多处登记
+     */
+    private static final class EntryBuilder {
+
+        final String name;
+
+        final TreeSet<Member> methods = new TreeSet<>(MEMBER_ORDER);
+
+        boolean queryAllDeclaredConstructors;
+
+        boolean queryAllDeclaredMethods;
+
+        EntryBuilder(String name) {
+            this.name = name;
+        }
+    }
+}
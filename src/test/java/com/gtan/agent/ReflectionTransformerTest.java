@@ -0,0 +1,169 @@
+package com.gtan.agent;
+
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ReflectionTransformerTest：织入 Workload 类中的反射调用点后在独立的类加载器中运行，
+ * 验证织入后的类能通过校验、行为不变，并按调用点和目标成员统计调用次数
+ *
+ * <p>以 {@code mvn test -Preflection-profiler} 运行时，ReflectTest、InstanceFieldMethodTest 等测试本身也会被织入，
+ * 测试结束时输出完整报告
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReflectionTransformerTest {
+
+    private static final int ROUNDS = 1_000;
+
+    /**
+     * 织入后运行 Workload，统计每个调用点的调用次数。
+     *
+     * @throws Exception 读取、织入或运行 Workload 失败时抛出
+     */
+    @Test
+    public void testInstrumentedWorkload() throws Exception {
+        byte[] original = classBytes(Workload.class);
+        byte[] instrumented = new ReflectionTransformer(List.of("com/gtan/")).instrument(original);
+        assertNotNull(instrumented);
+        Class<?> workload = new InstrumentedLoader(Workload.class.getName(), instrumented)
+                .loadClass(Workload.class.getName());
+        Object result = workload.getMethod("run", int.class).invoke(null, ROUNDS);
+        assertEquals("GangTan/secret/100000/" + ROUNDS, result);
+
+        Map<String, Long> calls = ReflectionProfiler.entries().stream()
+                .filter(entry -> entry.location().startsWith(Workload.class.getName() + "."))
+                .collect(Collectors.toMap(entry -> entry.kind() + " " + entry.target(),
+                        ReflectionProfiler.Entry::calls, Long::sum));
+        System.out.print(ReflectionProfiler.report());
+        assertEquals((long) ROUNDS, calls.get("Method.invoke com.gtan.entity.Customer.getName"));
+        assertEquals((long) ROUNDS, calls.get("Method.invoke " + Workload.class.getName() + ".count"));
+        assertEquals(1L, calls.get("Field.get com.gtan.entity.Person.personPrivateField"));
+        assertEquals((long) ROUNDS, calls.get("Field.set com.gtan.entity.Person.personPrivateField"));
+        assertEquals((long) ROUNDS, calls.get("Constructor.newInstance com.gtan.entity.Address.<init>"));
+        assertEquals(1L, calls.get("Class.getDeclaredMethods com.gtan.entity.Customer"));
+        assertEquals(1L, calls.get("Class.getDeclaredFields com.gtan.entity.Person"));
+        assertEquals(1L, calls.get("setAccessible com.gtan.entity.Person.personPrivateField"));
+        // 抛出异常的调用只计次数
+        assertEquals(1L, calls.get("Method.invoke " + Workload.class.getName() + ".fail"));
+        // 调用点位置包含源文件和行号
+        assertTrue(ReflectionProfiler.entries().stream().map(ReflectionProfiler.Entry::location)
+                .anyMatch(location -> location.matches(".*Workload\\.run\\(ReflectionTransformerTest\\.java:\\d+\\)")));
+    }
+
+    /**
+     * 不包含反射调用的类不做任何修改。
+     *
+     * @throws IOException 读取 class 文件失败时抛出
+     */
+    @Test
+    public void testClassWithoutReflectionIsUntouched() throws IOException {
+        assertNull(new ReflectionTransformer(List.of("com/gtan/")).instrument(classBytes(Address.class)));
+    }
+
+    private static byte[] classBytes(Class<?> clazz) throws IOException {
+        try (InputStream input = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * 只用织入后的字节定义指定的类，其余类交给父加载器
+     */
+    private static final class InstrumentedLoader extends ClassLoader {
+
+        private final String name;
+
+        private final byte[] bytes;
+
+        InstrumentedLoader(String name, byte[] bytes) {
+            super(InstrumentedLoader.class.getClassLoader());
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+            if (!className.equals(name)) {
+                return super.loadClass(className, resolve);
+            }
+            synchronized (getClassLoadingLock(className)) {
+                Class<?> clazz = findLoadedClass(className);
+                return clazz != null ? clazz : defineClass(className, bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    /**
+     * 包含各类反射调用的工作负载；循环和 try/catch 确保织入后 StackMapTable 仍然有效
+     */
+    public static class Workload {
+
+        private int counter;
+
+        public static String run(int rounds) throws ReflectiveOperationException {
+            Method getName = Customer.class.getMethod("getName");
+            Method count = Workload.class.getDeclaredMethod("count");
+            Field field = findField(Person.class.getDeclaredFields(), "personPrivateField");
+            field.setAccessible(true);
+            Constructor<Address> constructor = Address.class.getConstructor(String.class, String.class);
+            int methods = Customer.class.getDeclaredMethods().length;
+            Customer customer = new Customer("GangTan", "gangtann@126.com");
+            Person person = new Person();
+            Workload workload = new Workload();
+            String name = null;
+            Address address = null;
+            for (int i = 0; i < rounds; i++) {
+                name = (String) getName.invoke(customer);
+                // 私有方法未调用 setAccessible：桥接方法位于 Workload 中，访问检查仍以 Workload 为调用方
+                count.invoke(workload);
+                field.set(person, "secret");
+                address = constructor.newInstance("China", "100000");
+            }
+            try {
+                Workload.class.getDeclaredMethod("fail").invoke(workload);
+            } catch (InvocationTargetException e) {
+                name = methods > 0 ? name : null;
+            }
+            return name + "/" + field.get(person) + "/" + address.getPostCode() + "/" + workload.counter;
+        }
+
+        private static Field findField(Field[] fields, String name) {
+            for (Field field : fields) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException(name);
+        }
+
+        private void count() {
+            counter++;
+        }
+
+        private void fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Message;
+import com.gtan.entity.Order;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AsyncBeanTest：测试返回 CompletableFuture 的 @Bean 方法，
+ * 包括异步依赖的并发解析以及不阻塞调用线程的 getServiceAsync
+ *
+ * <p>用 CountDownLatch 而不是耗时阈值判断并发：Bean 等待其他 Bean 开始或测试放行，
+ * 若容器串行创建或阻塞调用线程，等待会超时并导致断言失败，结果与机器负载无关
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AsyncBeanTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * Customer 和 Address 各自开始后等待对方也开始：只有两者并发创建时才能都在超时前完成
+     */
+    private static volatile CountDownLatch started = new CountDownLatch(0);
+
+    /**
+     * Message 等待测试放行
+     */
+    private static volatile CountDownLatch release = new CountDownLatch(0);
+
+    /**
+     * Order 依赖的 Customer 和 Address 都是耗时的异步 Bean，两者并发创建。
+     *
+     * @throws Exception 容器初始化或创建实例失败时抛出
+     */
+    @Test
+    public void testAsyncDependenciesResolveConcurrently() throws Exception {
+        started = new CountDownLatch(2);
+        Container container = new Container();
+        container.init(AsyncConfig.class);
+        Order order = (Order) container.createInstance(Order.class);
+        assertEquals("GangTan", order.getCustomer().getName());
+        assertEquals("China", order.getAddress().getStreet());
+        assertSame(order.getCustomer(), container.getServiceInstanceByClass(Customer.class));
+    }
+
+    /**
+     * getServiceAsync 与 createInstanceAsync 立即返回，Bean 和构造器都在虚拟线程上执行。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testNonBlockingApi() throws Exception {
+        started = new CountDownLatch(2);
+        release = new CountDownLatch(1);
+        Container container = new Container();
+        container.init(AsyncConfig.class);
+        CompletableFuture<Message> message = container.getServiceAsync(Message.class);
+        CompletableFuture<Order> order = container.createInstanceAsync(Order.class);
+        // 若调用线程等待了 Message 的创建，Message 会因等不到放行而超时完成
+        assertFalse(message.isDone());
+        release.countDown();
+        assertEquals("Hello World!", message.join().getContent());
+        assertEquals("GangTan", order.join().getCustomer().getName());
+        assertSame(message.join(), container.getServiceAsync(Message.class).join());
+
+        // 依赖已经创建完成时，构造器同样不在调用线程上执行
+        Shipment shipment = container.createInstanceAsync(Shipment.class).join();
+        assertTrue(shipment.constructedOnVirtualThread);
+        assertSame(order.join().getCustomer(), shipment.customer);
+    }
+
+    /**
+     * 异步 Bean 失败时，同步接口抛出 InvocationTargetException，异步接口以异常完成。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testFailedAsyncBean() throws Exception {
+        Container container = new Container();
+        container.init(FailingConfig.class);
+        assertThrows(InvocationTargetException.class, () -> container.getServiceInstanceByClass(Customer.class));
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> container.getServiceAsync(Customer.class).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static <T> CompletableFuture<T> concurrently(T value) {
+        return CompletableFuture.supplyAsync(() -> {
+            CountDownLatch latch = started;
+            latch.countDown();
+            if (!await(latch)) {
+                throw new IllegalStateException("异步依赖没有并发创建");
+            }
+            return value;
+        });
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 记录构造器是否在虚拟线程上执行
+     */
+    public static class Shipment {
+
+        final Customer customer;
+
+        final boolean constructedOnVirtualThread;
+
+        @Autowired
+        public Shipment(Customer customer) {
+            this.customer = customer;
+            this.constructedOnVirtualThread = Thread.currentThread().isVirtual();
+        }
+    }
+
+    /**
+     * 异步 Bean 配置：Customer、Address 返回 Future，Message 为同步但耗时的 Bean
+     */
+    public static class AsyncConfig {
+
+        @Bean
+        public CompletableFuture<Customer> customer() {
+            return concurrently(new Customer("GangTan", "gangtann@126.com"));
+        }
+
+        @Bean
+        public CompletableFuture<Address> address() {
+            return concurrently(new Address("China", "100000"));
+        }
+
+        @Bean
+        public Message message() {
+            if (!await(release)) {
+                throw new IllegalStateException("未被放行");
+            }
+            return new Message("Hello World!");
+        }
+    }
+
+    /**
+     * 异步 Bean 以异常完成的配置
+     */
+    public static class FailingConfig {
+
+        @Bean
+        public CompletableFuture<Customer> customer() {
+            return CompletableFuture.failedFuture(new IllegalStateException("connection refused"));
+        }
+    }
+}
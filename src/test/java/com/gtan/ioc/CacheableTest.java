@@ -0,0 +1,252 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Cacheable;
+import com.gtan.service.BoundedCache;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CacheableTest：测试 @Cacheable 方法按参数缓存结果、并发未命中只计算一次、TTL 过期、异常不缓存，
+ * 对比 LRU 与 LFU 的淘汰结果，并测量命中缓存的调用开销
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CacheableTest {
+
+    /**
+     * 相同参数只计算一次，不同参数分别计算；统计按方法汇总。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testCachedByArguments() throws Exception {
+        Container container = new Container();
+        container.init(CatalogConfig.class);
+        PriceService prices = (PriceService) container.getServiceInstanceByClass(PriceService.class);
+        assertEquals(105, prices.price("sku-1", 5));
+        assertEquals(105, prices.price("sku-1", 5));
+        assertEquals(110, prices.price("sku-1", 10));
+        assertEquals(2, prices.computed());
+
+        BoundedCache.Stats stats = container.getCacheStats()
+                .get(PriceService.class.getDeclaredMethod("price", String.class, int.class));
+        System.out.println(stats + ", hit rate " + stats.hitRate());
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+    }
+
+    /**
+     * 1000 个虚拟线程同时请求同一个冷键，方法只执行一次，全部线程得到同一个结果。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testConcurrentMissesCoalesced() throws Exception {
+        Container container = new Container();
+        container.init(CatalogConfig.class);
+        PriceService prices = (PriceService) container.getServiceInstanceByClass(PriceService.class);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> prices.describe("sku-9"), Thread::startVirtualThread));
+        }
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("sku-9 #1", future.join());
+        }
+        assertEquals(1, prices.described());
+    }
+
+    /**
+     * 超过存活时间的结果重新计算；抛出异常的调用不缓存。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testTtlAndFailures() throws Exception {
+        Container container = new Container();
+        container.init(CatalogConfig.class);
+        PriceService prices = (PriceService) container.getServiceInstanceByClass(PriceService.class);
+        assertEquals(1, prices.stock("sku-1"));
+        assertEquals(1, prices.stock("sku-1"));
+        Thread.sleep(80);
+        assertEquals(2, prices.stock("sku-1"));
+        assertEquals(1, container.getCacheStats()
+                .get(PriceService.class.getDeclaredMethod("stock", String.class)).expirations());
+
+        assertThrows(IllegalArgumentException.class, () -> prices.price("", 1));
+        assertThrows(IllegalArgumentException.class, () -> prices.price("", 1));
+        assertEquals(2, prices.computed());
+    }
+
+    /**
+     * 一个热键反复访问后写入大量一次性的键：LFU 保留热键，LRU 淘汰它。
+     */
+    @Test
+    public void testEvictionPolicies() {
+        BoundedCache<String, String> lru = new BoundedCache<>(4, Duration.ZERO, BoundedCache.Policy.LRU);
+        BoundedCache<String, String> lfu = new BoundedCache<>(4, Duration.ZERO, BoundedCache.Policy.LFU);
+        for (BoundedCache<String, String> cache : List.of(lru, lfu)) {
+            for (int i = 0; i < 10; i++) {
+                cache.get("hot", key -> CompletableFuture.completedFuture(key));
+            }
+            for (int i = 0; i < 8; i++) {
+                cache.get("cold-" + i, key -> CompletableFuture.completedFuture(key));
+            }
+            assertEquals(4, cache.size());
+        }
+        assertEquals(5, lfu.stats().evictions());
+        // 再次读取热键：LRU 中已被淘汰，重新加载计为未命中；LFU 中仍然命中
+        long misses = lru.stats().misses();
+        lru.get("hot", key -> CompletableFuture.completedFuture(key));
+        assertEquals(misses + 1, lru.stats().misses());
+        long hits = lfu.stats().hits();
+        lfu.get("hot", key -> CompletableFuture.completedFuture(key));
+        assertEquals(hits + 1, lfu.stats().hits());
+    }
+
+    /**
+     * 加载函数直接抛出 Error 时返回失败的 Future 且不留下条目，再次读取重新加载；
+     * 不同接收者即使字段相同也不共用缓存结果。
+     *
+     * @throws Exception 容器初始化或创建实例失败时抛出
+     */
+    @Test
+    public void testLoaderFailureAndReceivers() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(4);
+        CompletableFuture<String> failed = cache.get("key", key -> {
+            throw new AssertionError("loader failed");
+        });
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertEquals(0, cache.size());
+        assertEquals("key", cache.get("key", key -> CompletableFuture.completedFuture(key)).join());
+
+        Container container = new Container();
+        container.init(CatalogConfig.class);
+        PriceService first = (PriceService) container.createInstance(PriceService.class);
+        PriceService second = (PriceService) container.createInstance(PriceService.class);
+        assertEquals(101, first.price("sku-1", 1));
+        assertEquals(101, second.price("sku-1", 1));
+        assertEquals(101, first.price("sku-1", 1));
+        assertEquals(1, first.computed());
+        assertEquals(1, second.computed());
+    }
+
+    /**
+     * 命中缓存的调用与直接计算（约 1 微秒）的耗时对比。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testHitOverhead() throws Exception {
+        Container container = new Container();
+        container.init(CatalogConfig.class);
+        PriceService cached = (PriceService) container.getServiceInstanceByClass(PriceService.class);
+        PriceService direct = new PriceService();
+        int iterations = 200_000;
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += direct.checksum(i & 63);
+            }
+            long directTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += cached.checksum(i & 63);
+            }
+            long cachedTime = System.nanoTime() - start;
+            System.out.printf("round %d: computed %.1f ns/op, cached %.1f ns/op%n", round,
+                    (double) directTime / iterations, (double) cachedTime / iterations);
+        }
+        // 两个循环的结果都累加到 sink，避免被 JIT 消除
+        assertEquals(6L * iterations / 64 * sumOfChecksums(direct), sink);
+    }
+
+    private static long sumOfChecksums(PriceService service) {
+        long sum = 0;
+        for (int i = 0; i < 64; i++) {
+            sum += service.checksum(i);
+        }
+        return sum;
+    }
+
+    /**
+     * 带缓存方法的服务；通过 @Bean 获取的实例转发给原实例，计数经由方法读取
+     */
+    public static class PriceService {
+
+        final AtomicInteger computed = new AtomicInteger();
+
+        final AtomicInteger described = new AtomicInteger();
+
+        final AtomicInteger stocked = new AtomicInteger();
+
+        public int computed() {
+            return computed.get();
+        }
+
+        public int described() {
+            return described.get();
+        }
+
+        @Cacheable(maxSize = 256)
+        public int price(String sku, int markup) {
+            computed.incrementAndGet();
+            if (sku.isEmpty()) {
+                throw new IllegalArgumentException("sku 不能为空");
+            }
+            return 100 + markup;
+        }
+
+        @Cacheable
+        public String describe(String sku) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return sku + " #" + described.incrementAndGet();
+        }
+
+        @Cacheable(ttlMillis = 50)
+        public int stock(String sku) {
+            return stocked.incrementAndGet();
+        }
+
+        @Cacheable(maxSize = 64, eviction = Cacheable.Eviction.LFU)
+        public long checksum(int seed) {
+            long hash = seed;
+            for (int i = 0; i < 1000; i++) {
+                hash = hash * 31 + i;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * 配置类
+     */
+    public static class CatalogConfig {
+
+        @Bean
+        public PriceService priceService() {
+            return new PriceService();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.RequestScoped;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.service.Container;
+import com.gtan.service.RequestScope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ChildContainerTest：测试 fork() 创建的子容器只保存覆盖的 Bean 及其依赖方，其余 Bean 与父容器共用，
+ * 多层子容器的查找不随层数变长，并对比 fork 与重新 init 的耗时
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ChildContainerTest {
+
+    /**
+     * 子容器覆盖 Address：依赖 Address 的 Shipping 在子容器中重新创建，Customer 与父容器共用同一个实例。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testOverrideAndInherit() throws Exception {
+        Container parent = new Container();
+        parent.init(TenantConfig.class);
+        Shipping parentShipping = (Shipping) parent.getServiceInstanceByClass(Shipping.class);
+        Customer customer = (Customer) parent.getServiceInstanceByClass(Customer.class);
+        int customers = TenantConfig.CUSTOMERS.get();
+
+        Container tenant = parent.fork();
+        Address berlin = new Address("Germany", "10115");
+        tenant.override(Address.class, berlin);
+        assertSame(berlin, tenant.getServiceInstanceByClass(Address.class));
+        assertSame(berlin, tenant.getServiceInstanceByName("address"));
+        Shipping tenantShipping = (Shipping) tenant.getServiceInstanceByClass(Shipping.class);
+        assertSame(berlin, tenantShipping.address);
+        assertSame(tenantShipping, tenant.getServiceInstanceByName("shipping"));
+        assertSame(customer, tenant.getServiceInstanceByClass(Customer.class));
+        assertSame(customer, tenantShipping.customer);
+        assertEquals(customers, TenantConfig.CUSTOMERS.get());
+
+        // 父容器不受影响
+        assertSame(parentShipping, parent.getServiceInstanceByClass(Shipping.class));
+        assertEquals("100000", ((Address) parent.getServiceInstanceByClass(Address.class)).getPostCode());
+        assertEquals(List.of(berlin), tenant.getServiceInstancesByClass(Address.class));
+
+        // 请求作用域继承子容器的覆盖
+        try (RequestScope scope = tenant.openRequestScope()) {
+            Label label = (Label) scope.getServiceInstanceByClass(Label.class);
+            assertEquals("GangTan, Germany 10115", label.text);
+        }
+    }
+
+    /**
+     * 子容器的子容器继承祖先的覆盖，自己的覆盖不影响祖先。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testNestedForks() throws Exception {
+        Container root = new Container();
+        root.init(TenantConfig.class);
+        Container child = root.fork();
+        Address berlin = new Address("Germany", "10115");
+        child.override("address", berlin);
+        Container grandchild = child.fork();
+        Customer alice = new Customer("Alice", "alice@example.com");
+        grandchild.override(Customer.class, alice);
+
+        Shipping shipping = (Shipping) grandchild.getServiceInstanceByClass(Shipping.class);
+        assertSame(berlin, shipping.address);
+        assertSame(alice, shipping.customer);
+        assertNotSame(alice, child.getServiceInstanceByClass(Customer.class));
+        assertSame(root.getServiceInstanceByClass(Customer.class), child.getServiceInstanceByClass(Customer.class));
+
+        assertThrows(IllegalStateException.class, () -> root.override("address", berlin));
+        assertThrows(IllegalArgumentException.class, () -> child.override("address", "not an address"));
+        assertThrows(IllegalArgumentException.class, () -> child.override("label", null));
+        assertThrows(IllegalStateException.class, () -> child.init(TenantConfig.class));
+    }
+
+    /**
+     * 对比每个租户重新 init 与 fork 一个子容器并覆盖一个 Bean 的耗时。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testForkCost() throws Exception {
+        Container parent = new Container();
+        parent.init(TenantConfig.class);
+        parent.getServiceInstanceByClass(Customer.class);
+        int tenants = 10_000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            List<Container> initialized = new ArrayList<>();
+            for (int i = 0; i < tenants; i++) {
+                Container container = new Container();
+                container.init(TenantConfig.class);
+                initialized.add(container);
+            }
+            long initTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Container> forked = new ArrayList<>();
+            for (int i = 0; i < tenants; i++) {
+                Container tenant = parent.fork();
+                tenant.override(Address.class, new Address("Tenant", String.valueOf(i)));
+                forked.add(tenant);
+            }
+            long forkTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < tenants; i++) {
+                Shipping shipping = (Shipping) forked.get(i).getServiceInstanceByClass(Shipping.class);
+                assertEquals(String.valueOf(i), shipping.address.getPostCode());
+            }
+            long lookupTime = System.nanoTime() - start;
+            assertEquals(tenants, initialized.size());
+            System.out.printf("round %d: init %.2f us/tenant, fork + override %.2f us/tenant, "
+                            + "first lookup of a dependent %.2f us/tenant%n", round, initTime / 1e3 / tenants,
+                    forkTime / 1e3 / tenants, lookupTime / 1e3 / tenants);
+        }
+    }
+
+    /**
+     * 依赖 Address 和 Customer 的 Bean
+     */
+    public static class Shipping {
+
+        final Address address;
+
+        final Customer customer;
+
+        Shipping(Address address, Customer customer) {
+            this.address = address;
+            this.customer = customer;
+        }
+    }
+
+    /**
+     * 请求作用域中依赖 Shipping 的 Bean
+     */
+    public static class Label {
+
+        final String text;
+
+        Label(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 租户配置
+     */
+    public static class TenantConfig {
+
+        static final AtomicInteger CUSTOMERS = new AtomicInteger();
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+
+        @Bean
+        public Customer customer() {
+            CUSTOMERS.incrementAndGet();
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Shipping shipping(Address address, Customer customer) {
+            return new Shipping(address, customer);
+        }
+
+        @Bean
+        @RequestScoped
+        public Label label(Shipping shipping) {
+            return new Label(shipping.customer.getName() + ", " + shipping.address.getStreet() + " "
+                    + shipping.address.getPostCode());
+        }
+    }
+}
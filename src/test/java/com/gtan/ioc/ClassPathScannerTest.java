@@ -0,0 +1,140 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Printable;
+import com.gtan.config.Config;
+import com.gtan.service.ClassPathScanner;
+import com.gtan.service.ClassPathScanner.ScannedClass;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ClassPathScannerTest：直接解析 class 文件查找 @Bean、@Autowired、@Printable，
+ * 并验证扫描过程以及把匹配的配置类交给容器时，都不会加载 User（从而不会执行其静态初始化块）
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ClassPathScannerTest {
+
+    /**
+     * 扫描编译输出目录：Config 包含 @Bean 方法，Order 包含 @Autowired 构造器，Customer 包含 @Printable 方法。
+     *
+     * @throws IOException        读取 class 文件失败时抛出
+     * @throws URISyntaxException 类路径无法转换为文件路径时抛出
+     */
+    @Test
+    public void testScanDirectory() throws IOException, URISyntaxException {
+        long start = System.nanoTime();
+        Map<String, ScannedClass> scanned = index(new ClassPathScanner().scan(classesRoot()));
+        System.out.printf("scanned %s in %d µs%n", scanned.keySet(), (System.nanoTime() - start) / 1_000);
+        assertTrue(scanned.get("com.gtan.config.Config").hasMethodAnnotation(Bean.class));
+        assertTrue(scanned.get("com.gtan.entity.Order").hasConstructorAnnotation(Autowired.class));
+        assertTrue(scanned.get("com.gtan.entity.Customer").hasMethodAnnotation(Printable.class));
+        assertFalse(scanned.containsKey("com.gtan.entity.User"));
+        // 注解类型自身只引用了 @Target 等元注解，不应被识别
+        assertFalse(scanned.containsKey("com.gtan.annotation.Bean"));
+    }
+
+    /**
+     * 将编译输出打包为 jar 后扫描，结果与目录扫描一致。
+     *
+     * @param directory 临时目录
+     * @throws IOException        读写文件失败时抛出
+     * @throws URISyntaxException 类路径无法转换为文件路径时抛出
+     */
+    @Test
+    public void testScanJar(@TempDir Path directory) throws IOException, URISyntaxException {
+        Path root = classesRoot();
+        Path jar = directory.resolve("classes.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                output.putNextEntry(new JarEntry(root.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, output);
+                output.closeEntry();
+            }
+        }
+        ClassPathScanner scanner = new ClassPathScanner();
+        assertEquals(index(scanner.scan(root)).keySet(), index(scanner.scan(jar)).keySet());
+    }
+
+    /**
+     * 在独立的类加载器中扫描并只加载匹配的类，交给容器初始化后，User 仍未被加载。
+     *
+     * @throws Exception 扫描、加载或初始化容器失败时抛出
+     */
+    @Test
+    public void testOnlyMatchingClassesAreLoaded() throws Exception {
+        Path root = classesRoot();
+        try (TrackingClassLoader loader = new TrackingClassLoader(root.toUri().toURL())) {
+            Container container = new Container();
+            for (ScannedClass scanned : new ClassPathScanner().scan(root)) {
+                Class<?> clazz = scanned.load(loader);
+                if (scanned.hasMethodAnnotation(Bean.class)) {
+                    container.init(clazz);
+                }
+            }
+            Object customer = container.getServiceInstanceByClass(loader.loadClass("com.gtan.entity.Customer"));
+            assertNotNull(customer);
+            assertFalse(loader.isLoaded("com.gtan.entity.User"));
+        }
+    }
+
+    private static Path classesRoot() throws URISyntaxException {
+        return Path.of(Config.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static Map<String, ScannedClass> index(List<ScannedClass> scanned) {
+        return scanned.stream().collect(Collectors.toMap(ScannedClass::className, Function.identity()));
+    }
+
+    /**
+     * 独立加载 entity 和 config 包中的类（注解和容器仍由应用类加载器提供），并可查询某个类是否已加载
+     */
+    private static final class TrackingClassLoader extends URLClassLoader {
+
+        TrackingClassLoader(URL root) {
+            super(new URL[]{root}, TrackingClassLoader.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("com.gtan.entity.") && !name.startsWith("com.gtan.config.")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                return clazz != null ? clazz : findClass(name);
+            }
+        }
+
+        boolean isLoaded(String name) {
+            return findLoadedClass(name) != null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CollectionInjectionTest：测试 @Autowired 构造器注入 List&lt;T&gt; 和 Map&lt;String, T&gt;，
+ * 集合中包含所有类型匹配的 Bean，并且每次注入的是同一个预先构建好的不可变集合
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CollectionInjectionTest {
+
+    /**
+     * 注入集合：两个 Customer Bean 都会出现在 List 和 Map 中，普通参数仍按类型注入单例。
+     *
+     * @throws Exception 容器初始化或创建实例失败时抛出
+     */
+    @Test
+    public void testInjectCollections() throws Exception {
+        Container container = new Container();
+        container.init(CollectionConfig.class);
+        CustomerDirectory directory = (CustomerDirectory) container.createInstance(CustomerDirectory.class);
+        assertEquals(2, directory.customers.size());
+        assertEquals(Set.of("customer", "vipCustomer"), directory.customersByName.keySet());
+        assertSame(container.getServiceInstanceByName("vipCustomer"), directory.customersByName.get("vipCustomer"));
+        assertSame(container.getServiceInstanceByClass(Address.class), directory.address);
+        assertThrows(UnsupportedOperationException.class, () -> directory.customers.add(null));
+    }
+
+    /**
+     * 多次注入时交付同一个集合实例，不会重复构建。
+     *
+     * @throws Exception 容器初始化或创建实例失败时抛出
+     */
+    @Test
+    public void testCollectionIsBuiltOnce() throws Exception {
+        Container container = new Container();
+        container.init(CollectionConfig.class);
+        CustomerDirectory first = (CustomerDirectory) container.createInstance(CustomerDirectory.class);
+        CustomerDirectory second = (CustomerDirectory) container.createInstance(CustomerDirectory.class);
+        assertSame(first.customers, second.customers);
+        assertSame(first.customersByName, second.customersByName);
+    }
+
+    /**
+     * 包含两个 Customer Bean 的配置类
+     */
+    public static class CollectionConfig {
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Customer vipCustomer() {
+            return new Customer("VIP", "vip@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+
+    /**
+     * 通过 @Autowired 构造器注入集合的服务
+     */
+    public static class CustomerDirectory {
+
+        private final List<Customer> customers;
+
+        private final Map<String, Customer> customersByName;
+
+        private final Address address;
+
+        @Autowired
+        public CustomerDirectory(List<Customer> customers, Map<String, Customer> customersByName, Address address) {
+            this.customers = customers;
+            this.customersByName = customersByName;
+            this.address = address;
+        }
+    }
+}
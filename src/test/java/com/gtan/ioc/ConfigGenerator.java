@@ -0,0 +1,147 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Bean;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * ConfigGenerator：生成并编译大规模配置类，用于测试容器在数千个 @Bean 方法下的表现
+ * 1. 生成的配置类包含 beans 个 @Bean 方法，每个 Bean 一个独立的类型（容器按类型注入）
+ * 2. Bean 按 depth 个一组串成依赖链：每组第一个 Bean 没有依赖，其余 Bean 的 @Bean 方法以前一个 Bean 为参数，
+ * 同时 Bean 类型本身也有以前一个 Bean 为参数的 @Autowired 构造器
+ * 3. 所有 Bean 实现 Node 接口；Facade 的 @Autowired 构造器注入 List&lt;Node&gt;，创建它即创建整个对象图
+ * 4. 源码用 javax.tools 编译到调用方提供的目录（测试中为 @TempDir，测试结束后删除），由独立的类加载器加载，
+ * 用完后关闭类加载器
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class ConfigGenerator {
+
+    static final String PACKAGE = "com.gtan.generated";
+
+    private ConfigGenerator() {
+    }
+
+    /**
+     * 生成配置类源码
+     *
+     * @param className 类名
+     * @param beans     @Bean 方法个数
+     * @param depth     每条依赖链的长度
+     * @return Java 源码
+     */
+    static String source(String className, int beans, int depth) {
+        StringBuilder source = new StringBuilder(beans * 400);
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import com.gtan.annotation.Autowired;\n")
+                .append("import com.gtan.annotation.Bean;\n")
+                .append("import java.util.List;\n\n")
+                .append("public class ").append(className).append(" {\n\n")
+                .append("    public interface Node {\n        int depth();\n    }\n\n")
+                .append("    public static class Facade {\n")
+                .append("        public final List<Node> nodes;\n\n")
+                .append("        @Autowired\n")
+                .append("        public Facade(List<Node> nodes) {\n            this.nodes = nodes;\n        }\n    }\n");
+        for (int i = 0; i < beans; i++) {
+            boolean head = i % depth == 0;
+            source.append("\n    public static class B").append(i).append(" implements Node {\n");
+            if (head) {
+                source.append("        public int depth() {\n            return 0;\n        }\n    }\n");
+                source.append("\n    @Bean\n    public B").append(i).append(" b").append(i).append("() {\n")
+                        .append("        return new B").append(i).append("();\n    }\n");
+            } else {
+                source.append("        private final B").append(i - 1).append(" parent;\n\n")
+                        .append("        @Autowired\n")
+                        .append("        public B").append(i).append("(B").append(i - 1).append(" parent) {\n")
+                        .append("            this.parent = parent;\n        }\n\n")
+                        .append("        public int depth() {\n            return parent.depth() + 1;\n        }\n    }\n");
+                source.append("\n    @Bean\n    public B").append(i).append(" b").append(i)
+                        .append("(B").append(i - 1).append(" parent) {\n")
+                        .append("        return new B").append(i).append("(parent);\n    }\n");
+            }
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * 生成、编译并加载配置类
+     *
+     * @param directory 写入源码和 class 文件的目录
+     * @param beans     @Bean 方法个数
+     * @param depth     每条依赖链的长度
+     * @return 加载的配置类，嵌套类 B0...B{beans-1}、Node 和 Facade 可以通过其类加载器获取；用完后需要关闭
+     * @throws IOException            写入或编译源码失败时抛出
+     * @throws ClassNotFoundException 编译结果中找不到配置类时抛出
+     */
+    static GeneratedConfig generate(Path directory, int beans, int depth) throws IOException,
+            ClassNotFoundException {
+        String className = "Generated" + beans + "x" + depth;
+        Path sourceFile = directory.resolve(className + ".java");
+        Files.writeString(sourceFile, source(className, beans, depth), StandardCharsets.UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+                StandardCharsets.UTF_8)) {
+            List<String> options = List.of("-d", directory.toString(), "-classpath", classesDirectory().toString(),
+                    "-proc:none", "-g:none");
+            boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(sourceFile)).call();
+            if (!compiled) {
+                StringBuilder message = new StringBuilder("编译 " + sourceFile + " 失败");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    message.append('\n').append(diagnostic);
+                }
+                throw new IOException(message.toString());
+            }
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                ConfigGenerator.class.getClassLoader());
+        try {
+            return new GeneratedConfig(loader.loadClass(PACKAGE + "." + className), loader);
+        } catch (ClassNotFoundException e) {
+            loader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return com.gtan.annotation 所在的编译输出目录
+     */
+    private static Path classesDirectory() throws IOException {
+        try {
+            return Path.of(Bean.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 生成的配置类及加载它的类加载器；关闭后不能再加载其中尚未加载的嵌套类
+     *
+     * @param config 配置类
+     * @param loader 加载配置类的类加载器
+     */
+    record GeneratedConfig(Class<?> config, URLClassLoader loader) implements AutoCloseable {
+
+        @Override
+        public void close() throws IOException {
+            loader.close();
+        }
+    }
+}
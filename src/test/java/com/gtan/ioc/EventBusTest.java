@@ -0,0 +1,238 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Subscribe;
+import com.gtan.entity.Address;
+import com.gtan.service.Container;
+import com.gtan.service.EventBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EventBusTest：测试容器创建 Bean 时注册 @Subscribe 方法、按事件类型及其父类型分派、同步订阅的异常汇总、
+ * 异步订阅按发布顺序批量投递，并对比大量订阅者时发布的吞吐量与逐个 Method.invoke 的差距
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class EventBusTest {
+
+    /**
+     * 已创建的单例收到事件，尚未创建的单例不会收到；私有方法和父类型参数的方法同样可以订阅。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testContainerSubscribers() throws Exception {
+        Container container = new Container();
+        container.init(EventConfig.class);
+        container.publish(new OrderPlaced(0));
+        Inventory inventory = (Inventory) container.getServiceInstanceByClass(Inventory.class);
+        container.getServiceInstanceByClass(Address.class);
+        assertEquals(0, inventory.reserved.size());
+
+        container.publish(new OrderPlaced(1));
+        container.publish("not an order");
+        assertEquals(List.of(1), inventory.reserved);
+        assertEquals(List.of("OrderPlaced 1", "not an order"), inventory.audited);
+        assertEquals(2, container.getEventBus().subscriptionCount());
+
+        // 子容器共享同一个事件总线
+        container.fork().publish(new OrderPlaced(2));
+        assertEquals(List.of(1, 2), inventory.reserved);
+    }
+
+    /**
+     * 同步订阅抛出异常时其余订阅仍会收到事件，异常汇总后抛出；注销后不再收到事件；非法的 @Subscribe 方法注册时报错。
+     */
+    @Test
+    public void testFailuresAndUnregister() {
+        EventBus bus = new EventBus();
+        Inventory inventory = new Inventory();
+        Failing failing = new Failing();
+        bus.register(failing);
+        bus.register(inventory);
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> bus.publish(new OrderPlaced(7)));
+        assertEquals("sold out", failure.getCause().getMessage());
+        assertEquals(List.of(7), inventory.reserved);
+
+        bus.unregister(failing);
+        bus.publish(new OrderPlaced(8));
+        assertEquals(List.of(7, 8), inventory.reserved);
+        assertThrows(IllegalArgumentException.class, () -> bus.register(new Invalid()));
+    }
+
+    /**
+     * 异步订阅在虚拟线程上按发布顺序收到全部事件，不在发布线程上执行。
+     *
+     * @throws Exception 等待被中断时抛出
+     */
+    @Test
+    public void testAsyncBatches() throws Exception {
+        EventBus bus = new EventBus(64);
+        Mailroom mailroom = new Mailroom();
+        bus.register(mailroom);
+        int events = 10_000;
+        for (int i = 0; i < events; i++) {
+            bus.publish(new OrderPlaced(i));
+        }
+        assertTrue(bus.awaitIdle(Duration.ofSeconds(10)));
+        assertEquals(events, mailroom.received.size());
+        for (int i = 0; i < events; i++) {
+            assertEquals(i, mailroom.received.get(i));
+        }
+        assertTrue(mailroom.threads.stream().allMatch(Thread::isVirtual));
+    }
+
+    /**
+     * 1000 个订阅者时每次发布的耗时：逐个 Method.invoke 与事件总线的预编译调用对比。
+     *
+     * @throws Exception 反射调用失败时抛出
+     */
+    @Test
+    public void testPublishThroughput() throws Exception {
+        int subscribers = 1000;
+        int publishes = 20_000;
+        EventBus bus = new EventBus();
+        List<Counter> counters = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            Counter counter = new Counter();
+            counters.add(counter);
+            bus.register(counter);
+        }
+        Method onOrder = Counter.class.getDeclaredMethod("onOrder", OrderPlaced.class);
+        OrderPlaced event = new OrderPlaced(1);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < publishes; i++) {
+                for (Counter counter : counters) {
+                    onOrder.invoke(counter, event);
+                }
+            }
+            long reflective = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < publishes; i++) {
+                bus.publish(event);
+            }
+            long compiled = System.nanoTime() - start;
+            System.out.printf("round %d: %d subscribers, Method.invoke %.1f us/publish (%.2f ns/delivery), "
+                            + "event bus %.1f us/publish (%.2f ns/delivery)%n", round, subscribers,
+                    reflective / 1e3 / publishes, (double) reflective / publishes / subscribers,
+                    compiled / 1e3 / publishes, (double) compiled / publishes / subscribers);
+        }
+        for (Counter counter : counters) {
+            assertEquals(6L * publishes, counter.count);
+        }
+    }
+
+    /**
+     * 事件
+     *
+     * @param id 订单号
+     */
+    public record OrderPlaced(int id) {
+    }
+
+    /**
+     * 订阅 OrderPlaced 和任意事件的 Bean
+     */
+    public static class Inventory {
+
+        final List<Integer> reserved = new CopyOnWriteArrayList<>();
+
+        final List<String> audited = new CopyOnWriteArrayList<>();
+
+        @Subscribe
+        private void reserve(OrderPlaced event) {
+            reserved.add(event.id());
+        }
+
+        @Subscribe
+        public void audit(Object event) {
+            audited.add(event instanceof OrderPlaced order ? "OrderPlaced " + order.id() : event.toString());
+        }
+    }
+
+    /**
+     * 总是失败的订阅者
+     */
+    public static class Failing {
+
+        @Subscribe
+        public void reserve(OrderPlaced event) {
+            throw new IllegalStateException("sold out");
+        }
+    }
+
+    /**
+     * 参数个数错误的订阅者
+     */
+    public static class Invalid {
+
+        @Subscribe
+        public void reserve(OrderPlaced event, String reason) {
+        }
+    }
+
+    /**
+     * 异步订阅者，记录收到的顺序和投递线程
+     */
+    public static class Mailroom {
+
+        final List<Integer> received = new ArrayList<>();
+
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        @Subscribe(async = true)
+        void deliver(OrderPlaced event) {
+            // 同一订阅者同一时刻只有一个线程投递，ArrayList 无需同步；线程只在换批时记录
+            if (threads.isEmpty() || threads.get(threads.size() - 1) != Thread.currentThread()) {
+                threads.add(Thread.currentThread());
+            }
+            received.add(event.id());
+        }
+    }
+
+    /**
+     * 基准测试用的订阅者
+     */
+    public static class Counter {
+
+        long count;
+
+        @Subscribe
+        void onOrder(OrderPlaced event) {
+            count += event.id();
+        }
+    }
+
+    /**
+     * 包含订阅者 Bean 的配置类
+     */
+    public static class EventConfig {
+
+        @Bean
+        public Inventory inventory() {
+            return new Inventory();
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+}
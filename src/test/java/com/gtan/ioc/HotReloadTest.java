@@ -0,0 +1,478 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Subscribe;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Message;
+import com.gtan.entity.Order;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HotReloadTest：测试配置类的增量重新加载，
+ * 只有方法体发生变化的 Bean 及依赖它们的 Bean 会被重建，其余单例原样保留
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class HotReloadTest {
+
+    /**
+     * ConfigV2 只修改了 address() 和 message() 调用的私有方法，
+     * customer 保持不变，依赖 address 的 order 随之重建。
+     *
+     * @throws Exception 容器初始化或重新加载失败时抛出
+     */
+    @Test
+    public void testReloadRebuildsChangedBeansAndDependents() throws Exception {
+        Container container = new Container();
+        container.init(ConfigV1.class);
+        Customer customer = (Customer) container.getServiceInstanceByClass(Customer.class);
+        Address address = (Address) container.getServiceInstanceByClass(Address.class);
+        Order order = (Order) container.getServiceInstanceByClass(Order.class);
+        assertSame(address, order.getAddress());
+
+        long start = System.nanoTime();
+        Set<String> replaced = container.reload(ConfigV2.class);
+        System.out.printf("reloaded %s in %d µs%n", replaced, (System.nanoTime() - start) / 1_000);
+        assertEquals(Set.of("address", "order", "message"), replaced);
+
+        Order reloaded = (Order) container.getServiceInstanceByClass(Order.class);
+        assertNotSame(order, reloaded);
+        assertSame(customer, container.getServiceInstanceByClass(Customer.class));
+        assertSame(customer, reloaded.getCustomer());
+        assertSame(container.getServiceInstanceByClass(Address.class), reloaded.getAddress());
+        assertEquals("200000", reloaded.getAddress().getPostCode());
+        assertEquals("Hello Reload!", ((Message) container.getServiceInstanceByName("message")).getContent());
+    }
+
+    /**
+     * 重新加载内容相同的配置类时不替换任何 Bean。
+     *
+     * @throws Exception 容器初始化或重新加载失败时抛出
+     */
+    @Test
+    public void testReloadUnchangedConfig() throws Exception {
+        Container container = new Container();
+        container.init(ConfigV1.class);
+        Order order = (Order) container.getServiceInstanceByClass(Order.class);
+        assertTrue(container.reload(ConfigV1.class).isEmpty());
+        assertSame(order, container.getServiceInstanceByClass(Order.class));
+    }
+
+    /**
+     * 只修改实例字段的初始值时，@Bean 方法的字节码不变，但构造器变化，所有 Bean 均被重建。
+     *
+     * @throws Exception 容器初始化或重新加载失败时抛出
+     */
+    @Test
+    public void testReloadDetectsFieldInitializerChange() throws Exception {
+        Container container = new Container();
+        container.init(FieldConfigV1.class);
+        assertEquals("100000", ((Address) container.getServiceInstanceByClass(Address.class)).getPostCode());
+        assertEquals(Set.of("customer", "address"), container.reload(FieldConfigV2.class));
+        assertEquals("300000", ((Address) container.getServiceInstanceByClass(Address.class)).getPostCode());
+    }
+
+    /**
+     * createInstance 的构造器参数没有对应的 Bean 时抛出，而不是注入 null。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testMissingDependencyIsRejected() throws Exception {
+        Container container = new Container();
+        container.init(FieldConfigV1.class);
+        assertThrows(IllegalStateException.class, () -> container.createInstance(Greeter.class));
+    }
+
+    /**
+     * 重建失败时保留旧快照，读取方继续看到旧版本的 Bean。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testFailedReloadKeepsPreviousSnapshot() throws Exception {
+        Container container = new Container();
+        container.init(ConfigV1.class);
+        Order order = (Order) container.getServiceInstanceByClass(Order.class);
+        assertThrows(InvocationTargetException.class, () -> container.reload(BrokenConfig.class));
+        assertSame(order, container.getServiceInstanceByClass(Order.class));
+        assertEquals("100000", ((Address) container.getServiceInstanceByClass(Address.class)).getPostCode());
+    }
+
+    /**
+     * 重新加载失败时新建的订阅者不注册，旧订阅者继续收到事件；成功时新旧订阅者一次性替换。
+     *
+     * @throws Exception 容器初始化或重新加载失败时抛出
+     */
+    @Test
+    public void testReloadReplacesSubscribers() throws Exception {
+        Container container = new Container();
+        container.init(SubscriberConfigV1.class);
+        Listener v1 = (Listener) container.getServiceInstanceByClass(Listener.class);
+        container.getServiceInstanceByClass(Address.class);
+        assertEquals(1, container.getEventBus().subscriptionCount());
+
+        Listener.CREATED.clear();
+        assertThrows(InvocationTargetException.class, () -> container.reload(BrokenSubscriberConfig.class));
+        assertEquals(1, Listener.CREATED.size());
+        Listener discarded = Listener.CREATED.get(0);
+        assertEquals(1, container.getEventBus().subscriptionCount());
+        container.publish("first");
+        assertEquals(List.of("first"), v1.received);
+        assertEquals(List.of(), discarded.received);
+
+        assertEquals(Set.of("listener"), container.reload(SubscriberConfigV2.class));
+        Listener v2 = (Listener) container.getServiceInstanceByClass(Listener.class);
+        assertEquals("v2", v2.version);
+        assertEquals(1, container.getEventBus().subscriptionCount());
+        container.publish("second");
+        assertEquals(List.of("first"), v1.received);
+        assertEquals(List.of("second"), v2.received);
+    }
+
+    /**
+     * 重新加载期间旧快照中仍在创建的订阅者完成后不再注册：无论 listener 未受影响（新快照重新创建）
+     * 还是受影响（新快照重建），EventBus 中始终只有新快照的一个订阅者。
+     *
+     * @throws Exception 容器初始化、重新加载或等待查询线程失败时抛出
+     */
+    @Test
+    public void testReloadDuringLookup() throws Exception {
+        for (Class<?> reloaded : List.of(RaceConfigV2.class, RaceConfigV3.class)) {
+            Container container = new Container();
+            container.init(RaceConfigV1.class);
+            ENTERED = new CountDownLatch(1);
+            GATE = new CountDownLatch(1);
+            CompletableFuture<Object> stale = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return container.getServiceInstanceByClass(Listener.class);
+                } catch (ReflectiveOperationException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            assertTrue(ENTERED.await(10, TimeUnit.SECONDS));
+            container.reload(reloaded);
+            GATE.countDown();
+            Listener old = (Listener) stale.get(10, TimeUnit.SECONDS);
+            Listener current = (Listener) container.getServiceInstanceByClass(Listener.class);
+            assertNotSame(old, current);
+            assertEquals(1, container.getEventBus().subscriptionCount());
+            container.publish("event");
+            assertEquals(List.of(), old.received);
+            assertEquals(List.of("event"), current.received);
+        }
+    }
+
+    /**
+     * @Bean 方法之间的循环依赖在初始化时即被拒绝。
+     */
+    @Test
+    public void testCircularDependencyIsRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new Container().init(CyclicConfig.class));
+        System.out.println(e.getMessage());
+    }
+
+    /**
+     * 初始版本的配置类，order 通过 @Bean 方法参数依赖 customer 和 address
+     */
+    public static class ConfigV1 {
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+
+        @Bean
+        public Order order(Customer customer, Address address) {
+            return new Order(customer, address);
+        }
+
+        @Bean
+        public Message message() {
+            return new Message(greeting());
+        }
+
+        private String greeting() {
+            return "Hello World!";
+        }
+    }
+
+    /**
+     * 修改后的配置类：address() 和 greeting() 的方法体不同
+     */
+    public static class ConfigV2 {
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "200000");
+        }
+
+        @Bean
+        public Order order(Customer customer, Address address) {
+            return new Order(customer, address);
+        }
+
+        @Bean
+        public Message message() {
+            return new Message(greeting());
+        }
+
+        private String greeting() {
+            return "Hello Reload!";
+        }
+    }
+
+    /**
+     * 依赖 Message 的目标类，FieldConfigV1 中没有 Message 类型的 Bean
+     */
+    public static class Greeter {
+
+        @Autowired
+        public Greeter(Customer customer, Message message) {
+        }
+    }
+
+    /**
+     * address() 读取实例字段的配置类；字段不是 final，初始值不会作为常量内联到 address() 中
+     */
+    public static class FieldConfigV1 {
+
+        private String postCode = "100000";
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", postCode);
+        }
+    }
+
+    /**
+     * 与 FieldConfigV1 只有字段的初始值不同
+     */
+    public static class FieldConfigV2 {
+
+        private String postCode = "300000";
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", postCode);
+        }
+    }
+
+    /**
+     * address() 抛出异常的配置类
+     */
+    public static class BrokenConfig {
+
+        @Bean
+        public Customer customer() {
+            return new Customer("GangTan", "gangtann@126.com");
+        }
+
+        @Bean
+        public Address address() {
+            throw new IllegalStateException("address service unavailable");
+        }
+
+        @Bean
+        public Order order(Customer customer, Address address) {
+            return new Order(customer, address);
+        }
+    }
+
+    /**
+     * 记录收到的 String 事件
+     */
+    public static class Listener {
+
+        static final List<Listener> CREATED = new CopyOnWriteArrayList<>();
+
+        final String version;
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        Listener(String version) {
+            this.version = version;
+            CREATED.add(this);
+        }
+
+        @Subscribe
+        public void on(String event) {
+            received.add(event);
+        }
+    }
+
+    /**
+     * 查询线程进入 RaceConfig 的 listener() 后发出信号，等待测试放行
+     */
+    private static volatile CountDownLatch ENTERED = new CountDownLatch(0);
+
+    private static volatile CountDownLatch GATE = new CountDownLatch(0);
+
+    private static Listener awaitGate(String version) {
+        ENTERED.countDown();
+        try {
+            if (!GATE.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("未被放行");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return new Listener(version);
+    }
+
+    /**
+     * listener() 在放行前阻塞的初始版本
+     */
+    public static class RaceConfigV1 {
+
+        @Bean
+        public Listener listener() {
+            return awaitGate("race");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+
+    /**
+     * 只修改 address()，listener 未受影响
+     */
+    public static class RaceConfigV2 {
+
+        @Bean
+        public Listener listener() {
+            return awaitGate("race");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "200000");
+        }
+    }
+
+    /**
+     * 修改 listener()，重新加载时重建
+     */
+    public static class RaceConfigV3 {
+
+        @Bean
+        public Listener listener() {
+            return new Listener("v3");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+
+    /**
+     * 包含订阅者的初始版本
+     */
+    public static class SubscriberConfigV1 {
+
+        @Bean
+        public Listener listener() {
+            return new Listener("v1");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+
+    /**
+     * 只修改了 listener() 的版本
+     */
+    public static class SubscriberConfigV2 {
+
+        @Bean
+        public Listener listener() {
+            return new Listener("v2");
+        }
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+    }
+
+    /**
+     * listener() 能创建成功而 address() 失败的版本
+     */
+    public static class BrokenSubscriberConfig {
+
+        @Bean
+        public Listener listener() {
+            return new Listener("broken");
+        }
+
+        @Bean
+        public Address address() {
+            throw new IllegalStateException("address service unavailable");
+        }
+    }
+
+    /**
+     * customer 与 order 相互依赖的配置类
+     */
+    public static class CyclicConfig {
+
+        @Bean
+        public Customer customer(Order order) {
+            return order.getCustomer();
+        }
+
+        @Bean
+        public Order order(Customer customer) {
+            return new Order(customer, null);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.Printable;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.service.Container;
+import com.gtan.service.Interceptors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * InterceptorTest：测试为标注注解的 Bean 方法织入拦截器，
+ * 只有被拦截的方法经过拦截链，未标注的方法和不含被拦截方法的类型保持原样，并对比调用开销
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class InterceptorTest {
+
+    /**
+     * Customer 的 @Printable 方法经过跟踪拦截器，getName 等未标注的方法和字段值不变；Address 没有被拦截的方法，不生成子类。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testTracingPrintableMethods() throws Exception {
+        List<String> trace = new CopyOnWriteArrayList<>();
+        Container container = new Container();
+        container.addInterceptor(Printable.class, Interceptors.tracing(trace::add));
+        container.init();
+        Customer customer = (Customer) container.getServiceInstanceByClass(Customer.class);
+        System.out.println(customer.getClass().getName());
+        assertTrue(customer.getClass().isSynthetic());
+        assertSame(Customer.class, customer.getClass().getSuperclass());
+        assertSame(customer, container.getServiceInstanceByClass(Customer.class));
+        assertEquals("GangTan", customer.getName());
+        assertEquals("gangtann@126.com", customer.getEmail());
+        customer.printName();
+        assertEquals(List.of("enter com.gtan.entity.Customer.printName", "exit com.gtan.entity.Customer.printName"),
+                trace);
+        assertSame(Address.class, container.getServiceInstanceByClass(Address.class).getClass());
+    }
+
+    /**
+     * 同一个方法上的多个拦截器按注册顺序从外到内执行：计时在外层，每次调用（包括重试）只计一次。
+     *
+     * @throws Exception 创建实例失败时抛出
+     */
+    @Test
+    public void testRetryInsideTiming() throws Exception {
+        LongAdder timed = new LongAdder();
+        Container container = new Container();
+        container.addInterceptor(Printable.class, Interceptors.timing((method, nanos) -> timed.increment()));
+        container.addInterceptor(Flaky.class, Interceptors.retry(3, IllegalStateException.class));
+        FlakyService service = (FlakyService) container.createInstance(FlakyService.class);
+        assertEquals("ok after 3", service.call(3));
+        assertEquals(1, timed.sum());
+
+        service.calls = 0;
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.call(5));
+        assertEquals("attempt 3", e.getMessage());
+        assertEquals(2, timed.sum());
+    }
+
+    /**
+     * createInstance 直接调用生成子类的构造器：构造器只执行一次，@Autowired 参数原样传入。
+     *
+     * @throws Exception 容器初始化或创建实例失败时抛出
+     */
+    @Test
+    public void testConstructorRunsOnce() throws Exception {
+        Container container = new Container();
+        container.addInterceptor(Printable.class, (method, next) -> next);
+        container.init();
+        Counter.CONSTRUCTED.set(0);
+        Counter counter = (Counter) container.createInstance(Counter.class);
+        assertTrue(counter.getClass().isHidden());
+        assertEquals(1, Counter.CONSTRUCTED.get());
+        assertSame(container.getServiceInstanceByClass(Customer.class), counter.customer);
+        assertEquals(2, counter.greet(1));
+    }
+
+    /**
+     * 织入过的类型在注册新的拦截器后按新的拦截器重新生成子类。
+     *
+     * @throws Exception 创建实例失败时抛出
+     */
+    @Test
+    public void testLaterInterceptorApplies() throws Exception {
+        List<String> trace = new CopyOnWriteArrayList<>();
+        Container container = new Container();
+        container.addInterceptor(Printable.class, (method, next) -> next);
+        Greeter before = (Greeter) container.createInstance(Greeter.class);
+        container.addInterceptor(Printable.class, Interceptors.tracing(trace::add));
+        Greeter after = (Greeter) container.createInstance(Greeter.class);
+        before.greet(1);
+        assertEquals(List.of(), trace);
+        after.greet(1);
+        assertEquals(2, trace.size());
+    }
+
+    /**
+     * @Bean 返回值织入后转发给原实例：校验参数的构造器只执行一次，状态只在原实例中，
+     * 配置类保留的引用看到经由织入实例所做的修改；含有 final 方法的类型无法转发，获取时报错。
+     *
+     * @throws Exception 容器初始化或获取 Bean 失败时抛出
+     */
+    @Test
+    public void testBeanForwardsToOriginal() throws Exception {
+        List<String> trace = new CopyOnWriteArrayList<>();
+        Container container = new Container();
+        container.addInterceptor(Printable.class, Interceptors.tracing(trace::add));
+        container.init(AccountConfig.class);
+        Account.CONSTRUCTED.set(0);
+        Account account = (Account) container.getServiceInstanceByClass(Account.class);
+        assertEquals(1, Account.CONSTRUCTED.get());
+        assertEquals(10, account.deposit(10));
+        assertEquals(2, trace.size());
+        assertEquals("GangTan", account.owner());
+        assertEquals(10, AccountConfig.created.balance());
+        assertEquals(AccountConfig.created.toString(), account.toString());
+
+        assertThrows(Exception.class, () -> container.getServiceInstanceByClass(FinalGreeter.class));
+    }
+
+    /**
+     * 被拦截的 final 方法无法覆盖，创建实例时报错。
+     */
+    @Test
+    public void testFinalMethodRejected() {
+        Container container = new Container();
+        container.addInterceptor(Printable.class, (method, next) -> next);
+        assertThrows(IllegalStateException.class, () -> container.createInstance(FinalGreeter.class));
+    }
+
+    /**
+     * 对比调用开销：直接调用、织入后未标注的方法、空拦截器和计时拦截器。
+     *
+     * @throws Exception 创建实例失败时抛出
+     */
+    @Test
+    public void testInterceptorOverhead() throws Exception {
+        Greeter direct = new Greeter();
+        Container noop = new Container();
+        noop.addInterceptor(Printable.class, (method, next) -> next);
+        Greeter woven = (Greeter) noop.createInstance(Greeter.class);
+        LongAdder total = new LongAdder();
+        Container timing = new Container();
+        timing.addInterceptor(Printable.class, Interceptors.timing((method, nanos) -> total.add(nanos)));
+        Greeter timed = (Greeter) timing.createInstance(Greeter.class);
+
+        int iterations = 5_000_000;
+        for (int round = 0; round < 3; round++) {
+            long sum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sum += direct.greet(i);
+            }
+            long directTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sum += woven.plain(i);
+            }
+            long plainTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sum += woven.greet(i);
+            }
+            long noopTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sum += timed.greet(i);
+            }
+            long timingTime = System.nanoTime() - start;
+            assertEquals(4 * ((long) iterations * (iterations - 1) / 2 + iterations), sum);
+            System.out.printf("round %d: direct %.2f ns/op, un-annotated %.2f ns/op, no-op interceptor %.2f ns/op, "
+                            + "timing interceptor %.2f ns/op%n", round, (double) directTime / iterations,
+                    (double) plainTime / iterations, (double) noopTime / iterations,
+                    (double) timingTime / iterations);
+        }
+        assertFalse(direct.getClass().isHidden());
+        assertTrue(total.sum() > 0);
+    }
+
+    /**
+     * 需要重试的方法
+     */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Flaky {
+    }
+
+    /**
+     * 前几次调用失败的服务
+     */
+    public static class FlakyService {
+
+        int calls;
+
+        @Flaky
+        @Printable
+        public String call(int succeedAt) {
+            calls++;
+            if (calls < succeedAt) {
+                throw new IllegalStateException("attempt " + calls);
+            }
+            return "ok after " + calls;
+        }
+    }
+
+    /**
+     * 基准测试用的 Bean，只有 greet 被拦截
+     */
+    public static class Greeter {
+
+        @Printable
+        public int greet(int value) {
+            return value + 1;
+        }
+
+        public int plain(int value) {
+            return value + 1;
+        }
+    }
+
+    /**
+     * 统计构造器执行次数的目标类
+     */
+    public static class Counter {
+
+        static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+        final Customer customer;
+
+        @Autowired
+        public Counter(Customer customer) {
+            CONSTRUCTED.incrementAndGet();
+            this.customer = customer;
+        }
+
+        @Printable
+        public int greet(int value) {
+            return value + 1;
+        }
+    }
+
+    /**
+     * 构造器校验参数并计数的 Bean
+     */
+    public static class Account {
+
+        static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+        private final String owner;
+
+        private int balance;
+
+        public Account(String owner) {
+            this.owner = Objects.requireNonNull(owner, "owner");
+            CONSTRUCTED.incrementAndGet();
+        }
+
+        @Printable
+        public int deposit(int amount) {
+            balance += amount;
+            return balance;
+        }
+
+        public int balance() {
+            return balance;
+        }
+
+        public String owner() {
+            return owner;
+        }
+
+        @Override
+        public String toString() {
+            return owner + ": " + balance;
+        }
+    }
+
+    /**
+     * 通过 @Bean 方法创建 Account，并保留原实例的引用
+     */
+    public static class AccountConfig {
+
+        static volatile Account created;
+
+        @Bean
+        public Account account() {
+            created = new Account("GangTan");
+            return created;
+        }
+
+        @Bean
+        public FinalGreeter finalGreeter() {
+            return new FinalGreeter();
+        }
+    }
+
+    /**
+     * 被拦截的方法是 final 的
+     */
+    public static class FinalGreeter {
+
+        @Printable
+        public final int greet(int value) {
+            return value + 1;
+        }
+    }
+}
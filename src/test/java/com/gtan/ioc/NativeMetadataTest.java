@@ -0,0 +1,204 @@
+package com.gtan.ioc;
+
+import com.gtan.agent.ReflectionProfiler;
+import com.gtan.agent.ReflectionTransformer;
+import com.gtan.annotation.Autowired;
+import com.gtan.config.Config;
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Message;
+import com.gtan.entity.User;
+import com.gtan.tools.NativeMetadataGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NativeMetadataTest：在独立的类加载器中加载织入了反射统计的容器，运行 init、获取 Bean 和 createInstance，
+ * 将容器实际调用的方法、构造器以及 getDeclaredMethods 查询的类与生成的元数据逐项对比
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NativeMetadataTest {
+
+    private static final String SERVICE = "com.gtan.service.";
+
+    /**
+     * 容器访问的成员全部被元数据覆盖，元数据中登记的调用入口全部被容器访问过。
+     *
+     * @throws Exception 加载容器或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testMetadataMatchesContainerAccess() throws Exception {
+        List<NativeMetadataGenerator.Entry> entries = NativeMetadataGenerator.reflectionEntries(Config.class,
+                Checkout.class, User.class);
+        Set<String> invokable = new TreeSet<>();
+        Set<String> queryable = new TreeSet<>();
+        for (NativeMetadataGenerator.Entry entry : entries) {
+            for (NativeMetadataGenerator.Member member : entry.methods()) {
+                invokable.add((member.name().equals("<init>") ? "Constructor.newInstance " : "Method.invoke ")
+                        + entry.name() + "." + member.name());
+            }
+            if (entry.queryAllDeclaredMethods()) {
+                queryable.add("Class.getDeclaredMethods " + entry.name());
+            }
+        }
+
+        ReflectionProfiler.reset();
+        Class<?> type = new InstrumentedLoader().loadClass(SERVICE + "Container");
+        Object container = type.getConstructor().newInstance();
+        type.getMethod("init").invoke(container);
+        type.getMethod("getServiceInstanceByClass", Class.class).invoke(container, Customer.class);
+        type.getMethod("getServiceInstanceByClass", Class.class).invoke(container, Address.class);
+        type.getMethod("getServiceInstanceByName", String.class, Object[].class)
+                .invoke(container, "message", new Object[]{"Hello"});
+        Object checkout = type.getMethod("createInstance", Class.class).invoke(container, Checkout.class);
+        type.getMethod("createInstance", Class.class).invoke(container, User.class);
+        assertEquals("GangTan -> 100000", checkout.toString());
+
+        Set<String> touched = new TreeSet<>();
+        for (ReflectionProfiler.Entry entry : ReflectionProfiler.entries()) {
+            if (entry.location().startsWith(SERVICE) && (entry.kind().equals("Method.invoke")
+                    || entry.kind().equals("Constructor.newInstance")
+                    || entry.kind().equals("Class.getDeclaredMethods"))) {
+                touched.add(entry.kind() + " " + entry.target());
+            }
+        }
+        System.out.println("touched " + touched);
+        System.out.print(NativeMetadataGenerator.reflectConfig(entries));
+
+        Set<String> uncovered = new TreeSet<>(touched);
+        uncovered.removeAll(invokable);
+        uncovered.removeAll(queryable);
+        assertEquals(Set.of(), uncovered);
+        Set<String> unused = new TreeSet<>(invokable);
+        unused.removeAll(touched);
+        assertEquals(Set.of(), unused);
+    }
+
+    /**
+     * 写出的文件结构，以及无法注入的构造器参数和缺少的命令行参数在构建期报错。
+     *
+     * @param directory 临时目录
+     * @throws Exception 写入临时目录失败时抛出
+     */
+    @Test
+    public void testWriteAndValidation(@TempDir Path directory) throws Exception {
+        NativeMetadataGenerator.main(new String[]{directory.toString(), Config.class.getName(),
+                Checkout.class.getName() + ", " + User.class.getName()});
+        String reflect = Files.readString(directory.resolve("reflect-config.json"));
+        assertTrue(reflect.contains("{ \"name\": \"message\", \"parameterTypes\": [\"java.lang.String\"] }"));
+        assertTrue(reflect.contains("{ \"name\": \"<init>\", \"parameterTypes\": [\"com.gtan.entity.Customer\", "
+                + "\"com.gtan.entity.Address\"] }"));
+        // 无参的 message() 不是 @Bean，不登记
+        assertTrue(!reflect.contains("\"name\": \"message\", \"parameterTypes\": []"));
+        assertTrue(Files.readString(directory.resolve("resource-config.json"))
+                .contains("\"\\\\Qcom/gtan/config/Config.class\\\\E\""));
+
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+                () -> NativeMetadataGenerator.reflectionEntries(Config.class, Unresolvable.class));
+        assertTrue(failure.getMessage().contains("java.lang.Integer"));
+        // Message 只由带参 Bean message(String) 提供，与容器一样不能注入
+        failure = assertThrows(IllegalArgumentException.class,
+                () -> NativeMetadataGenerator.reflectionEntries(Config.class, Greeter.class));
+        assertTrue(failure.getMessage().contains("com.gtan.entity.Message"));
+        failure = assertThrows(IllegalArgumentException.class,
+                () -> NativeMetadataGenerator.main(new String[]{directory.toString()}));
+        assertTrue(failure.getMessage().startsWith("用法"));
+    }
+
+    /**
+     * 优先从自身加载 com.gtan.service 下的类并织入反射统计，其余类委托给父加载器
+     */
+    private static final class InstrumentedLoader extends ClassLoader {
+
+        private final ReflectionTransformer transformer = new ReflectionTransformer(List.of("com/gtan/"));
+
+        InstrumentedLoader() {
+            super(InstrumentedLoader.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+            if (!className.startsWith(SERVICE)) {
+                return super.loadClass(className, resolve);
+            }
+            synchronized (getClassLoadingLock(className)) {
+                Class<?> clazz = findLoadedClass(className);
+                if (clazz != null) {
+                    return clazz;
+                }
+                byte[] bytes;
+                try (InputStream in = getParent().getResourceAsStream(className.replace('.', '/') + ".class")) {
+                    if (in == null) {
+                        throw new ClassNotFoundException(className);
+                    }
+                    bytes = in.readAllBytes();
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(className, e);
+                }
+                byte[] instrumented = transformer.instrument(bytes);
+                if (instrumented != null) {
+                    bytes = instrumented;
+                }
+                return defineClass(className, bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    /**
+     * 通过 @Autowired 构造器注入 Bean 的目标类
+     */
+    public static class Checkout {
+
+        private final Customer customer;
+
+        private final Address address;
+
+        @Autowired
+        public Checkout(Customer customer, Address address) {
+            this.customer = customer;
+            this.address = address;
+        }
+
+        @Override
+        public String toString() {
+            return customer.getName() + " -> " + address.getPostCode();
+        }
+    }
+
+    /**
+     * 构造器参数只由带参 @Bean 提供的目标类
+     */
+    public static class Greeter {
+
+        @Autowired
+        public Greeter(Message message) {
+        }
+    }
+
+    /**
+     * 构造器参数没有对应 @Bean 的目标类
+     */
+    public static class Unresolvable {
+
+        @Autowired
+        public Unresolvable(Customer customer, Integer retries) {
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Bean;
+import com.gtan.entity.Address;
+import com.gtan.entity.Message;
+import com.gtan.service.BoundedCache;
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ParameterizedBeanTest：测试按显式参数调用 @Bean 方法，
+ * 结果按参数组合缓存，缓存有界并提供命中统计，并发请求同一组参数时只创建一次
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParameterizedBeanTest {
+
+    /**
+     * Config.message(String content)：相同参数返回同一个实例，不同参数创建新实例。
+     *
+     * @throws Exception 容器初始化或调用 @Bean 方法失败时抛出
+     */
+    @Test
+    public void testMemoizedPerArguments() throws Exception {
+        Container container = new Container();
+        container.init();
+        Message hello = (Message) container.getServiceInstanceByName("message", "Hello");
+        Message world = (Message) container.getServiceInstanceByClass(Message.class, "World");
+        assertEquals("Hello", hello.getContent());
+        assertEquals("World", world.getContent());
+        assertSame(hello, container.getServiceInstanceByClass(Message.class, "Hello"));
+        assertNotSame(hello, world);
+        BoundedCache.Stats stats = container.getVariantCacheStats();
+        System.out.println(stats + ", hit rate " + stats.hitRate());
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertThrows(IllegalArgumentException.class, () -> container.getServiceInstanceByName("message", "a", "b"));
+    }
+
+    /**
+     * 带参 Bean 不是单例：不带参数按名称或类型获取时抛出，不参与集合注入；
+     * 单例 Bean 依赖只由带参 Bean 提供的类型时初始化失败，而不是注入 null。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testRequiresArguments() throws Exception {
+        Container container = new Container();
+        container.init();
+        assertThrows(IllegalStateException.class, () -> container.getServiceInstanceByName("message"));
+        assertThrows(IllegalStateException.class, () -> container.getServiceInstanceByClass(Message.class));
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> container.getServiceAsync(Message.class).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(List.of(), container.getServiceInstancesByClass(Message.class));
+
+        assertThrows(IllegalStateException.class, () -> new Container().init(GreetingConfig.class));
+    }
+
+    /**
+     * 缓存满时淘汰最久未使用的参数组合，再次请求时重新创建。
+     *
+     * @throws Exception 容器初始化或调用 @Bean 方法失败时抛出
+     */
+    @Test
+    public void testBoundedEviction() throws Exception {
+        Container container = new Container(2);
+        container.init(CountingConfig.class);
+        CountingConfig.ADDRESSES.set(0);
+        Object first = container.getServiceInstanceByName("address", "China", "100000");
+        container.getServiceInstanceByName("address", "China", "200000");
+        // 访问 first，使 200000 成为最久未使用的组合
+        assertSame(first, container.getServiceInstanceByName("address", "China", "100000"));
+        container.getServiceInstanceByName("address", "China", "300000");
+        assertSame(first, container.getServiceInstanceByName("address", "China", "100000"));
+        container.getServiceInstanceByName("address", "China", "200000");
+        assertEquals(4, CountingConfig.ADDRESSES.get());
+        BoundedCache.Stats stats = container.getVariantCacheStats();
+        assertEquals(2, stats.evictions());
+        assertEquals(2, stats.size());
+    }
+
+    /**
+     * 并发请求同一组参数时只调用一次 @Bean 方法。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        Container container = new Container();
+        container.init(CountingConfig.class);
+        CountingConfig.ADDRESSES.set(0);
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return container.getServiceInstanceByName("slowAddress", "China", "100000");
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, Thread::startVirtualThread));
+        }
+        Object address = futures.get(0).join();
+        for (CompletableFuture<Object> future : futures) {
+            assertSame(address, future.join());
+        }
+        assertEquals(1, CountingConfig.ADDRESSES.get());
+        assertEquals(63, container.getVariantCacheStats().hits());
+    }
+
+    /**
+     * 单例 Bean greeting 依赖只能按显式参数创建的 Message
+     */
+    public static class GreetingConfig {
+
+        @Bean
+        public Message message(String content) {
+            return new Message(content);
+        }
+
+        @Bean
+        public String greeting(Message message) {
+            return "Hi, " + message.getContent();
+        }
+    }
+
+    /**
+     * 统计 @Bean 方法调用次数的配置类
+     */
+    public static class CountingConfig {
+
+        static final AtomicInteger ADDRESSES = new AtomicInteger();
+
+        @Bean
+        public Address address(String street, String postCode) {
+            ADDRESSES.incrementAndGet();
+            return new Address(street, postCode);
+        }
+
+        @Bean
+        public Address slowAddress(String street, String postCode) throws InterruptedException {
+            ADDRESSES.incrementAndGet();
+            Thread.sleep(100);
+            return new Address(street, postCode);
+        }
+    }
+}
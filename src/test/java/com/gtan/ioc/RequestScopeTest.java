@@ -0,0 +1,292 @@
+package com.gtan.ioc;
+
+import com.gtan.annotation.Autowired;
+import com.gtan.annotation.Bean;
+import com.gtan.annotation.RequestScoped;
+import com.gtan.entity.Address;
+import com.gtan.service.Container;
+import com.gtan.service.RequestScope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RequestScopeTest：测试 @RequestScoped Bean 在同一个请求作用域中共享、不同作用域之间隔离，
+ * 关闭作用域时按依赖的逆序释放，并在大量虚拟线程上并发打开作用域
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RequestScopeTest {
+
+    /**
+     * 同一作用域内 RequestContext 只创建一次，Auditor 和 Handler 注入的是同一个实例；单例 Address 在作用域之间共享；
+     * 关闭时先关闭 Auditor 再关闭 RequestContext。
+     *
+     * @throws Exception 容器初始化或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testSharedWithinScope() throws Exception {
+        Container container = new Container();
+        container.init(RequestConfig.class);
+        List<String> closed = new CopyOnWriteArrayList<>();
+        RequestContext first;
+        Address address;
+        try (RequestScope scope = container.openRequestScope()) {
+            first = (RequestContext) scope.getServiceInstanceByClass(RequestContext.class);
+            first.closed = closed;
+            Auditor auditor = (Auditor) scope.getServiceInstanceByName("auditor");
+            auditor.closed = closed;
+            assertSame(first, auditor.context);
+            Handler handler = (Handler) scope.createInstance(Handler.class);
+            assertSame(first, handler.context);
+            assertSame(auditor, handler.auditor);
+            address = handler.address;
+            assertSame(address, container.getServiceInstanceByClass(Address.class));
+        }
+        assertEquals(List.of("auditor", "context " + first.id), closed);
+
+        try (RequestScope scope = container.openRequestScope()) {
+            RequestContext second = (RequestContext) scope.getServiceInstanceByClass(RequestContext.class);
+            assertNotSame(first, second);
+            assertSame(address, scope.getServiceInstanceByClass(Address.class));
+            scope.close();
+            assertThrows(IllegalStateException.class, () -> scope.getServiceInstanceByClass(RequestContext.class));
+        }
+    }
+
+    /**
+     * 关闭时仍在创建中的 Bean 在创建完成时关闭；关闭后不能再获取 Bean。
+     *
+     * @throws Exception 容器初始化或等待 Bean 创建失败时抛出
+     */
+    @Test
+    public void testCloseWhileCreating() throws Exception {
+        Container container = new Container();
+        container.init(PendingConfig.class);
+        CompletableFuture<Connection> opened = new CompletableFuture<>();
+        PendingConfig.opened = opened;
+        PendingConfig.invoked = new CountDownLatch(1);
+        RequestScope scope = container.openRequestScope();
+        CompletableFuture<Object> lookup = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scope.getServiceInstanceByClass(Connection.class);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }, Thread::startVirtualThread);
+        assertTrue(PendingConfig.invoked.await(10, TimeUnit.SECONDS));
+        scope.close();
+        assertThrows(IllegalStateException.class, () -> scope.getServiceInstanceByClass(Connection.class));
+
+        Connection connection = new Connection();
+        opened.complete(connection);
+        assertSame(connection, lookup.join());
+        assertTrue(connection.closed);
+    }
+
+    /**
+     * 作用域之外获取 @RequestScoped Bean，或单例依赖 @RequestScoped Bean 时报错。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testScopeViolations() throws Exception {
+        Container container = new Container();
+        container.init(RequestConfig.class);
+        assertThrows(IllegalStateException.class, () -> container.getServiceInstanceByClass(RequestContext.class));
+        assertThrows(IllegalStateException.class, () -> container.createInstance(Handler.class));
+        assertThrows(IllegalStateException.class, () -> new Container().init(WideningConfig.class));
+    }
+
+    /**
+     * 每个请求一个虚拟线程，请求内再派生多个虚拟线程并发获取 RequestContext：每个作用域恰好创建一次。
+     *
+     * @throws Exception 容器初始化失败时抛出
+     */
+    @Test
+    public void testVirtualThreadRequests() throws Exception {
+        Container container = new Container();
+        container.init(RequestConfig.class);
+        int requests = 10_000;
+        int before = RequestConfig.CONTEXTS.get();
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try (RequestScope scope = container.openRequestScope()) {
+                    List<CompletableFuture<Object>> parts = new ArrayList<>();
+                    for (int j = 0; j < 4; j++) {
+                        parts.add(CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return scope.getServiceInstanceByClass(RequestContext.class);
+                            } catch (ReflectiveOperationException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }, Thread::startVirtualThread));
+                    }
+                    RequestContext context = (RequestContext) parts.get(0).join();
+                    for (CompletableFuture<Object> part : parts) {
+                        assertSame(context, part.join());
+                    }
+                    ids.add(context.id);
+                }
+            }, Thread::startVirtualThread));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        System.out.printf("%d requests in %d ms%n", requests, (System.nanoTime() - start) / 1_000_000);
+        assertEquals(requests, ids.size());
+        assertEquals(requests, RequestConfig.CONTEXTS.get() - before);
+    }
+
+    /**
+     * 请求上下文
+     */
+    public static class RequestContext implements AutoCloseable {
+
+        final int id;
+
+        List<String> closed;
+
+        RequestContext(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void close() {
+            if (closed != null) {
+                closed.add("context " + id);
+            }
+        }
+    }
+
+    /**
+     * 依赖请求上下文的审计器
+     */
+    public static class Auditor implements AutoCloseable {
+
+        final RequestContext context;
+
+        List<String> closed;
+
+        Auditor(RequestContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void close() {
+            if (closed != null) {
+                closed.add("auditor");
+            }
+        }
+    }
+
+    /**
+     * 每次请求创建的处理器
+     */
+    public static class Handler {
+
+        final RequestContext context;
+
+        final Auditor auditor;
+
+        final Address address;
+
+        @Autowired
+        public Handler(RequestContext context, Auditor auditor, Address address) {
+            this.context = context;
+            this.auditor = auditor;
+            this.address = address;
+        }
+    }
+
+    /**
+     * 包含 @RequestScoped Bean 的配置类
+     */
+    public static class RequestConfig {
+
+        static final AtomicInteger CONTEXTS = new AtomicInteger();
+
+        @Bean
+        public Address address() {
+            return new Address("China", "100000");
+        }
+
+        @Bean
+        @RequestScoped
+        public RequestContext requestContext() {
+            return new RequestContext(CONTEXTS.incrementAndGet());
+        }
+
+        @Bean
+        @RequestScoped
+        public Auditor auditor(RequestContext context) {
+            return new Auditor(context);
+        }
+    }
+
+    /**
+     * 异步打开的连接
+     */
+    public static class Connection implements AutoCloseable {
+
+        volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * @RequestScoped Bean 异步创建，由测试决定何时完成
+     */
+    public static class PendingConfig {
+
+        static volatile CompletableFuture<Connection> opened;
+
+        static volatile CountDownLatch invoked;
+
+        @Bean
+        @RequestScoped
+        public CompletableFuture<Connection> connection() {
+            invoked.countDown();
+            return opened;
+        }
+    }
+
+    /**
+     * 单例依赖 @RequestScoped Bean，初始化时报错
+     */
+    public static class WideningConfig {
+
+        @Bean
+        @RequestScoped
+        public RequestContext requestContext() {
+            return new RequestContext(0);
+        }
+
+        @Bean
+        public Auditor auditor(RequestContext context) {
+            return new Auditor(context);
+        }
+    }
+}
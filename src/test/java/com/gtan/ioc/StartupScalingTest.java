@@ -0,0 +1,153 @@
+package com.gtan.ioc;
+
+import com.gtan.service.Container;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * StartupScalingTest：用 ConfigGenerator 生成的大规模配置类测量容器随 Bean 数量和依赖链深度增长的表现
+ * 1. init：解析配置类、建立依赖图的耗时
+ * 2. first bean：获取第一条依赖链末端 Bean 的耗时，需要沿链创建 depth 个 Bean
+ * 3. full graph：创建注入 List&lt;Node&gt; 的 Facade，即创建全部 Bean 的耗时
+ * 4. heap：容器及全部 Bean 占用的堆内存，由它们可达与不可达时 GC 之后已用堆内存之差得出
+ * 每一行同时打印相对上一行的增长倍数，耗时倍数与规模倍数接近说明增长是线性的
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StartupScalingTest {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * 依赖链深度固定，Bean 数量逐级翻倍。
+     *
+     * @param directory 临时目录
+     * @throws Exception 生成、编译配置类或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testBeanCountScaling(@TempDir Path directory) throws Exception {
+        measure(directory, List.of(new int[]{250, 25}, new int[]{500, 25}, new int[]{1000, 25}, new int[]{2000, 25}));
+    }
+
+    /**
+     * Bean 数量固定，依赖链逐级加深。
+     *
+     * @param directory 临时目录
+     * @throws Exception 生成、编译配置类或创建 Bean 失败时抛出
+     */
+    @Test
+    public void testDepthScaling(@TempDir Path directory) throws Exception {
+        measure(directory, List.of(new int[]{1000, 5}, new int[]{1000, 50}, new int[]{1000, 250}));
+    }
+
+    /**
+     * 依次测量每个规模，并打印与上一个规模的比值
+     *
+     * @param directory 生成的源码和 class 文件所在的目录
+     * @param scales    {beans, depth} 列表
+     */
+    private void measure(Path directory, List<int[]> scales) throws Exception {
+        // 预热：让容器自身的代码路径先完成类加载和 JIT，避免第一行被放大
+        try (ConfigGenerator.GeneratedConfig warmUp = ConfigGenerator.generate(directory, 100, 10)) {
+            run(warmUp.config(), 100, 10);
+        }
+        System.out.printf("%8s %6s %12s %12s %12s %12s  %s%n", "beans", "depth", "init us", "first us",
+                "graph us", "heap KB", "growth (size / init / first / graph)");
+        Result previous = null;
+        int[] previousScale = null;
+        for (int[] scale : scales) {
+            Result result;
+            try (ConfigGenerator.GeneratedConfig generated = ConfigGenerator.generate(directory, scale[0], scale[1])) {
+                result = run(generated.config(), scale[0], scale[1]);
+            }
+            String growth = "";
+            if (previous != null) {
+                double size = (double) scale[0] * scale[1] / previousScale[0] / previousScale[1];
+                if (scale[1] == previousScale[1]) {
+                    size = (double) scale[0] / previousScale[0];
+                } else if (scale[0] == previousScale[0]) {
+                    size = (double) scale[1] / previousScale[1];
+                }
+                growth = String.format("x%.1f / x%.1f / x%.1f / x%.1f", size,
+                        (double) result.init / previous.init, (double) result.first / previous.first,
+                        (double) result.graph / previous.graph);
+            }
+            System.out.printf("%8d %6d %12.1f %12.1f %12.1f %12d  %s%n", scale[0], scale[1], result.init / 1e3,
+                    result.first / 1e3, result.graph / 1e3, result.heap / 1024, growth);
+            previous = result;
+            previousScale = scale;
+        }
+    }
+
+    /**
+     * 在一个新容器上测量一个规模
+     */
+    private Result run(Class<?> config, int beans, int depth) throws Exception {
+        ClassLoader loader = config.getClassLoader();
+        Class<?> facadeType = loader.loadClass(config.getName() + "$Facade");
+        Class<?> tailType = loader.loadClass(config.getName() + "$B" + (Math.min(depth, beans) - 1));
+        Method depthMethod = loader.loadClass(config.getName() + "$Node").getMethod("depth");
+        Field nodes = facadeType.getField("nodes");
+
+        long start = System.nanoTime();
+        Container container = new Container();
+        container.init(config);
+        long init = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Object tail = container.getServiceInstanceByClass(tailType);
+        long first = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Object facade = container.createInstance(facadeType);
+        long graph = System.nanoTime() - start;
+
+        assertEquals(Math.min(depth, beans) - 1, depthMethod.invoke(tail));
+        List<?> graphNodes = (List<?>) nodes.get(facade);
+        assertEquals(beans, graphNodes.size());
+        int heads = 0;
+        for (Object node : graphNodes) {
+            if ((int) depthMethod.invoke(node) == 0) {
+                heads++;
+            }
+        }
+        assertEquals((beans + depth - 1) / depth, heads);
+        // 容器和对象图可达与不可达时已用堆内存之差即为它们占用的内存，生成的类在两次测量中都已加载
+        long heap = usedHeap();
+        assertEquals(tail, container.getServiceInstanceByClass(tailType));
+        container = null;
+        tail = null;
+        facade = null;
+        graphNodes = null;
+        heap -= usedHeap();
+        return new Result(init, first, graph, heap);
+    }
+
+    /**
+     * @return 两次 GC 之后已用的堆内存
+     */
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 一个规模的测量结果，耗时单位为纳秒，堆内存单位为字节
+     */
+    private record Result(long init, long first, long graph, long heap) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.gtan.reflect;
+
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Message;
+import com.gtan.entity.Order;
+import com.gtan.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DeepCopierTest：验证对象图深度复制的正确性（树形复制、共享引用、环），并测量大对象图的复制吞吐量
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DeepCopierTest {
+
+    /**
+     * Order 的字段类型互不兼容，对象图一定是树形结构；以集合为根时无法确定元素类型，需要身份映射。
+     */
+    @Test
+    public void testTreeShapeAnalysis() {
+        assertTrue(DeepCopier.isTreeShaped(Order.class));
+        assertTrue(DeepCopier.isTreeShaped(User.class));
+        assertFalse(DeepCopier.isTreeShaped(ArrayList.class));
+    }
+
+    /**
+     * 复制 Order，customer 和 address 应为新对象且字段值一致。
+     */
+    @Test
+    public void testCopyOrder() {
+        Order order = new Order(new Customer("GangTan", "gangtann@126.com"), new Address("China", "100000"));
+        Order copy = DeepCopier.copy(order);
+        assertNotSame(order, copy);
+        assertNotSame(order.getCustomer(), copy.getCustomer());
+        assertNotSame(order.getAddress(), copy.getAddress());
+        assertEquals("GangTan", copy.getCustomer().getName());
+        assertEquals("100000", copy.getAddress().getPostCode());
+        System.out.println(copy.getCustomer().getEmail());
+    }
+
+    /**
+     * 复制 User，包括父类 Person 的私有字段、final 字段 age、message 以及 comments 列表。
+     *
+     * @throws NoSuchFieldException   找不到字段时抛出
+     * @throws IllegalAccessException 字段访问受限时抛出
+     */
+    @Test
+    public void testCopyUser() throws NoSuchFieldException, IllegalAccessException {
+        User user = new User("GangTan", 20);
+        user.personPublicField = "public";
+        set(user, "message", new Message("Hello World!"));
+        set(user, "comments", new ArrayList<>(List.of("first", "second")));
+        User copy = DeepCopier.copy(user);
+        assertEquals(user.toString(), copy.toString());
+        assertEquals("public", copy.personPublicField);
+        assertNotSame(get(user, "message"), get(copy, "message"));
+        assertNotSame(get(user, "comments"), get(copy, "comments"));
+        assertEquals(get(user, "comments"), get(copy, "comments"));
+        System.out.println(copy);
+    }
+
+    /**
+     * 两个 Order 共享同一个 Customer，列表中还包含自身（环），副本应保持相同的共享结构。
+     */
+    @Test
+    public void testSharedReferencesAndCycles() {
+        Customer customer = new Customer("GangTan", "gangtann@126.com");
+        List<Object> graph = new ArrayList<>();
+        graph.add(new Order(customer, new Address("China", "100000")));
+        graph.add(new Order(customer, new Address("China", "200000")));
+        graph.add(graph);
+        List<Object> copy = DeepCopier.copy(graph);
+        Order first = (Order) copy.get(0);
+        Order second = (Order) copy.get(1);
+        assertNotSame(customer, first.getCustomer());
+        assertSame(first.getCustomer(), second.getCustomer());
+        assertSame(copy, copy.get(2));
+    }
+
+    /**
+     * 集合和 Map 保留具体类型：EnumSet、EnumMap 仍为枚举集合，PriorityQueue、TreeMap 保留比较器，
+     * 不可修改的集合复制后仍不可修改，Arrays.asList 仍为固定长度。
+     */
+    @Test
+    public void testCollectionTypes() {
+        EnumSet<TimeUnit> units = EnumSet.of(TimeUnit.SECONDS, TimeUnit.DAYS);
+        EnumSet<TimeUnit> unitsCopy = DeepCopier.copy(units);
+        assertNotSame(units, unitsCopy);
+        assertEquals(units, unitsCopy);
+        unitsCopy.add(TimeUnit.HOURS);
+
+        EnumMap<TimeUnit, List<String>> byUnit = new EnumMap<>(TimeUnit.class);
+        byUnit.put(TimeUnit.SECONDS, new ArrayList<>(List.of("first")));
+        EnumMap<TimeUnit, List<String>> byUnitCopy = DeepCopier.copy(byUnit);
+        assertEquals(byUnit, byUnitCopy);
+        assertNotSame(byUnit.get(TimeUnit.SECONDS), byUnitCopy.get(TimeUnit.SECONDS));
+
+        PriorityQueue<String> queue = new PriorityQueue<>(Comparator.reverseOrder());
+        queue.addAll(List.of("a", "c", "b"));
+        PriorityQueue<String> queueCopy = DeepCopier.copy(queue);
+        assertSame(queue.comparator(), queueCopy.comparator());
+        assertEquals("c", queueCopy.poll());
+
+        TreeMap<String, Integer> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        sorted.put("b", 2);
+        sorted.put("A", 1);
+        TreeMap<String, Integer> sortedCopy = DeepCopier.copy(sorted);
+        assertSame(String.CASE_INSENSITIVE_ORDER, sortedCopy.comparator());
+        assertEquals(1, sortedCopy.get("a"));
+
+        List<Object> immutable = List.of(new Message("Hello"), "World");
+        List<Object> immutableCopy = DeepCopier.copy(immutable);
+        assertNotSame(immutable.get(0), immutableCopy.get(0));
+        assertEquals("World", immutableCopy.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> immutableCopy.add("more"));
+        Map<String, List<String>> unmodifiable = Collections.unmodifiableMap(Map.of("key", new ArrayList<>()));
+        assertThrows(UnsupportedOperationException.class, () -> DeepCopier.copy(unmodifiable).clear());
+
+        List<String> fixed = DeepCopier.copy(Arrays.asList("x", "y"));
+        assertEquals(List.of("x", "y"), fixed);
+        fixed.set(0, "z");
+        assertThrows(UnsupportedOperationException.class, () -> fixed.add("w"));
+
+        assertThrows(IllegalStateException.class,
+                () -> DeepCopier.copy(Collections.synchronizedList(new ArrayList<>())));
+    }
+
+    /**
+     * JDK 可变类型不再按引用共享，无法复制的类型直接失败；没有无参构造器的类不执行任何构造器。
+     */
+    @Test
+    public void testJdkTypesAndConstructors() {
+        Date date = new Date(0);
+        Date dateCopy = DeepCopier.copy(date);
+        assertNotSame(date, dateCopy);
+        assertEquals(date, dateCopy);
+        AtomicInteger counter = new AtomicInteger(7);
+        assertEquals(7, DeepCopier.copy(counter).get());
+        assertNotSame(counter, DeepCopier.copy(counter));
+        assertEquals("text", DeepCopier.copy(new StringBuilder("text")).toString());
+        LocalDate today = LocalDate.now();
+        assertSame(today, DeepCopier.copy(today));
+        assertThrows(IllegalStateException.class, () -> DeepCopier.copy(new ReentrantLock()));
+
+        Validated validated = new Validated("name", new BitSet());
+        validated.flags.set(3);
+        int created = Validated.created;
+        Validated copy = DeepCopier.copy(validated);
+        assertEquals(created, Validated.created);
+        assertEquals("name", copy.name);
+        assertNotSame(validated.flags, copy.flags);
+        assertTrue(copy.flags.get(3));
+    }
+
+    /**
+     * 构造器拒绝 null 参数并统计创建次数
+     */
+    private static final class Validated {
+
+        static int created;
+
+        private final String name;
+
+        private final BitSet flags;
+
+        Validated(String name, BitSet flags) {
+            this.name = Objects.requireNonNull(name);
+            this.flags = Objects.requireNonNull(flags);
+            created++;
+        }
+    }
+
+    /**
+     * 吞吐量测试：分别复制大量独立的 Order（树形复制）和共享 Customer 的大对象图（身份映射复制），
+     * 并与手写复制代码对比。
+     */
+    @Test
+    public void testCopyThroughput() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            customers.add(new Customer("customer" + i, i + "@126.com"));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            orders.add(new Order(customers.get(i % customers.size()), new Address("street" + i, "100000")));
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (Order order : orders) {
+                new Order(new Customer(order.getCustomer().getName(), order.getCustomer().getEmail()),
+                        new Address(order.getAddress().getStreet(), order.getAddress().getPostCode()));
+            }
+            long handWritten = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Order order : orders) {
+                DeepCopier.copy(order);
+            }
+            long tree = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Order> copy = DeepCopier.copy(orders);
+            long graph = System.nanoTime() - start;
+            assertSame(copy.get(0).getCustomer(), copy.get(customers.size()).getCustomer());
+
+            System.out.printf("round %d: hand-written %d ms, tree copy %d ms, shared graph copy %d ms (%d orders)%n",
+                    round, handWritten / 1_000_000, tree / 1_000_000, graph / 1_000_000, orders.size());
+        }
+    }
+
+    private static void set(Object target, String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static Object get(Object target, String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,112 @@
+package com.gtan.reflect;
+
+import com.gtan.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DirtyCheckerTest：验证字段级脏检查（包含父类 Person 的字段），并与逐个 getDeclaredFields 比较的朴素实现对比耗时
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DirtyCheckerTest {
+
+    /**
+     * 字段顺序：父类字段在前，随后是 User 自身的实例字段，静态字段不参与比较。
+     */
+    @Test
+    public void testFieldNames() {
+        List<String> names = DirtyChecker.fieldNames(User.class);
+        assertEquals(List.of("personPublicField", "personPrivateField", "name", "age", "email", "message", "comments"),
+                names);
+    }
+
+    /**
+     * 修改父类字段 personPublicField、自身字段 name 和 final 字段 age，位图中只标记这三个字段。
+     *
+     * @throws NoSuchFieldException   找不到字段时抛出
+     * @throws IllegalAccessException 字段访问受限时抛出
+     */
+    @Test
+    public void testDiff() throws NoSuchFieldException, IllegalAccessException {
+        User before = new User("GangTan", 18);
+        User after = DeepCopier.copy(before);
+        assertFalse(DirtyChecker.isDirty(before, after));
+
+        after.personPublicField = "changed";
+        after.name = "gangtann";
+        Field age = User.class.getDeclaredField("age");
+        age.setAccessible(true);
+        age.set(after, 19);
+
+        BitSet changed = DirtyChecker.diff(before, after);
+        List<String> names = DirtyChecker.fieldNames(User.class);
+        List<String> changedNames = new ArrayList<>();
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            changedNames.add(names.get(i));
+        }
+        assertEquals(List.of("personPublicField", "name", "age"), changedNames);
+        assertTrue(DirtyChecker.isDirty(before, after));
+    }
+
+    /**
+     * 与朴素实现对比：每次比较都遍历 getDeclaredFields、调用 Field.get 并装箱比较。
+     *
+     * @throws IllegalAccessException 字段访问受限时抛出
+     */
+    @Test
+    public void testCompareWithNaiveLoop() throws IllegalAccessException {
+        User before = new User("GangTan", 18);
+        User after = DeepCopier.copy(before);
+        after.name = "gangtann";
+        int iterations = 200_000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int naiveChanges = 0;
+            for (int i = 0; i < iterations; i++) {
+                naiveChanges += naiveDiff(before, after).size();
+            }
+            long naive = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int changes = 0;
+            for (int i = 0; i < iterations; i++) {
+                changes += DirtyChecker.diff(before, after).cardinality();
+            }
+            long compiled = System.nanoTime() - start;
+            assertEquals(naiveChanges, changes);
+            System.out.printf("round %d: naive %d ns/op, compiled %d ns/op%n",
+                    round, naive / iterations, compiled / iterations);
+        }
+    }
+
+    private static List<Field> naiveDiff(Object before, Object after) throws IllegalAccessException {
+        List<Field> changed = new ArrayList<>();
+        for (Class<?> clazz = before.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                if (!Objects.equals(field.get(before), field.get(after))) {
+                    changed.add(field);
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,167 @@
+package com.gtan.reflect;
+
+import com.gtan.entity.Customer;
+import com.gtan.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * DynamicInvokerTest：演示按方法名调用实例方法、静态方法和重载方法，
+ * 并对比每次 getDeclaredMethod + invoke 与内联缓存调用点的耗时
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DynamicInvokerTest {
+
+    /**
+     * 调用 private 实例方法 myPrivateMethod 的两个重载：无参数和两个 String 参数。
+     *
+     * @throws NoSuchMethodException     找不到方法时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    @Test
+    public void testInvokePrivateInstanceMethods() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        User user = new User("GangTan", 18);
+        assertNull(DynamicInvoker.of("myPrivateMethod", 0).invoke(user));
+        assertNull(DynamicInvoker.of("myPrivateMethod", 2).invoke(user, "GangTan", "!"));
+    }
+
+    /**
+     * 调用 private 静态方法 myPrivateStaticMethod(String)，实参为 null 时同样能匹配引用类型参数。
+     *
+     * @throws NoSuchMethodException     找不到方法时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    @Test
+    public void testInvokePrivateStaticMethod() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        DynamicInvoker invoker = DynamicInvoker.of("myPrivateStaticMethod", 1);
+        invoker.invokeStatic(User.class, "hello world");
+        invoker.invokeStatic(User.class, (Object) null);
+    }
+
+    /**
+     * 同一个调用点先后作用于 User 和 Customer，内联缓存保存两个条目；方法不存在时抛出 NoSuchMethodException。
+     *
+     * @throws NoSuchMethodException     找不到方法时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    @Test
+    public void testPolymorphicCallSite() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        DynamicInvoker getName = DynamicInvoker.of("getName", 0);
+        assertEquals("GangTan", getName.invoke(new User("GangTan", 18)));
+        assertEquals("gangtann", getName.invoke(new Customer("gangtann", "gangtann@126.com")));
+        assertEquals("GangTan", DynamicInvoker.call(new User("GangTan", 18), "getName"));
+        assertThrows(NoSuchMethodException.class, () -> DynamicInvoker.of("myPrivateMethod", 1).invoke(new User(), "x"));
+    }
+
+    /**
+     * JDK 内部实现类的 public 方法通过其 public 接口调用；接口的默认方法同样可以找到。
+     *
+     * @throws NoSuchMethodException     找不到方法时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    @Test
+    public void testPublicInterfacesAndDefaultMethods() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        assertEquals(2, DynamicInvoker.of("size", 0).invoke(List.of(1, 2)));
+        assertEquals(1, DynamicInvoker.call(Map.of("a", 1), "get", "a"));
+        assertEquals(3L, ((Stream<?>) DynamicInvoker.call(new ArrayList<>(List.of(1, 2, 3)), "stream")).count());
+        assertEquals("Hello GangTan", DynamicInvoker.of("greet", 1).invoke(new Greeter(), "GangTan"));
+    }
+
+    /**
+     * 内联缓存满后，已缓存的组合和新的组合都能正确调用。
+     *
+     * @throws NoSuchMethodException     找不到方法时抛出
+     * @throws IllegalAccessException    方法访问受限时抛出
+     * @throws InvocationTargetException 方法执行抛出异常时抛出
+     */
+    @Test
+    public void testMegamorphicCallSite() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        DynamicInvoker size = DynamicInvoker.of("size", 0);
+        List<Object> receivers = List.of(List.of(), List.of(1), List.of(1, 2, 3), new ArrayList<>(List.of(1, 2)),
+                new HashSet<>(List.of(1, 2, 3, 4)), Set.of(1, 2, 3, 4, 5), Map.of());
+        List<Integer> expected = List.of(0, 1, 3, 2, 4, 5, 0);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < receivers.size(); i++) {
+                assertEquals(expected.get(i), size.invoke(receivers.get(i)));
+            }
+        }
+    }
+
+    /**
+     * 对比三种方式调用 getName 的耗时：直接调用、每次 getDeclaredMethod + invoke、复用调用点。
+     *
+     * @throws Exception 反射调用失败时抛出
+     */
+    @Test
+    public void testCompareWithGetDeclaredMethod() throws Exception {
+        User user = new User("GangTan", 18);
+        DynamicInvoker getName = DynamicInvoker.of("getName", 0);
+        int iterations = 1_000_000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int length = 0;
+            for (int i = 0; i < iterations; i++) {
+                length += user.getName().length();
+            }
+            long direct = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Method method = User.class.getDeclaredMethod("getName");
+                length += ((String) method.invoke(user)).length();
+            }
+            long reflective = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                length += ((String) getName.invoke(user)).length();
+            }
+            long cached = System.nanoTime() - start;
+            assertEquals(3 * iterations * 7, length);
+            System.out.printf("round %d: direct %.1f ns/op, getDeclaredMethod %.1f ns/op, call site %.1f ns/op%n", round,
+                    (double) direct / iterations, (double) reflective / iterations, (double) cached / iterations);
+        }
+    }
+
+    /**
+     * 默认方法的声明接口
+     */
+    public interface Greeting {
+
+        default String greet(String name) {
+            return "Hello " + name;
+        }
+    }
+
+    /**
+     * 不覆盖默认方法的实现类
+     */
+    public static class Greeter implements Greeting {
+    }
+}
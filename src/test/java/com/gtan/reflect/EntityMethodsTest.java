@@ -0,0 +1,321 @@
+package com.gtan.reflect;
+
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Order;
+import com.gtan.entity.Person;
+import com.gtan.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EntityMethodsTest：验证生成的 toString、equals、hashCode 包含父类 Person 的字段，并与手写实现、
+ * 逐次 getDeclaredFields + Field.get 的反射实现对比耗时和每次调用分配的字节数
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class EntityMethodsTest {
+
+    /**
+     * 父类字段在前，String 字段加单引号，静态字段不输出；追加到已有内容之后。
+     */
+    @Test
+    public void testToString() {
+        User user = new User("GangTan", 18);
+        user.personPublicField = "public";
+        StringBuilder out = new StringBuilder("user: ");
+        EntityMethods.appendTo(user, out);
+        assertEquals("user: User{personPublicField='public', personPrivateField=null, name='GangTan', age=18, "
+                + "email=null, message=null, comments=null}", out.toString());
+        assertEquals("Address{street='China', postCode='100000'}",
+                EntityMethods.toString(new Address("China", "100000")));
+        assertEquals("null", EntityMethods.toString(null));
+    }
+
+    /**
+     * 实体字段递归输出，枚举输出名称，数组和 JDK 类型调用其 toString；循环引用输出 Type{...}。
+     */
+    @Test
+    public void testNestedToString() {
+        Order order = new Order(new Customer("GangTan", "gangtann@126.com"), new Address("China", "100000"));
+        assertEquals("Order{customer=Customer{name='GangTan', email='gangtann@126.com'}, "
+                + "address=Address{street='China', postCode='100000'}}", EntityMethods.toString(order));
+
+        Node first = new Node("first", Thread.State.NEW);
+        Node second = new Node("second", Thread.State.RUNNABLE);
+        first.next = second;
+        second.next = first;
+        first.value = 1;
+        second.value = new int[0];
+        String text = EntityMethods.toString(first);
+        assertTrue(text.startsWith("Node{name='first', state=NEW, value=1, next=Node{name='second', state=RUNNABLE, "
+                + "value=[I@"), text);
+        assertTrue(text.endsWith(", next=Node{...}}}"), text);
+    }
+
+    /**
+     * 父类私有字段和 final 字段参与比较；相等的对象哈希相同；类型不同时不相等。
+     *
+     * @throws ReflectiveOperationException 修改字段失败时抛出
+     */
+    @Test
+    public void testEqualsAndHashCode() throws ReflectiveOperationException {
+        User a = new User("GangTan", 18);
+        User b = new User("GangTan", 18);
+        assertTrue(EntityMethods.equals(a, b));
+        assertEquals(EntityMethods.hashCode(a), EntityMethods.hashCode(b));
+
+        Field hidden = Person.class.getDeclaredField("personPrivateField");
+        hidden.setAccessible(true);
+        hidden.set(b, "secret");
+        assertFalse(EntityMethods.equals(a, b));
+        assertNotEquals(EntityMethods.hashCode(a), EntityMethods.hashCode(b));
+        hidden.set(b, null);
+        assertTrue(EntityMethods.equals(a, b));
+
+        assertFalse(EntityMethods.equals(a, new User("GangTan", 19)));
+        assertFalse(EntityMethods.equals(a, new Person()));
+        assertFalse(EntityMethods.equals(a, null));
+        assertEquals(0, EntityMethods.hashCode(null));
+    }
+
+    /**
+     * 没有覆盖 equals 的实体字段递归逐字段比较：Order 与其深度复制的副本相等、哈希相同；
+     * 结构相同的环也相等，计算哈希不会无限递归。
+     */
+    @Test
+    public void testNestedEqualsAndHashCode() {
+        Order order = new Order(new Customer("GangTan", "gangtann@126.com"), new Address("China", "100000"));
+        Order copy = DeepCopier.copy(order);
+        assertTrue(EntityMethods.equals(order, copy));
+        assertEquals(EntityMethods.hashCode(order), EntityMethods.hashCode(copy));
+        assertFalse(EntityMethods.equals(order,
+                new Order(new Customer("GangTan", "gangtann@126.com"), new Address("China", "200000"))));
+
+        Node first = new Node("first", Thread.State.NEW);
+        Node second = new Node("second", Thread.State.RUNNABLE);
+        first.next = second;
+        second.next = first;
+        Node firstCopy = DeepCopier.copy(first);
+        assertTrue(EntityMethods.equals(first, firstCopy));
+        assertEquals(EntityMethods.hashCode(first), EntityMethods.hashCode(firstCopy));
+        firstCopy.next.value = "changed";
+        assertFalse(EntityMethods.equals(first, firstCopy));
+    }
+
+    /**
+     * 手写、反射、生成三种实现的耗时和每次调用分配的字节数；toString 复用同一个 StringBuilder。
+     *
+     * @throws IllegalAccessException 反射读取字段失败时抛出
+     */
+    @Test
+    public void testCompareImplementations() throws IllegalAccessException {
+        Employee a = new Employee("GangTan", 18, 1001L, 12345.5, true, "gangtann@126.com");
+        Employee b = new Employee("GangTan", 18, 1001L, 12345.5, true, "gangtann@126.com");
+        assertEquals(a.toString(), EntityMethods.toString(a));
+        assertEquals(a.hashCode(), EntityMethods.hashCode(a));
+        assertEquals(a.toString(), reflectiveToString(a));
+        assertEquals(a.hashCode(), reflectiveHashCode(a));
+
+        int iterations = 200_000;
+        StringBuilder out = new StringBuilder(256);
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            long[] handWritten = measure(() -> {
+                long s = 0;
+                for (int i = 0; i < iterations; i++) {
+                    out.setLength(0);
+                    a.appendTo(out);
+                    s += out.length() + a.hashCode() + (a.equals(b) ? 1 : 0);
+                }
+                return s;
+            });
+            long[] reflective = measure(() -> {
+                long s = 0;
+                for (int i = 0; i < iterations; i++) {
+                    out.setLength(0);
+                    out.append(reflectiveToString(a));
+                    s += out.length() + reflectiveHashCode(a) + (reflectiveEquals(a, b) ? 1 : 0);
+                }
+                return s;
+            });
+            long[] generated = measure(() -> {
+                long s = 0;
+                for (int i = 0; i < iterations; i++) {
+                    out.setLength(0);
+                    EntityMethods.appendTo(a, out);
+                    s += out.length() + EntityMethods.hashCode(a) + (EntityMethods.equals(a, b) ? 1 : 0);
+                }
+                return s;
+            });
+            assertEquals(handWritten[0], reflective[0]);
+            assertEquals(handWritten[0], generated[0]);
+            sink += generated[0];
+            System.out.printf("round %d: hand-written %d ns/op %d B/op, reflective %d ns/op %d B/op, "
+                            + "generated %d ns/op %d B/op (toString + hashCode + equals, sink %d)%n", round,
+                    handWritten[1] / iterations, handWritten[2] / iterations,
+                    reflective[1] / iterations, reflective[2] / iterations,
+                    generated[1] / iterations, generated[2] / iterations, sink);
+        }
+    }
+
+    /**
+     * @return {结果, 耗时纳秒, 当前线程分配的字节数}
+     */
+    private static long[] measure(Workload workload) throws IllegalAccessException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long result = workload.run();
+        long elapsed = System.nanoTime() - start;
+        return new long[]{result, elapsed, threads.getCurrentThreadAllocatedBytes() - allocated};
+    }
+
+    private static String reflectiveToString(Object obj) throws IllegalAccessException {
+        StringBuilder out = new StringBuilder(obj.getClass().getSimpleName()).append('{');
+        boolean first = true;
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            Object value = field.get(obj);
+            out.append(first ? "" : ", ").append(field.getName()).append('=')
+                    .append(value instanceof String ? "'" + value + "'" : value);
+            first = false;
+        }
+        return out.append('}').toString();
+    }
+
+    private static int reflectiveHashCode(Object obj) throws IllegalAccessException {
+        int hash = 1;
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                hash = 31 * hash + Objects.hashCode(field.get(obj));
+            }
+        }
+        return hash;
+    }
+
+    private static boolean reflectiveEquals(Object a, Object b) throws IllegalAccessException {
+        for (Field field : a.getClass().getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                if (!Objects.equals(field.get(a), field.get(b))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 基准测试的一轮循环
+     */
+    @FunctionalInterface
+    private interface Workload {
+
+        long run() throws IllegalAccessException;
+    }
+
+    /**
+     * 互相引用的节点，value 的声明类型为 Object
+     */
+    public static class Node {
+
+        private final String name;
+
+        private final Thread.State state;
+
+        private Object value;
+
+        private Node next;
+
+        public Node(String name, Thread.State state) {
+            this.name = name;
+            this.state = state;
+        }
+    }
+
+    /**
+     * 手写 toString、equals、hashCode 的实体，格式和哈希组合方式与生成的实现一致
+     */
+    public static class Employee {
+
+        private final String name;
+
+        private final int age;
+
+        private final long id;
+
+        private final double salary;
+
+        private final boolean active;
+
+        private final String email;
+
+        public Employee(String name, int age, long id, double salary, boolean active, String email) {
+            this.name = name;
+            this.age = age;
+            this.id = id;
+            this.salary = salary;
+            this.active = active;
+            this.email = email;
+        }
+
+        void appendTo(StringBuilder out) {
+            out.append("Employee{name='").append(name).append('\'')
+                    .append(", age=").append(age)
+                    .append(", id=").append(id)
+                    .append(", salary=").append(salary)
+                    .append(", active=").append(active)
+                    .append(", email='").append(email).append('\'')
+                    .append('}');
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            appendTo(out);
+            return out.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Employee that = (Employee) o;
+            return age == that.age && id == that.id && Double.compare(salary, that.salary) == 0
+                    && active == that.active && Objects.equals(name, that.name) && Objects.equals(email, that.email);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            hash = 31 * hash + Objects.hashCode(name);
+            hash = 31 * hash + Integer.hashCode(age);
+            hash = 31 * hash + Long.hashCode(id);
+            hash = 31 * hash + Double.hashCode(salary);
+            hash = 31 * hash + Boolean.hashCode(active);
+            return 31 * hash + Objects.hashCode(email);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.gtan.reflect;
+
+import com.gtan.entity.Address;
+import com.gtan.entity.Customer;
+import com.gtan.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StringDeduplicatorTest：验证去重池和 BulkConstructor 的字段去重，并对比批量导入 Address 时去重前后的堆内存和耗时
+ *
+ * @author gangtann@126.com
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StringDeduplicatorTest {
+
+    /**
+     * 相同的值返回同一个实例，null 和超长字符串原样返回；命中时统计节省的字节数。
+     */
+    @Test
+    public void testDeduplicate() {
+        StringDeduplicator pool = new StringDeduplicator(1024, 8);
+        String first = new String("Beijing");
+        String second = new String("Beijing");
+        assertSame(first, pool.deduplicate(first));
+        assertSame(first, pool.deduplicate(second));
+        assertNull(pool.deduplicate(null));
+        String longText = new String("a street name that is too long");
+        assertSame(longText, pool.deduplicate(longText));
+        assertNotSame(longText, pool.deduplicate(new String(longText)));
+
+        StringDeduplicator.Stats stats = pool.stats();
+        assertEquals(2, stats.lookups());
+        assertEquals(1, stats.hits());
+        assertEquals(24 + 16 + 8, stats.bytesSaved());
+        assertEquals(1, stats.size());
+        pool.clear();
+        assertEquals(0, pool.stats().size());
+    }
+
+    /**
+     * BulkConstructor 只对指定的字段去重；字段名不存在或不是 String 类型时报错。
+     *
+     * @throws Exception 构造失败时抛出
+     */
+    @Test
+    public void testBulkConstructor() throws Exception {
+        StringDeduplicator pool = new StringDeduplicator(1024);
+        BulkConstructor<Address> addresses = BulkConstructor.of(Address.class, pool, "street");
+        Address first = addresses.newInstance(new String("China"), new String("100000"));
+        Address second = addresses.newInstance(new String("China"), new String("100000"));
+        assertSame(first.getStreet(), second.getStreet());
+        assertNotSame(first.getPostCode(), second.getPostCode());
+
+        BulkConstructor<Customer> customers = BulkConstructor.of(Customer.class);
+        assertEquals("GangTan", customers.newInstances(List.<Object[]>of(new Object[]{"GangTan", "a@b.c"}))
+                .get(0).getName());
+        assertThrows(IllegalArgumentException.class, () -> customers.newInstance("GangTan"));
+        assertThrows(ClassCastException.class, () -> customers.newInstance(1, 2));
+        BulkConstructor<Validated> validated = BulkConstructor.of(Validated.class);
+        InvocationTargetException failure = assertThrows(InvocationTargetException.class,
+                () -> validated.newInstance((Object) null));
+        assertTrue(failure.getCause() instanceof NullPointerException);
+        assertThrows(StackOverflowError.class, () -> validated.newInstance("overflow"));
+        assertThrows(IllegalArgumentException.class, () -> BulkConstructor.of(Address.class, pool, "city"));
+        assertThrows(IllegalArgumentException.class, () -> BulkConstructor.of(Order.class, pool, "customer"));
+    }
+
+    /**
+     * 模拟导入 100 万行地址，街道 1000 种、邮编 5000 种，每个值都是解析出来的新 String；
+     * 对比不去重与去重时导入耗时、保留的堆内存和不同 String 实例的个数。
+     *
+     * @throws Exception 构造失败时抛出
+     */
+    @Test
+    public void testImportFootprint() throws Exception {
+        int rows = 1_000_000;
+        for (int round = 0; round < 3; round++) {
+            BulkConstructor<Address> plain = BulkConstructor.of(Address.class);
+            StringDeduplicator pool = new StringDeduplicator(1 << 15);
+            BulkConstructor<Address> deduplicated = BulkConstructor.of(Address.class, pool, "street", "postCode");
+
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            List<Address> plainAddresses = load(plain, rows);
+            long plainTime = System.nanoTime() - start;
+            long plainHeap = usedHeap() - heapBefore;
+            int plainStrings = distinctStrings(plainAddresses);
+            plainAddresses = null;
+
+            heapBefore = usedHeap();
+            start = System.nanoTime();
+            List<Address> dedupAddresses = load(deduplicated, rows);
+            long dedupTime = System.nanoTime() - start;
+            long dedupHeap = usedHeap() - heapBefore;
+            int dedupStrings = distinctStrings(dedupAddresses);
+
+            StringDeduplicator.Stats stats = pool.stats();
+            System.out.printf("round %d: plain %d ns/row %d MB %d strings, deduplicated %d ns/row %d MB %d strings, "
+                            + "hit rate %.3f, %d MB saved, deduplicate %.1f ns/call%n", round, plainTime / rows,
+                    plainHeap >> 20, plainStrings, dedupTime / rows, dedupHeap >> 20, dedupStrings, stats.hitRate(),
+                    stats.bytesSaved() >> 20, nanosPerCall(pool));
+            assertEquals(rows, dedupAddresses.size());
+            assertEquals(2 * rows, plainStrings);
+            assertTrue(dedupStrings < rows / 10);
+            assertTrue(stats.bytesSaved() > 0);
+        }
+    }
+
+    private static List<Address> load(BulkConstructor<Address> constructor, int rows)
+            throws InvocationTargetException {
+        List<Address> addresses = new ArrayList<>(rows);
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            buffer.setLength(0);
+            String street = buffer.append("Street No.").append(i % 1000).toString();
+            buffer.setLength(0);
+            String postCode = buffer.append(100000 + i % 5000).toString();
+            addresses.add(constructor.newInstance(street, postCode));
+        }
+        return addresses;
+    }
+
+    /**
+     * 单独测量 deduplicate 的 CPU 开销：对预先生成的新 String 反复去重，不含解析和构造实体的时间
+     */
+    private static double nanosPerCall(StringDeduplicator pool) {
+        String[] values = new String[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new String("Street No." + i % 1000);
+        }
+        int calls = 0;
+        long start = System.nanoTime();
+        for (int repeat = 0; repeat < 10; repeat++) {
+            for (String value : values) {
+                if (pool.deduplicate(value) != value) {
+                    calls++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(calls > 0);
+        return (double) elapsed / (10L * values.length);
+    }
+
+    /**
+     * 构造器拒绝 null，参数为 "overflow" 时无限递归
+     */
+    public static class Validated {
+
+        public Validated(String name) {
+            if (Objects.requireNonNull(name).equals("overflow")) {
+                new Validated(name);
+            }
+        }
+    }
+
+    private static int distinctStrings(List<Address> addresses) {
+        Map<String, Boolean> strings = new IdentityHashMap<>();
+        for (Address address : addresses) {
+            strings.put(address.getStreet(), Boolean.TRUE);
+            strings.put(address.getPostCode(), Boolean.TRUE);
+        }
+        return strings.size();
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}